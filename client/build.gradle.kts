@@ -31,3 +31,25 @@ dependencies {
     // Needed to spin up a test protocol server
     testImplementation(project(":server"))
 }
+
+// JMH benchmarks, which are run with `./gradlew :client:jmh`
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.api.get(), configurations.implementation.get())
+
+dependencies {
+    // The benchmarks encode their snapshots with the server
+    "jmhImplementation"(project(":server"))
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.36")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.36")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+}
@@ -0,0 +1,93 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.benchmarks.client;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Struct;
+import java.util.concurrent.TimeUnit;
+import org.noelware.analytics.jvm.client.util.FlatSnapshot;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmMemoryPoolsExtension;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.serialization.FlatSnapshotWriter;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading two metrics out of a received snapshot through the <code>data</code> Struct, which has to parse
+ * the whole tree, against reading them out of its <code>flatData</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatSnapshotBenchmark {
+    private byte[] structSnapshot;
+    private byte[] flatSnapshot;
+
+    @Setup
+    public void setup() {
+        // A thread dump is the largest part of a snapshot, and what a collector usually doesn't read
+        final ReceiveStatsResponse snapshot = ReceiveStatsResponse.newBuilder()
+                .setProduct("analytics-server")
+                .setData(Struct.newBuilder()
+                        .putFields("threads", new JvmThreadsExtension().supply().toGrpcValue())
+                        .putFields("memory", new JvmMemoryPoolsExtension().supply().toGrpcValue()))
+                .build();
+
+        structSnapshot = snapshot.toByteArray();
+        flatSnapshot = FlatSnapshotWriter.encode(snapshot).toByteArray();
+    }
+
+    @Benchmark
+    public double struct() throws InvalidProtocolBufferException {
+        final Struct data = ReceiveStatsResponse.parseFrom(structSnapshot).getData();
+        return data.getFieldsOrThrow("threads")
+                        .getStructValue()
+                        .getFieldsOrThrow("current")
+                        .getNumberValue()
+                + data.getFieldsOrThrow("memory")
+                        .getStructValue()
+                        .getFieldsOrThrow("heap")
+                        .getStructValue()
+                        .getFieldsOrThrow("used")
+                        .getNumberValue();
+    }
+
+    @Benchmark
+    public double flat() throws InvalidProtocolBufferException {
+        final FlatSnapshot snapshot = FlatSnapshot.of(ReceiveStatsResponse.parseFrom(flatSnapshot));
+        return snapshot.get("threads.current").asDouble() + snapshot.get("memory.heap.used").asDouble();
+    }
+}
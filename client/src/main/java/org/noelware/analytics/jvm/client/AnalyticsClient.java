@@ -24,10 +24,16 @@
 package org.noelware.analytics.jvm.client;
 
 import java.io.Closeable;
+import java.time.Duration;
+import java.util.Iterator;
 import org.jetbrains.annotations.NotNull;
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler;
 import org.noelware.analytics.protobufs.v1.ConnectionAckResponse;
+import org.noelware.analytics.protobufs.v1.DescribeResponse;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
 import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse;
+import org.noelware.analytics.protobufs.v1.StreamStatsRequest;
 
 /**
  * Represents a client implementation of the Noelware Analytics protocol. This is mainly used to block
@@ -61,9 +67,85 @@ public interface AnalyticsClient extends Closeable {
 
     /**
      * Sends the {@link org.noelware.analytics.protobufs.v1.ReceiveStatsRequest receive stats request} to the gRPC server to collect
-     * all the statistics that we can ingest.
+     * all the statistics that we can ingest. The snapshot is in the v1 schema, where every extension's data is in
+     * <code>data</code>; use {@link #receiveStats(ReceiveStatsRequest)} to ask for the v2 one.
      *
      * @return {@link ResponseHandler<ReceiveStatsResponse> response handler} of the given request
      */
     ResponseHandler<ReceiveStatsResponse> receiveStats();
+
+    /**
+     * Sends the given {@link ReceiveStatsRequest receive stats request} to the gRPC server, which can select which
+     * extensions to collect (and which paths of their data) with its <code>includeExtensions</code>,
+     * <code>excludeExtensions</code> and <code>fieldMask</code> fields. Extensions that aren't selected are never
+     * called by the server.
+     *
+     * <p>The request is sent as-is, so the response is never applied onto the last snapshot of {@link #receiveStats()}.
+     * Setting <code>maxSchemaVersion</code> to 2 opts into the typed v2 schema of the built-in JVM extensions, and
+     * <code>dictionaryEncoding</code> into string dictionary encoding, which is decoded before the response is
+     * returned.
+     *
+     * @param request The request to send
+     * @return {@link ResponseHandler<ReceiveStatsResponse> response handler} of the given request
+     */
+    ResponseHandler<ReceiveStatsResponse> receiveStats(ReceiveStatsRequest request);
+
+    /**
+     * Sends the given {@link ReceiveStatsRequest receive stats request} to the <code>RetrieveStatsChunked</code>
+     * method, which sends the snapshot in chunks of at most <code>maxChunkBytes</code>. This is meant for snapshots that
+     * are bigger than the max inbound message size of the channel (4 MiB by default), which <code>RetrieveStats</code>
+     * would fail on. The chunks are stitched back together as they're received.
+     *
+     * <p>The response is always a full snapshot, so the request's <code>knownVersion</code> and encodings are ignored.
+     *
+     * @param request       The request to send
+     * @param maxChunkBytes How big a chunk can be, or <code>0</code> for the server's default of 1 MiB
+     * @return {@link ResponseHandler<ReceiveStatsResponse> response handler} of the given request
+     */
+    ResponseHandler<ReceiveStatsResponse> receiveStatsChunked(ReceiveStatsRequest request, int maxChunkBytes);
+
+    /**
+     * Sends the {@link org.noelware.analytics.protobufs.v1.RetrieveHistoryRequest retrieve history request} to the gRPC server
+     * to collect every sample that the server's background sampler has recorded since the given cursor, in a single batch.
+     *
+     * @param cursor The {@link RetrieveHistoryResponse#getNextCursor() next cursor} of the last response, or <code>0</code>
+     *               to collect every sample that the server still has.
+     * @return {@link ResponseHandler<RetrieveHistoryResponse> response handler} of the given request
+     */
+    ResponseHandler<RetrieveHistoryResponse> retrieveHistory(long cursor);
+
+    /**
+     * Sends the {@link org.noelware.analytics.protobufs.v1.DescribeRequest describe request} to the gRPC server to
+     * collect every extension that the server has registered, and the fields of each extension's data.
+     *
+     * @return {@link ResponseHandler<DescribeResponse> response handler} of the given request
+     */
+    ResponseHandler<DescribeResponse> describe();
+
+    /**
+     * Subscribes to the <code>StreamStats</code> method, which pushes a snapshot every <code>interval</code> until the
+     * call is cancelled. This is cheaper than calling {@link #receiveStats()} on an interval, since the call is only set
+     * up and authenticated once. If this client doesn't keep up, the server only sends the latest snapshot.
+     *
+     * <p>The returned iterator blocks until the next snapshot is received, and throws a {@link io.grpc.StatusRuntimeException}
+     * if the call fails.
+     *
+     * @param interval How often the server should send a snapshot, anything under a second is raised to a second
+     * @return {@link Iterator} of every snapshot that the server sends
+     */
+    default Iterator<ReceiveStatsResponse> subscribeStats(Duration interval) {
+        return subscribeStats(StreamStatsRequest.newBuilder()
+                .setIntervalMillis(interval.toMillis())
+                .build());
+    }
+
+    /**
+     * Same as {@link #subscribeStats(Duration)}, but sends the given request as-is. Setting its
+     * <code>dictionaryEncoding</code> opts into a string dictionary that is shared by the whole call, which is decoded
+     * before every snapshot is returned.
+     *
+     * @param request The request to send
+     * @return {@link Iterator} of every snapshot that the server sends
+     */
+    Iterator<ReceiveStatsResponse> subscribeStats(StreamStatsRequest request);
 }
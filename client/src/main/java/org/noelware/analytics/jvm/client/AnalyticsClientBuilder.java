@@ -23,16 +23,20 @@
 
 package org.noelware.analytics.jvm.client;
 
+import io.grpc.Decompressor;
 import io.grpc.ManagedChannelBuilder;
 import java.util.function.Consumer;
+import org.noelware.analytics.jvm.client.internal.ClientCompression;
 import org.noelware.analytics.jvm.client.internal.blocking.DefaultBlockingAnalyticsClient;
 
 /**
  * Represents a builder for constructing {@link AnalyticsClient} instances.
  */
 public class AnalyticsClientBuilder {
+    private final ClientCompression compression = new ClientCompression();
     private final ManagedChannelBuilder<?> channelBuilder;
     private String serviceToken;
+    private double deadband = 0;
 
     AnalyticsClientBuilder(ManagedChannelBuilder<?> builder) {
         this.channelBuilder = builder;
@@ -56,8 +60,63 @@ public class AnalyticsClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the relative change that a number has to go over before the server sends it again, if the server has
+     * delta responses enabled. A number that changed less than this keeps the value it had in the last snapshot,
+     * so <code>0.01</code> only updates numbers that changed by more than 1%.
+     *
+     * @param deadband The relative change, or <code>0</code> to always receive every change
+     * @return {@link AnalyticsClientBuilder} for chaining methods
+     */
+    public AnalyticsClientBuilder withDeadband(double deadband) {
+        if (deadband < 0 || Double.isNaN(deadband)) throw new IllegalArgumentException("Deadband can't be negative");
+
+        this.deadband = deadband;
+        return this;
+    }
+
+    /**
+     * Asks the server to compress every response with the given codec, like <code>gzip</code> or <code>deflate</code>.
+     * The server only compresses responses that are over its own minimum size, and uses its own configuration if
+     * it doesn't know the codec. Use <code>identity</code> to receive uncompressed responses.
+     *
+     * @param codec The codec that responses should be compressed with
+     * @return {@link AnalyticsClientBuilder} for chaining methods
+     */
+    public AnalyticsClientBuilder withCompression(String codec) {
+        compression.setDefaultCodec(codec);
+        return this;
+    }
+
+    /**
+     * Asks the server to compress the responses of a single RPC with the given codec, rather than the one
+     * given to {@link #withCompression(String)}.
+     *
+     * @param method The name of the RPC, like <code>RetrieveStats</code> or <code>StreamStats</code>
+     * @param codec  The codec that its responses should be compressed with
+     * @return {@link AnalyticsClientBuilder} for chaining methods
+     */
+    public AnalyticsClientBuilder withCompression(String method, String codec) {
+        compression.setMethodCodec(method, codec);
+        return this;
+    }
+
+    /**
+     * Registers a decompressor for a codec that the server was configured with, on top of
+     * <code>gzip</code> and <code>deflate</code>.
+     *
+     * @param decompressor The decompressor to register
+     * @return {@link AnalyticsClientBuilder} for chaining methods
+     */
+    public AnalyticsClientBuilder withDecompressor(Decompressor decompressor) {
+        compression.addDecompressor(decompressor);
+        return this;
+    }
+
     public AnalyticsClient build() {
         if (serviceToken == null) throw new IllegalStateException("Missing service token to use");
-        return new DefaultBlockingAnalyticsClient(serviceToken, channelBuilder);
+
+        compression.applyTo(channelBuilder);
+        return new DefaultBlockingAnalyticsClient(serviceToken, channelBuilder, deadband);
     }
 }
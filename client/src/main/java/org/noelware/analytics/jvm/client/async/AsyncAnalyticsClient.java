@@ -24,12 +24,19 @@
 package org.noelware.analytics.jvm.client.async;
 
 import java.io.Closeable;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 import org.noelware.analytics.jvm.client.AnalyticsClient;
+import org.noelware.analytics.jvm.client.StatsSubscription;
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler;
 import org.noelware.analytics.protobufs.v1.ConnectionAckResponse;
+import org.noelware.analytics.protobufs.v1.DescribeResponse;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
 import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse;
+import org.noelware.analytics.protobufs.v1.StreamStatsRequest;
 
 /**
  * Represents a {@link org.noelware.analytics.jvm.client.AnalyticsClient client} but that sends requests asynchronously.
@@ -62,4 +69,83 @@ public interface AsyncAnalyticsClient extends Closeable {
      * asynchronous rather than blocking.
      */
     CompletableFuture<ResponseHandler<ReceiveStatsResponse>> receiveStats();
+
+    /**
+     * Refer to {@link AnalyticsClient#receiveStats(ReceiveStatsRequest)} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    CompletableFuture<ResponseHandler<ReceiveStatsResponse>> receiveStats(ReceiveStatsRequest request);
+
+    /**
+     * Refer to {@link AnalyticsClient#receiveStatsChunked(ReceiveStatsRequest, int)} for the full documentation. This
+     * method is just asynchronous rather than blocking.
+     */
+    CompletableFuture<ResponseHandler<ReceiveStatsResponse>> receiveStatsChunked(
+            ReceiveStatsRequest request, int maxChunkBytes);
+
+    /**
+     * Refer to {@link AnalyticsClient#retrieveHistory(long)} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    CompletableFuture<ResponseHandler<RetrieveHistoryResponse>> retrieveHistory(long cursor);
+
+    /**
+     * Refer to {@link AnalyticsClient#describe()} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    CompletableFuture<ResponseHandler<DescribeResponse>> describe();
+
+    /**
+     * Refer to {@link AnalyticsClient#subscribeStats(Duration)} for the full documentation. Rather than blocking, every
+     * snapshot is given to <code>onSnapshot</code> on a gRPC thread as it is received.
+     *
+     * @param interval   How often the server should send a snapshot, anything under a second is raised to a second
+     * @param onSnapshot Called with every snapshot that the server sends
+     * @param onError    Called once if the call fails, which ends the subscription
+     * @return {@link StatsSubscription} to cancel the subscription with
+     */
+    default StatsSubscription subscribeStats(
+            Duration interval, Consumer<ReceiveStatsResponse> onSnapshot, Consumer<Throwable> onError) {
+        return subscribeStats(interval, onSnapshot, onError, () -> {});
+    }
+
+    /**
+     * Same as {@link #subscribeStats(Duration, Consumer, Consumer)}, but also tells when the server has ended the
+     * subscription without an error (like when it is shutting down).
+     *
+     * @param interval    How often the server should send a snapshot, anything under a second is raised to a second
+     * @param onSnapshot  Called with every snapshot that the server sends
+     * @param onError     Called once if the call fails, which ends the subscription
+     * @param onCompleted Called once if the server ends the subscription, it isn't called if it was cancelled
+     * @return {@link StatsSubscription} to cancel the subscription with
+     */
+    default StatsSubscription subscribeStats(
+            Duration interval,
+            Consumer<ReceiveStatsResponse> onSnapshot,
+            Consumer<Throwable> onError,
+            Runnable onCompleted) {
+        return subscribeStats(
+                StreamStatsRequest.newBuilder()
+                        .setIntervalMillis(interval.toMillis())
+                        .build(),
+                onSnapshot,
+                onError,
+                onCompleted);
+    }
+
+    /**
+     * Same as {@link #subscribeStats(Duration, Consumer, Consumer, Runnable)}, but sends the given request as-is,
+     * see {@link AnalyticsClient#subscribeStats(StreamStatsRequest)}.
+     *
+     * @param request     The request to send
+     * @param onSnapshot  Called with every snapshot that the server sends
+     * @param onError     Called once if the call fails, which ends the subscription
+     * @param onCompleted Called once if the server ends the subscription, it isn't called if it was cancelled
+     * @return {@link StatsSubscription} to cancel the subscription with
+     */
+    StatsSubscription subscribeStats(
+            StreamStatsRequest request,
+            Consumer<ReceiveStatsResponse> onSnapshot,
+            Consumer<Throwable> onError,
+            Runnable onCompleted);
 }
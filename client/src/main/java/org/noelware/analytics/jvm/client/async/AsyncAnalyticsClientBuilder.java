@@ -23,13 +23,17 @@
 
 package org.noelware.analytics.jvm.client.async;
 
+import io.grpc.Decompressor;
 import io.grpc.ManagedChannelBuilder;
 import java.util.function.Consumer;
+import org.noelware.analytics.jvm.client.internal.ClientCompression;
 import org.noelware.analytics.jvm.client.internal.async.DefaultAsyncAnalyticsClient;
 
 public class AsyncAnalyticsClientBuilder {
+    private final ClientCompression compression = new ClientCompression();
     private final ManagedChannelBuilder<?> channelBuilder;
     private String serviceToken;
+    private double deadband = 0;
 
     AsyncAnalyticsClientBuilder(ManagedChannelBuilder<?> builder) {
         this.channelBuilder = builder;
@@ -53,8 +57,63 @@ public class AsyncAnalyticsClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the relative change that a number has to go over before the server sends it again, if the server has
+     * delta responses enabled. A number that changed less than this keeps the value it had in the last snapshot,
+     * so <code>0.01</code> only updates numbers that changed by more than 1%.
+     *
+     * @param deadband The relative change, or <code>0</code> to always receive every change
+     * @return {@link AsyncAnalyticsClientBuilder} for chaining methods
+     */
+    public AsyncAnalyticsClientBuilder withDeadband(double deadband) {
+        if (deadband < 0 || Double.isNaN(deadband)) throw new IllegalArgumentException("Deadband can't be negative");
+
+        this.deadband = deadband;
+        return this;
+    }
+
+    /**
+     * Asks the server to compress every response with the given codec, like <code>gzip</code> or <code>deflate</code>.
+     * The server only compresses responses that are over its own minimum size, and uses its own configuration if
+     * it doesn't know the codec. Use <code>identity</code> to receive uncompressed responses.
+     *
+     * @param codec The codec that responses should be compressed with
+     * @return {@link AsyncAnalyticsClientBuilder} for chaining methods
+     */
+    public AsyncAnalyticsClientBuilder withCompression(String codec) {
+        compression.setDefaultCodec(codec);
+        return this;
+    }
+
+    /**
+     * Asks the server to compress the responses of a single RPC with the given codec, rather than the one
+     * given to {@link #withCompression(String)}.
+     *
+     * @param method The name of the RPC, like <code>RetrieveStats</code> or <code>StreamStats</code>
+     * @param codec  The codec that its responses should be compressed with
+     * @return {@link AsyncAnalyticsClientBuilder} for chaining methods
+     */
+    public AsyncAnalyticsClientBuilder withCompression(String method, String codec) {
+        compression.setMethodCodec(method, codec);
+        return this;
+    }
+
+    /**
+     * Registers a decompressor for a codec that the server was configured with, on top of
+     * <code>gzip</code> and <code>deflate</code>.
+     *
+     * @param decompressor The decompressor to register
+     * @return {@link AsyncAnalyticsClientBuilder} for chaining methods
+     */
+    public AsyncAnalyticsClientBuilder withDecompressor(Decompressor decompressor) {
+        compression.addDecompressor(decompressor);
+        return this;
+    }
+
     public AsyncAnalyticsClient build() {
         if (serviceToken == null) throw new IllegalStateException("Missing service token to use");
-        return new DefaultAsyncAnalyticsClient(serviceToken, channelBuilder);
+
+        compression.applyTo(channelBuilder);
+        return new DefaultAsyncAnalyticsClient(serviceToken, channelBuilder, deadband);
     }
 }
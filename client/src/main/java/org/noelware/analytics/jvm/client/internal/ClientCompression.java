@@ -0,0 +1,91 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.internal;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+
+import io.grpc.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the compression settings that the client builders collect. The client can decompress
+ * <code>gzip</code>, <code>deflate</code> and every registered decompressor, and asks the server to compress
+ * the responses of each RPC with the codec that was set for it through the <code>analytics-compression</code>
+ * header. The server falls back to its own configuration if it doesn't know the codec.
+ */
+public class ClientCompression {
+    private static final Metadata.Key<String> COMPRESSION_META_KEY =
+            Metadata.Key.of("analytics-compression", ASCII_STRING_MARSHALLER);
+
+    private final Map<String, String> methodCodecs = new HashMap<>();
+    private final List<Decompressor> decompressors = new ArrayList<>();
+    private String defaultCodec;
+
+    public void setDefaultCodec(@Nullable String codec) {
+        this.defaultCodec = codec;
+    }
+
+    public void setMethodCodec(String method, String codec) {
+        methodCodecs.put(method, codec);
+    }
+
+    public void addDecompressor(Decompressor decompressor) {
+        decompressors.add(decompressor);
+    }
+
+    /**
+     * Registers the decompressors on the given channel, and the interceptor that sends the codec that
+     * each RPC should be compressed with.
+     */
+    public void applyTo(ManagedChannelBuilder<?> channel) {
+        DecompressorRegistry registry = DecompressorRegistry.getDefaultInstance().with(new DeflateDecompressor(), true);
+        for (Decompressor decompressor : decompressors) registry = registry.with(decompressor, true);
+
+        channel.decompressorRegistry(registry);
+        if (defaultCodec == null && methodCodecs.isEmpty()) return;
+
+        final String defaultCodec = this.defaultCodec;
+        final Map<String, String> methodCodecs = Map.copyOf(this.methodCodecs);
+        channel.intercept(new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+                    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+                final String codec = methodCodecs.getOrDefault(method.getBareMethodName(), defaultCodec);
+                if (codec == null) return next.newCall(method, callOptions);
+
+                return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+                    @Override
+                    public void start(Listener<RespT> responseListener, Metadata headers) {
+                        headers.put(COMPRESSION_META_KEY, codec);
+                        super.start(responseListener, headers);
+                    }
+                };
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.internal;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.List;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v2.DictStruct;
+import org.noelware.analytics.protobufs.v2.DictValue;
+import org.noelware.analytics.protobufs.v2.StringDictionary;
+
+/**
+ * Keeps the string dictionary of a call, and turns the <code>dictionaryData</code> of a snapshot back into its
+ * <code>data</code>. Snapshots have to be decoded in the order that they were received in, since each one can add
+ * strings to the dictionary.
+ */
+public class DictionaryDecoder {
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Returns the given snapshot with its <code>data</code> decoded, or as it is if it wasn't dictionary encoded.
+     *
+     * @param response The snapshot that the server has sent
+     * @throws IllegalStateException if the dictionary is missing strings that the snapshot needs
+     */
+    public synchronized ReceiveStatsResponse decode(ReceiveStatsResponse response) {
+        if (!response.hasDictionary()) return response;
+
+        final StringDictionary dictionary = response.getDictionary();
+        if (dictionary.getOffset() == 0) strings.clear();
+        if (dictionary.getOffset() != strings.size()) {
+            throw new IllegalStateException("Server added strings at %d, but this client's dictionary has %d"
+                    .formatted(dictionary.getOffset(), strings.size()));
+        }
+
+        strings.addAll(dictionary.getStringsList());
+        return response.toBuilder()
+                .clearDictionary()
+                .clearDictionaryData()
+                .setData(decode(response.getDictionaryData().getStructValue()))
+                .build();
+    }
+
+    private Struct decode(DictStruct struct) {
+        if (struct.getKeysCount() != struct.getValuesCount())
+            throw new IllegalStateException("Struct has %d keys, but %d values"
+                    .formatted(struct.getKeysCount(), struct.getValuesCount()));
+
+        final Struct.Builder builder = Struct.newBuilder();
+        for (int i = 0; i < struct.getKeysCount(); i++)
+            builder.putFields(stringOf(struct.getKeys(i)), decode(struct.getValues(i)));
+
+        return builder.build();
+    }
+
+    private Value decode(DictValue value) {
+        return switch (value.getKindCase()) {
+            case NUMBERVALUE -> Value.newBuilder()
+                    .setNumberValue(value.getNumberValue())
+                    .build();
+
+            case STRINGID -> Value.newBuilder()
+                    .setStringValue(stringOf(value.getStringId()))
+                    .build();
+
+            case STRINGVALUE -> Value.newBuilder()
+                    .setStringValue(value.getStringValue())
+                    .build();
+
+            case BOOLVALUE -> Value.newBuilder().setBoolValue(value.getBoolValue()).build();
+            case STRUCTVALUE -> Value.newBuilder()
+                    .setStructValue(decode(value.getStructValue()))
+                    .build();
+
+            case LISTVALUE -> {
+                final ListValue.Builder list = ListValue.newBuilder();
+                for (DictValue element : value.getListValue().getValuesList()) list.addValues(decode(element));
+
+                yield Value.newBuilder().setListValue(list).build();
+            }
+
+            default -> Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+        };
+    }
+
+    private String stringOf(int id) {
+        // ids are uint32 on the wire
+        if (Integer.compareUnsigned(id, strings.size()) >= 0)
+            throw new IllegalStateException("String %d isn't in this client's dictionary".formatted(id));
+
+        return strings.get(id);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.internal;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.protobufs.v1.FieldChange;
+import org.noelware.analytics.protobufs.v1.FieldPath;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.SnapshotDelta;
+
+/**
+ * Keeps the last snapshot that the client has received, so it can ask the server for only what has changed, and
+ * turns delta or "not modified" responses back into a full {@link ReceiveStatsResponse}.
+ */
+public class SnapshotReconstructor {
+    private final AtomicReference<ReceiveStatsResponse> last = new AtomicReference<>();
+    private final double deadband;
+
+    /**
+     * @param deadband Relative change a number has to go over before the server sends it, <code>0</code> to always send it
+     */
+    public SnapshotReconstructor(double deadband) {
+        this.deadband = deadband;
+    }
+
+    /**
+     * Returns the snapshot that the next request should be based on, or <code>null</code> if there isn't one.
+     */
+    public @Nullable ReceiveStatsResponse base() {
+        return last.get();
+    }
+
+    /**
+     * Returns the request to send when the client holds the given snapshot. It asks for the v1 schema, since
+     * the v2 one and dictionary encoding are opted into with a request of its own.
+     *
+     * @param base The snapshot from {@link #base()}
+     */
+    public ReceiveStatsRequest requestFor(@Nullable ReceiveStatsResponse base) {
+        final ReceiveStatsRequest.Builder request = ReceiveStatsRequest.newBuilder();
+
+        // A snapshot version of 0 means that the server doesn't support delta responses
+        if (base != null && base.getSnapshotVersion() != 0) request.setKnownVersion(base.getSnapshotVersion());
+        if (deadband > 0) request.setDeadband(deadband);
+
+        return request.build();
+    }
+
+    /**
+     * Turns the server's response back into a full snapshot, and remembers it for the next request.
+     *
+     * @param base     The snapshot that the request was based on
+     * @param response The response that the server has sent
+     * @throws IllegalStateException if the response is based on a different snapshot
+     */
+    public ReceiveStatsResponse reconstruct(@Nullable ReceiveStatsResponse base, ReceiveStatsResponse response) {
+        final ReceiveStatsResponse full;
+        if (response.getNotModified()) {
+            requireBase(base, response.getSnapshotVersion());
+            full = response.toBuilder()
+                    .setNotModified(false)
+                    .setData(base.getData())
+                    .build();
+        } else if (response.hasBaseVersion()) {
+            requireBase(base, response.getBaseVersion());
+            full = response.toBuilder()
+                    .clearBaseVersion()
+                    .clearDelta()
+                    .setData(apply(base.getData(), response.getDelta()))
+                    .build();
+        } else {
+            full = response;
+        }
+
+        last.set(full);
+        return full;
+    }
+
+    private void requireBase(@Nullable ReceiveStatsResponse base, long version) {
+        if (base == null || base.getSnapshotVersion() != version) {
+            // Start over with a full snapshot on the next request
+            last.set(null);
+            throw new IllegalStateException(
+                    "Server sent a delta against version %d, which this client doesn't hold".formatted(version));
+        }
+    }
+
+    /**
+     * Applies the given delta onto the given struct.
+     *
+     * @param base  The struct to apply the delta onto
+     * @param delta The delta to apply
+     */
+    public static Struct apply(Struct base, SnapshotDelta delta) {
+        final Node root = new Node();
+        for (FieldChange change : delta.getChangedList()) root.walk(change.getPathList()).value = change.getValue();
+        for (FieldPath removal : delta.getRemovedList()) root.walk(removal.getPathList()).removed = true;
+
+        return root.merge(base);
+    }
+
+    // Every change and removal is put in a tree first, so the struct is only rebuilt once
+    // no matter how many changes there are.
+    private static class Node {
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private Value value;
+        private boolean removed;
+
+        Node walk(List<String> path) {
+            Node node = this;
+            for (String key : path) node = node.children.computeIfAbsent(key, ignored -> new Node());
+
+            return node;
+        }
+
+        Struct merge(Struct base) {
+            final Struct.Builder builder = base.toBuilder();
+            for (Map.Entry<String, Node> child : children.entrySet()) {
+                final Node node = child.getValue();
+                if (node.removed) {
+                    builder.removeFields(child.getKey());
+                } else if (node.value != null) {
+                    builder.putFields(child.getKey(), node.value);
+                } else {
+                    final Value existing = base.getFieldsMap().get(child.getKey());
+                    final Struct nested = existing != null && existing.hasStructValue()
+                            ? existing.getStructValue()
+                            : Struct.getDefaultInstance();
+
+                    builder.putFields(
+                            child.getKey(),
+                            Value.newBuilder().setStructValue(node.merge(nested)).build());
+                }
+            }
+
+            return builder.build();
+        }
+    }
+}
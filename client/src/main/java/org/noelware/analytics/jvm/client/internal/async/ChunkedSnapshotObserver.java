@@ -0,0 +1,88 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.internal.async;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.util.concurrent.CompletableFuture;
+import org.noelware.analytics.jvm.client.handlers.ResponseHandler;
+import org.noelware.analytics.jvm.client.handlers.RetrieveStatsResponseHandler;
+import org.noelware.analytics.jvm.client.util.SnapshotAssembler;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.RetrieveStatsChunkedRequest;
+import org.noelware.analytics.protobufs.v1.StatsChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stitches the chunks of a single <code>RetrieveStatsChunked</code> call together as they arrive, and completes
+ * {@link #future()} with the snapshot once the call has finished.
+ */
+public class ChunkedSnapshotObserver implements ClientResponseObserver<RetrieveStatsChunkedRequest, StatsChunk> {
+    private final CompletableFuture<ResponseHandler<ReceiveStatsResponse>> future = new CompletableFuture<>();
+    private final Logger LOG = LoggerFactory.getLogger(ChunkedSnapshotObserver.class);
+    private final SnapshotAssembler assembler = new SnapshotAssembler();
+    private ClientCallStreamObserver<RetrieveStatsChunkedRequest> call;
+
+    public CompletableFuture<ResponseHandler<ReceiveStatsResponse>> future() {
+        return future;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<RetrieveStatsChunkedRequest> call) {
+        this.call = call;
+    }
+
+    @Override
+    public void onNext(StatsChunk chunk) {
+        if (future.isDone()) return;
+
+        try {
+            assembler.accept(chunk);
+        } catch (IllegalStateException e) {
+            // The rest of the chunks can't be put anywhere either
+            future.complete(new RetrieveStatsResponseHandler(e));
+            call.cancel("Chunk couldn't be assembled", e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (future.isDone()) return;
+
+        LOG.error("RetrieveStatsChunked call has failed:", t);
+        future.complete(new RetrieveStatsResponseHandler(t));
+    }
+
+    @Override
+    public void onCompleted() {
+        if (future.isDone()) return;
+
+        try {
+            future.complete(new RetrieveStatsResponseHandler(assembler.build()));
+        } catch (IllegalStateException e) {
+            future.complete(new RetrieveStatsResponseHandler(e));
+        }
+    }
+}
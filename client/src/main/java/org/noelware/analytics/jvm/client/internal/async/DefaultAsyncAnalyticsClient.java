@@ -31,19 +31,27 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 import org.noelware.analytics.jvm.client.AnalyticsClient;
+import org.noelware.analytics.jvm.client.StatsSubscription;
 import org.noelware.analytics.jvm.client.async.AsyncAnalyticsClient;
 import org.noelware.analytics.jvm.client.handlers.ConnectionAckResponseHandler;
+import org.noelware.analytics.jvm.client.handlers.DescribeResponseHandler;
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler;
+import org.noelware.analytics.jvm.client.handlers.RetrieveHistoryResponseHandler;
 import org.noelware.analytics.jvm.client.handlers.RetrieveStatsResponseHandler;
 import org.noelware.analytics.jvm.client.internal.ClientAuthorizationCredentials;
+import org.noelware.analytics.jvm.client.internal.DictionaryDecoder;
+import org.noelware.analytics.jvm.client.internal.SnapshotReconstructor;
 import org.noelware.analytics.protobufs.v1.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultAsyncAnalyticsClient implements AsyncAnalyticsClient {
     private final AnalyticsGrpc.AnalyticsFutureStub stub;
+    private final AnalyticsGrpc.AnalyticsStub streamingStub;
+    private final SnapshotReconstructor reconstructor;
     private final ManagedChannel channel;
     private final String instanceUUID;
     private final String rawToken;
@@ -53,15 +61,24 @@ public class DefaultAsyncAnalyticsClient implements AsyncAnalyticsClient {
     private final Logger LOG = LoggerFactory.getLogger(DefaultAsyncAnalyticsClient.class);
 
     public DefaultAsyncAnalyticsClient(String serviceToken, ManagedChannelBuilder<?> channel) {
+        this(serviceToken, channel, 0);
+    }
+
+    public DefaultAsyncAnalyticsClient(String serviceToken, ManagedChannelBuilder<?> channel, double deadband) {
         final String finalResult = new String(Base64.getDecoder().decode(serviceToken));
         final String[] split = finalResult.split(":", 2);
         if (split.length != 2) throw new IllegalStateException("Service token was not split as 'instanceUUID:token'");
 
         this.instanceUUID = split[0];
         this.rawToken = split[1];
+        this.reconstructor = new SnapshotReconstructor(deadband);
         this.channel = channel.build();
         stub = AnalyticsGrpc.newFutureStub(this.channel)
                 .withCallCredentials(new ClientAuthorizationCredentials(rawToken));
+
+        // The future stub can't make server-streaming calls, so StreamStats uses the async stub.
+        streamingStub = AnalyticsGrpc.newStub(this.channel)
+                .withCallCredentials(new ClientAuthorizationCredentials(rawToken));
     }
 
     /**
@@ -122,9 +139,35 @@ public class DefaultAsyncAnalyticsClient implements AsyncAnalyticsClient {
 
         final CompletableFuture<ResponseHandler<ReceiveStatsResponse>> fut = new CompletableFuture<>();
         try {
+            // The server might only send what has changed since the last snapshot, so it
+            // is applied onto that one.
+            final ReceiveStatsResponse base = reconstructor.base();
             final ReceiveStatsResponse resp =
-                    stub.retrieveStats(ReceiveStatsRequest.newBuilder().build()).get();
-            fut.complete(new RetrieveStatsResponseHandler(resp));
+                    stub.retrieveStats(reconstructor.requestFor(base)).get();
+            fut.complete(new RetrieveStatsResponseHandler(
+                    reconstructor.reconstruct(base, new DictionaryDecoder().decode(resp))));
+        } catch (ExecutionException | InterruptedException e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            fut.complete(new RetrieveStatsResponseHandler(e));
+        } catch (Exception e) {
+            fut.completeExceptionally(e);
+        }
+
+        return fut;
+    }
+
+    /**
+     * Refer to {@link AnalyticsClient#receiveStats(ReceiveStatsRequest)} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    @Override
+    public CompletableFuture<ResponseHandler<ReceiveStatsResponse>> receiveStats(ReceiveStatsRequest request) {
+        LOG.debug("Sending the `receiveStats` RPC call...");
+
+        final CompletableFuture<ResponseHandler<ReceiveStatsResponse>> fut = new CompletableFuture<>();
+        try {
+            final ReceiveStatsResponse resp = stub.retrieveStats(request).get();
+            fut.complete(new RetrieveStatsResponseHandler(new DictionaryDecoder().decode(resp)));
         } catch (ExecutionException | InterruptedException e) {
             LOG.error("RPC call threw an execution exception:", e);
             fut.complete(new RetrieveStatsResponseHandler(e));
@@ -135,6 +178,93 @@ public class DefaultAsyncAnalyticsClient implements AsyncAnalyticsClient {
         return fut;
     }
 
+    /**
+     * Refer to {@link AnalyticsClient#receiveStatsChunked(ReceiveStatsRequest, int)} for the full documentation. The
+     * chunks are stitched together on a gRPC thread as they arrive.
+     */
+    @Override
+    public CompletableFuture<ResponseHandler<ReceiveStatsResponse>> receiveStatsChunked(
+            ReceiveStatsRequest request, int maxChunkBytes) {
+        LOG.debug("Sending the `retrieveStatsChunked` RPC call...");
+
+        final ChunkedSnapshotObserver observer = new ChunkedSnapshotObserver();
+        streamingStub.retrieveStatsChunked(
+                RetrieveStatsChunkedRequest.newBuilder()
+                        .setRequest(request)
+                        .setMaxChunkBytes(maxChunkBytes)
+                        .build(),
+                observer);
+
+        return observer.future();
+    }
+
+    /**
+     * Refer to {@link AnalyticsClient#retrieveHistory(long)} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    @Override
+    public CompletableFuture<ResponseHandler<RetrieveHistoryResponse>> retrieveHistory(long cursor) {
+        LOG.debug("Sending the `retrieveHistory` RPC call...");
+
+        final CompletableFuture<ResponseHandler<RetrieveHistoryResponse>> fut = new CompletableFuture<>();
+        try {
+            final RetrieveHistoryResponse resp = stub.retrieveHistory(
+                            RetrieveHistoryRequest.newBuilder().setCursor(cursor).build())
+                    .get();
+            fut.complete(new RetrieveHistoryResponseHandler(resp));
+        } catch (ExecutionException | InterruptedException e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            fut.complete(new RetrieveHistoryResponseHandler(e));
+        } catch (Exception e) {
+            fut.completeExceptionally(e);
+        }
+
+        return fut;
+    }
+
+    /**
+     * Refer to {@link AnalyticsClient#describe()} for the full documentation. This method is just
+     * asynchronous rather than blocking.
+     */
+    @Override
+    public CompletableFuture<ResponseHandler<DescribeResponse>> describe() {
+        LOG.debug("Sending the `describe` RPC call...");
+
+        final CompletableFuture<ResponseHandler<DescribeResponse>> fut = new CompletableFuture<>();
+        try {
+            final DescribeResponse resp =
+                    stub.describe(DescribeRequest.newBuilder().build()).get();
+            fut.complete(new DescribeResponseHandler(resp));
+        } catch (ExecutionException | InterruptedException e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            fut.complete(new DescribeResponseHandler(e));
+        } catch (Exception e) {
+            fut.completeExceptionally(e);
+        }
+
+        return fut;
+    }
+
+    /**
+     * Refer to {@link AnalyticsClient#subscribeStats(StreamStatsRequest)} for the full documentation. Rather than
+     * blocking, every snapshot is given to <code>onSnapshot</code> as it is received, and <code>onCompleted</code> is
+     * called once the server ends the subscription.
+     */
+    @Override
+    public StatsSubscription subscribeStats(
+            StreamStatsRequest request,
+            Consumer<ReceiveStatsResponse> onSnapshot,
+            Consumer<Throwable> onError,
+            Runnable onCompleted) {
+        LOG.debug("Sending the `streamStats` RPC call...");
+
+        final DefaultStatsSubscription subscription =
+                new DefaultStatsSubscription(onSnapshot, onError, onCompleted);
+        streamingStub.streamStats(request, subscription);
+
+        return subscription;
+    }
+
     /**
      * Closes this stream and releases any system resources associated
      * with it. If the stream is already closed then invoking this
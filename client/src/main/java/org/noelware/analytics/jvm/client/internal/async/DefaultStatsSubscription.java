@@ -0,0 +1,103 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.internal.async;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.noelware.analytics.jvm.client.StatsSubscription;
+import org.noelware.analytics.jvm.client.internal.DictionaryDecoder;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.StreamStatsRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DefaultStatsSubscription
+        implements StatsSubscription, ClientResponseObserver<StreamStatsRequest, ReceiveStatsResponse> {
+    private final Logger LOG = LoggerFactory.getLogger(DefaultStatsSubscription.class);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final DictionaryDecoder dictionary = new DictionaryDecoder();
+    private final Consumer<ReceiveStatsResponse> onSnapshot;
+    private final Consumer<Throwable> onError;
+    private final Runnable onCompleted;
+    private volatile ClientCallStreamObserver<StreamStatsRequest> call;
+
+    public DefaultStatsSubscription(
+            Consumer<ReceiveStatsResponse> onSnapshot, Consumer<Throwable> onError, Runnable onCompleted) {
+        this.onSnapshot = onSnapshot;
+        this.onCompleted = onCompleted;
+        this.onError = onError;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<StreamStatsRequest> call) {
+        this.call = call;
+    }
+
+    @Override
+    public void onNext(ReceiveStatsResponse value) {
+        final ReceiveStatsResponse decoded;
+        try {
+            decoded = dictionary.decode(value);
+        } catch (IllegalStateException e) {
+            // Every snapshot after this one would be missing strings too
+            if (cancelled.compareAndSet(false, true)) {
+                call.cancel("Snapshot couldn't be decoded", e);
+                onError.accept(e);
+            }
+
+            return;
+        }
+
+        onSnapshot.accept(decoded);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // We cancelled it ourselves, so there is nothing to report.
+        if (!cancelled.compareAndSet(false, true)) return;
+
+        LOG.error("StreamStats call has failed:", t);
+        onError.accept(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        // The server has ended it, so whoever is waiting for more snapshots has to know.
+        if (cancelled.compareAndSet(false, true)) onCompleted.run();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            call.cancel("Subscription was cancelled", null);
+        }
+    }
+}
@@ -23,25 +23,33 @@
 
 package org.noelware.analytics.jvm.client.internal.blocking;
 
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import java.io.IOException;
 import java.util.Base64;
+import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.NotNull;
 import org.noelware.analytics.jvm.client.AnalyticsClient;
 import org.noelware.analytics.jvm.client.handlers.ConnectionAckResponseHandler;
+import org.noelware.analytics.jvm.client.handlers.DescribeResponseHandler;
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler;
+import org.noelware.analytics.jvm.client.handlers.RetrieveHistoryResponseHandler;
 import org.noelware.analytics.jvm.client.handlers.RetrieveStatsResponseHandler;
 import org.noelware.analytics.jvm.client.internal.ClientAuthorizationCredentials;
+import org.noelware.analytics.jvm.client.internal.DictionaryDecoder;
+import org.noelware.analytics.jvm.client.internal.SnapshotReconstructor;
+import org.noelware.analytics.jvm.client.util.SnapshotAssembler;
 import org.noelware.analytics.protobufs.v1.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultBlockingAnalyticsClient implements AnalyticsClient {
     private final AnalyticsGrpc.AnalyticsBlockingStub stub;
+    private final SnapshotReconstructor reconstructor;
     private final ManagedChannel channel;
     private final String instanceUUID;
     private final String rawToken;
@@ -51,12 +59,17 @@ public class DefaultBlockingAnalyticsClient implements AnalyticsClient {
     private final Logger LOG = LoggerFactory.getLogger(DefaultBlockingAnalyticsClient.class);
 
     public DefaultBlockingAnalyticsClient(String serviceToken, ManagedChannelBuilder<?> channel) {
+        this(serviceToken, channel, 0);
+    }
+
+    public DefaultBlockingAnalyticsClient(String serviceToken, ManagedChannelBuilder<?> channel, double deadband) {
         final String finalResult = new String(Base64.getDecoder().decode(serviceToken));
         final String[] split = finalResult.split(":", 2);
         if (split.length != 2) throw new IllegalStateException("Service token was not split as 'instanceUUID:token'");
 
         this.instanceUUID = split[0];
         this.rawToken = split[1];
+        this.reconstructor = new SnapshotReconstructor(deadband);
         this.channel = channel.build();
         this.stub = AnalyticsGrpc.newBlockingStub(this.channel)
                 .withCallCredentials(new ClientAuthorizationCredentials(rawToken));
@@ -116,15 +129,136 @@ public class DefaultBlockingAnalyticsClient implements AnalyticsClient {
         LOG.debug("Sending the `receiveStats` RPC call...");
 
         try {
-            final ReceiveStatsResponse resp =
-                    stub.retrieveStats(ReceiveStatsRequest.newBuilder().build());
-            return new RetrieveStatsResponseHandler(resp);
+            // The server might only send what has changed since the last snapshot, so it
+            // is applied onto that one.
+            final ReceiveStatsResponse base = reconstructor.base();
+            final ReceiveStatsResponse resp = stub.retrieveStats(reconstructor.requestFor(base));
+            return new RetrieveStatsResponseHandler(
+                    reconstructor.reconstruct(base, new DictionaryDecoder().decode(resp)));
+        } catch (Exception e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            return new RetrieveStatsResponseHandler(e);
+        }
+    }
+
+    /**
+     * Sends the given {@link ReceiveStatsRequest receive stats request} to the gRPC server as-is, to only
+     * collect some of the extensions.
+     *
+     * @param request The request to send
+     * @return {@link ResponseHandler<ReceiveStatsResponse> response handler} of the given request
+     */
+    @Override
+    public ResponseHandler<ReceiveStatsResponse> receiveStats(ReceiveStatsRequest request) {
+        LOG.debug("Sending the `receiveStats` RPC call...");
+
+        try {
+            return new RetrieveStatsResponseHandler(new DictionaryDecoder().decode(stub.retrieveStats(request)));
         } catch (Exception e) {
             LOG.error("RPC call threw an execution exception:", e);
             return new RetrieveStatsResponseHandler(e);
         }
     }
 
+    /**
+     * Sends the given {@link ReceiveStatsRequest receive stats request} to the <code>RetrieveStatsChunked</code>
+     * method, and stitches the chunks back together as they're received.
+     *
+     * @param request       The request to send
+     * @param maxChunkBytes How big a chunk can be, or <code>0</code> for the server's default
+     * @return {@link ResponseHandler<ReceiveStatsResponse> response handler} of the given request
+     */
+    @Override
+    public ResponseHandler<ReceiveStatsResponse> receiveStatsChunked(ReceiveStatsRequest request, int maxChunkBytes) {
+        LOG.debug("Sending the `retrieveStatsChunked` RPC call...");
+
+        // The call is cancelled with the context if we stop reading chunks before the last one
+        final Context.CancellableContext context = Context.current().withCancellation();
+        try {
+            return context.call(() -> {
+                final SnapshotAssembler assembler = new SnapshotAssembler();
+                final Iterator<StatsChunk> chunks = stub.retrieveStatsChunked(RetrieveStatsChunkedRequest.newBuilder()
+                        .setRequest(request)
+                        .setMaxChunkBytes(maxChunkBytes)
+                        .build());
+
+                while (chunks.hasNext()) assembler.accept(chunks.next());
+                return new RetrieveStatsResponseHandler(assembler.build());
+            });
+        } catch (Exception e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            return new RetrieveStatsResponseHandler(e);
+        } finally {
+            context.cancel(null);
+        }
+    }
+
+    /**
+     * Sends the {@link RetrieveHistoryRequest retrieve history request} to the gRPC server to collect
+     * every sample that was recorded since the given cursor.
+     *
+     * @param cursor The next cursor of the last response, or <code>0</code> for every sample
+     * @return {@link ResponseHandler<RetrieveHistoryResponse> response handler} of the given request
+     */
+    @Override
+    public ResponseHandler<RetrieveHistoryResponse> retrieveHistory(long cursor) {
+        LOG.debug("Sending the `retrieveHistory` RPC call...");
+
+        try {
+            final RetrieveHistoryResponse resp = stub.retrieveHistory(
+                    RetrieveHistoryRequest.newBuilder().setCursor(cursor).build());
+            return new RetrieveHistoryResponseHandler(resp);
+        } catch (Exception e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            return new RetrieveHistoryResponseHandler(e);
+        }
+    }
+
+    /**
+     * Sends the {@link DescribeRequest describe request} to the gRPC server to collect every extension that the
+     * server has registered, and the fields of each extension's data.
+     *
+     * @return {@link ResponseHandler<DescribeResponse> response handler} of the given request
+     */
+    @Override
+    public ResponseHandler<DescribeResponse> describe() {
+        LOG.debug("Sending the `describe` RPC call...");
+
+        try {
+            return new DescribeResponseHandler(stub.describe(DescribeRequest.newBuilder().build()));
+        } catch (Exception e) {
+            LOG.error("RPC call threw an execution exception:", e);
+            return new DescribeResponseHandler(e);
+        }
+    }
+
+    /**
+     * Subscribes to the <code>StreamStats</code> method, which pushes a snapshot every <code>intervalMillis</code>
+     * of the given request.
+     *
+     * @param request The request to send
+     * @return {@link Iterator} of every snapshot that the server sends
+     */
+    @Override
+    public Iterator<ReceiveStatsResponse> subscribeStats(StreamStatsRequest request) {
+        LOG.debug("Sending the `streamStats` RPC call...");
+
+        final DictionaryDecoder dictionary = new DictionaryDecoder();
+        final Iterator<ReceiveStatsResponse> snapshots = stub.streamStats(request);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return snapshots.hasNext();
+            }
+
+            @Override
+            public ReceiveStatsResponse next() {
+                return dictionary.decode(snapshots.next());
+            }
+        };
+    }
+
     /**
      * Closes this stream and releases any system resources associated
      * with it. If the stream is already closed then invoking this
@@ -0,0 +1,141 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+/**
+ * Reads the <code>flatData</code> of a snapshot, which a server sends instead of <code>data</code> when the request has
+ * <code>flatEncoding</code> set. Single values are read straight out of the received bytes, so a collector that only
+ * needs a few metrics never builds the {@link com.google.protobuf.Struct} of the whole snapshot.
+ *
+ * <pre>{@code
+ * final FlatSnapshot snapshot = FlatSnapshot.of(response);
+ * final FlatValue used = snapshot.get("memory.heap.used");
+ * }</pre>
+ */
+public class FlatSnapshot {
+    private static final byte[] MAGIC = {'A', 'N', 'F', '1'};
+
+    private final ByteBuffer buffer;
+    private final FlatValue root;
+
+    private FlatSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.root = new FlatValue(buffer, buffer.getInt(MAGIC.length));
+    }
+
+    /**
+     * Returns if the given snapshot was sent with flat data.
+     */
+    public static boolean hasFlatData(ReceiveStatsResponse response) {
+        return !response.getFlatData().isEmpty();
+    }
+
+    /**
+     * Wraps the <code>flatData</code> of the given snapshot, without copying it.
+     *
+     * @param response The snapshot that the server has sent
+     * @throws IllegalArgumentException if the snapshot doesn't have flat data
+     */
+    public static FlatSnapshot of(ReceiveStatsResponse response) {
+        if (!hasFlatData(response)) throw new IllegalArgumentException("Snapshot wasn't sent with flat data");
+        return wrap(response.getFlatData().asReadOnlyByteBuffer());
+    }
+
+    /**
+     * Wraps the given flat buffer, from its position to its limit.
+     *
+     * @param buffer The flat buffer
+     * @throws IllegalArgumentException if the buffer doesn't start with the flat layout's magic
+     */
+    public static FlatSnapshot wrap(ByteBuffer buffer) {
+        final ByteBuffer flat = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (flat.remaining() < MAGIC.length + 4) throw new IllegalArgumentException("Buffer is too short to be flat data");
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (flat.get(i) != MAGIC[i]) throw new IllegalArgumentException("Buffer doesn't start with the flat magic");
+        }
+
+        return new FlatSnapshot(flat);
+    }
+
+    /**
+     * Returns the snapshot's data, which is a struct of every extension's data.
+     */
+    public FlatValue root() {
+        return root;
+    }
+
+    /**
+     * Returns the value at the given dotted path, like <code>threads.current</code>, or <code>null</code> if there is no
+     * such value. A number in the path is the index of a list's element, like <code>threads.threads.0.name</code>.
+     *
+     * @param path The dotted path of the value
+     */
+    public @Nullable FlatValue get(String path) {
+        if (path.isEmpty()) return root;
+
+        FlatValue value = root;
+        int start = 0;
+        while (value != null && start <= path.length()) {
+            int end = path.indexOf('.', start);
+            if (end < 0) end = path.length();
+
+            value = child(value, path.substring(start, end));
+            start = end + 1;
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the size of the flat buffer, in bytes.
+     */
+    public int size() {
+        return buffer.limit();
+    }
+
+    private static @Nullable FlatValue child(FlatValue value, String segment) {
+        return switch (value.kind()) {
+            case STRUCT_VALUE -> value.get(segment);
+            case LIST_VALUE -> {
+                final int index = parseIndex(segment);
+                yield index >= 0 && index < value.size() ? value.get(index) : null;
+            }
+
+            default -> null;
+        };
+    }
+
+    private static int parseIndex(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
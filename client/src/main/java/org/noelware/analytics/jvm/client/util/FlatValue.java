@@ -0,0 +1,245 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.util;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a single value in a {@link FlatSnapshot}, which is read straight out of the buffer whenever one of its
+ * methods is called. Nothing is parsed ahead of time, so reading a number out of a large snapshot only touches the
+ * structs on the way to it.
+ */
+public class FlatValue {
+    static final byte NULL = 0;
+    static final byte NUMBER = 1;
+    static final byte FALSE = 2;
+    static final byte TRUE = 3;
+    static final byte STRING = 4;
+    static final byte STRUCT = 5;
+    static final byte LIST = 6;
+
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    FlatValue(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the kind of this value, which uses the same names as {@link Value.KindCase}.
+     */
+    public Value.KindCase kind() {
+        return switch (tag()) {
+            case NULL -> Value.KindCase.NULL_VALUE;
+            case NUMBER -> Value.KindCase.NUMBER_VALUE;
+            case FALSE, TRUE -> Value.KindCase.BOOL_VALUE;
+            case STRING -> Value.KindCase.STRING_VALUE;
+            case STRUCT -> Value.KindCase.STRUCT_VALUE;
+            case LIST -> Value.KindCase.LIST_VALUE;
+            default -> throw new IllegalArgumentException("Unknown tag %d at %d".formatted(tag(), offset));
+        };
+    }
+
+    public boolean isNull() {
+        return tag() == NULL;
+    }
+
+    /**
+     * @throws IllegalStateException if this value isn't a number
+     */
+    public double asDouble() {
+        require(NUMBER, "a number");
+        return buffer.getDouble(offset + 1);
+    }
+
+    /**
+     * Returns this number as a <code>long</code>, every number is sent as a double so this is only exact up to 2^53.
+     *
+     * @throws IllegalStateException if this value isn't a number
+     */
+    public long asLong() {
+        return (long) asDouble();
+    }
+
+    /**
+     * @throws IllegalStateException if this value isn't a boolean
+     */
+    public boolean asBoolean() {
+        final byte tag = tag();
+        if (tag != TRUE && tag != FALSE) throw new IllegalStateException("Value at %d isn't a boolean".formatted(offset));
+
+        return tag == TRUE;
+    }
+
+    /**
+     * @throws IllegalStateException if this value isn't a string
+     */
+    public String asString() {
+        require(STRING, "a string");
+        return stringAt(offset);
+    }
+
+    /**
+     * Returns how many fields (or elements) this struct (or list) has.
+     *
+     * @throws IllegalStateException if this value isn't a struct or a list
+     */
+    public int size() {
+        final byte tag = tag();
+        if (tag != STRUCT && tag != LIST)
+            throw new IllegalStateException("Value at %d isn't a struct or a list".formatted(offset));
+
+        return buffer.getInt(offset + 1);
+    }
+
+    /**
+     * Returns the field of this struct with the given key, or <code>null</code> if it doesn't have one. Fields are sorted,
+     * so this is a binary search.
+     *
+     * @param key The key of the field
+     * @throws IllegalStateException if this value isn't a struct
+     */
+    public @Nullable FlatValue get(String key) {
+        require(STRUCT, "a struct");
+
+        final byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = buffer.getInt(offset + 1) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int compared = compareKey(fieldAt(middle), wanted);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return new FlatValue(buffer, buffer.getInt(fieldAt(middle) + 4));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the key of this struct's field at the given index, fields are sorted by the UTF-8 bytes of their key.
+     *
+     * @param index The index of the field
+     * @throws IllegalStateException if this value isn't a struct
+     */
+    public String keyAt(int index) {
+        require(STRUCT, "a struct");
+        return stringAt(buffer.getInt(fieldAt(checkIndex(index))));
+    }
+
+    /**
+     * Returns the value of this struct's field (or this list's element) at the given index.
+     *
+     * @param index The index of the field or element
+     * @throws IllegalStateException if this value isn't a struct or a list
+     */
+    public FlatValue get(int index) {
+        final byte tag = tag();
+        if (tag == STRUCT) return new FlatValue(buffer, buffer.getInt(fieldAt(checkIndex(index)) + 4));
+        if (tag == LIST) return new FlatValue(buffer, buffer.getInt(offset + 5 + checkIndex(index) * 4));
+
+        throw new IllegalStateException("Value at %d isn't a struct or a list".formatted(offset));
+    }
+
+    /**
+     * Reads this value (and everything in it) into a {@link Value}, which is what the client would've received without
+     * the flat encoding.
+     */
+    public Value toValue() {
+        return switch (tag()) {
+            case NUMBER -> Value.newBuilder().setNumberValue(asDouble()).build();
+            case FALSE, TRUE -> Value.newBuilder().setBoolValue(asBoolean()).build();
+            case STRING -> Value.newBuilder().setStringValue(asString()).build();
+            case STRUCT -> {
+                final Struct.Builder struct = Struct.newBuilder();
+                for (int i = 0; i < size(); i++) struct.putFields(keyAt(i), get(i).toValue());
+
+                yield Value.newBuilder().setStructValue(struct).build();
+            }
+
+            case LIST -> {
+                final ListValue.Builder list = ListValue.newBuilder();
+                for (int i = 0; i < size(); i++) list.addValues(get(i).toValue());
+
+                yield Value.newBuilder().setListValue(list).build();
+            }
+
+            default -> Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+        };
+    }
+
+    private byte tag() {
+        return buffer.get(offset);
+    }
+
+    private void require(byte tag, String what) {
+        if (tag() != tag) throw new IllegalStateException("Value at %d isn't %s".formatted(offset, what));
+    }
+
+    private int checkIndex(int index) {
+        final int size = size();
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index %d is out of bounds for %d".formatted(index, size));
+
+        return index;
+    }
+
+    // Returns where the key and value offsets of the field at the given index are
+    private int fieldAt(int index) {
+        return offset + 5 + index * 8;
+    }
+
+    private String stringAt(int at) {
+        if (buffer.get(at) != STRING) throw new IllegalStateException("Value at %d isn't a string".formatted(at));
+
+        final byte[] bytes = new byte[buffer.getInt(at + 1)];
+        buffer.get(at + 5, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compares the bytes of the key of the given field with the wanted key, without copying them
+    private int compareKey(int field, byte[] wanted) {
+        final int key = buffer.getInt(field);
+        final int length = buffer.getInt(key + 1);
+        final int common = Math.min(length, wanted.length);
+        for (int i = 0; i < common; i++) {
+            final int compared = Byte.compareUnsigned(buffer.get(key + 5 + i), wanted[i]);
+            if (compared != 0) return compared;
+        }
+
+        return Integer.compare(length, wanted.length);
+    }
+}
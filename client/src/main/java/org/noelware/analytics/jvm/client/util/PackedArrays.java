@@ -0,0 +1,155 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.util;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.io.IOException;
+import java.util.Base64;
+import org.noelware.analytics.protobufs.v2.PackedArray;
+
+/**
+ * Auxiliary class for decoding the primitive arrays that extensions have supplied, without going through
+ * a {@link Value} (or a boxed number) for every element.
+ *
+ * <p>In the <code>data</code> Struct, an array is sent as
+ * <code>{"@packed": "sint64" | "double", "length": n, "bytes": "..."}</code>, where <code>bytes</code> is the base64
+ * of the same bytes as a packed repeated <code>sint64</code> or <code>double</code> field. In the v2 schema, it is
+ * sent as a {@link PackedArray} in the response's <code>arrays</code>.
+ */
+public class PackedArrays {
+    private static final String PACKED_KEY = "@packed";
+    private static final String LENGTH_KEY = "length";
+    private static final String BYTES_KEY = "bytes";
+    private static final String SINT64 = "sint64";
+    private static final String DOUBLE = "double";
+
+    private PackedArrays() {}
+
+    /**
+     * Returns if the given value is a packed array.
+     */
+    public static boolean isPacked(Value value) {
+        if (value.getKindCase() != Value.KindCase.STRUCT_VALUE) return false;
+
+        final Value type = value.getStructValue().getFieldsOrDefault(PACKED_KEY, null);
+        return type != null && (SINT64.equals(type.getStringValue()) || DOUBLE.equals(type.getStringValue()));
+    }
+
+    /**
+     * Decodes a packed <code>int[]</code> or <code>long[]</code> array.
+     *
+     * @param value The packed array
+     * @throws IllegalArgumentException if the value isn't a packed integer array
+     */
+    public static long[] toLongArray(Value value) {
+        final Struct struct = requirePacked(value, SINT64);
+        final byte[] bytes = bytes(struct);
+        final long[] values = new long[length(struct, bytes.length)];
+        final CodedInputStream input = CodedInputStream.newInstance(bytes);
+
+        try {
+            for (int i = 0; i < values.length; i++) values[i] = input.readSInt64();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Packed array is malformed", e);
+        }
+
+        return values;
+    }
+
+    /**
+     * Decodes a packed array into doubles, integer arrays are converted.
+     *
+     * @param value The packed array
+     * @throws IllegalArgumentException if the value isn't a packed array
+     */
+    public static double[] toDoubleArray(Value value) {
+        final Struct struct = requirePacked(value, null);
+        final boolean integers = SINT64.equals(struct.getFieldsOrThrow(PACKED_KEY).getStringValue());
+        final byte[] bytes = bytes(struct);
+        final double[] values = new double[length(struct, integers ? bytes.length : bytes.length / 8)];
+        final CodedInputStream input = CodedInputStream.newInstance(bytes);
+
+        try {
+            for (int i = 0; i < values.length; i++) values[i] = integers ? input.readSInt64() : input.readDouble();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Packed array is malformed", e);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the integers of a {@link PackedArray} from the v2 schema.
+     */
+    public static long[] toLongArray(PackedArray array) {
+        final long[] values = new long[array.getIntegersCount()];
+        for (int i = 0; i < values.length; i++) values[i] = array.getIntegers(i);
+
+        return values;
+    }
+
+    /**
+     * Returns the numbers of a {@link PackedArray} from the v2 schema, integer arrays are converted.
+     */
+    public static double[] toDoubleArray(PackedArray array) {
+        if (array.getIntegersCount() > 0) {
+            final double[] values = new double[array.getIntegersCount()];
+            for (int i = 0; i < values.length; i++) values[i] = array.getIntegers(i);
+
+            return values;
+        }
+
+        final double[] values = new double[array.getNumbersCount()];
+        for (int i = 0; i < values.length; i++) values[i] = array.getNumbers(i);
+
+        return values;
+    }
+
+    private static Struct requirePacked(Value value, String type) {
+        if (!isPacked(value)) throw new IllegalArgumentException("Value is not a packed array");
+
+        final Struct struct = value.getStructValue();
+        if (type != null && !type.equals(struct.getFieldsOrThrow(PACKED_KEY).getStringValue()))
+            throw new IllegalArgumentException("Packed array is not of type [%s]".formatted(type));
+
+        return struct;
+    }
+
+    // Every element takes up at least a byte, so a length that is larger than what the bytes
+    // can hold is rejected before the array is allocated.
+    private static int length(Struct struct, int maxLength) {
+        final double length = struct.getFieldsOrDefault(LENGTH_KEY, Value.getDefaultInstance()).getNumberValue();
+        if (length < 0 || length > maxLength || length != Math.rint(length))
+            throw new IllegalArgumentException("Packed array has an invalid length of %s".formatted(length));
+
+        return (int) length;
+    }
+
+    private static byte[] bytes(Struct struct) {
+        return Base64.getDecoder()
+                .decode(struct.getFieldsOrDefault(BYTES_KEY, Value.getDefaultInstance()).getStringValue());
+    }
+}
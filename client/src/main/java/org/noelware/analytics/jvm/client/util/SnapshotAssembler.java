@@ -0,0 +1,156 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.client.util;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.StatsChunk;
+
+/**
+ * Stitches the chunks of the <code>RetrieveStatsChunked</code> method back into the snapshot that they were split
+ * from. Chunks have to be given in the order that the server sent them, and can be given as they arrive, so only
+ * the snapshot that is being put together is kept in memory rather than every chunk.
+ *
+ * <pre>{@code
+ * final SnapshotAssembler assembler = new SnapshotAssembler();
+ * while (chunks.hasNext()) assembler.accept(chunks.next());
+ *
+ * final ReceiveStatsResponse snapshot = assembler.build();
+ * }</pre>
+ */
+public class SnapshotAssembler {
+    // Every value is either a Value that was received as-is, a Map of a struct that has
+    // fields added to it by later chunks, or a List of a list that is sent in slices.
+    private final Map<String, Object> data = new LinkedHashMap<>();
+    private ReceiveStatsResponse header;
+
+    /**
+     * Adds the given chunk to the snapshot.
+     *
+     * @throws IllegalStateException if the chunk doesn't fit into what was received so far
+     */
+    public void accept(StatsChunk chunk) {
+        if (chunk.hasHeader()) {
+            if (header != null) throw new IllegalStateException("Received a second header chunk");
+
+            header = chunk.getHeader();
+            return;
+        }
+
+        if (header == null) throw new IllegalStateException("Received a chunk before the header chunk");
+        if (chunk.getPathCount() == 0) throw new IllegalStateException("Received a chunk without a path");
+
+        Map<String, Object> parent = data;
+        for (int i = 0; i < chunk.getPathCount() - 1; i++) {
+            parent = structAt(parent, chunk.getPath(i), chunk);
+        }
+
+        final String key = chunk.getPath(chunk.getPathCount() - 1);
+        if (!chunk.getAppend()) {
+            parent.put(key, chunk.getValue());
+            return;
+        }
+
+        if (chunk.getValue().hasStructValue()) {
+            structAt(parent, key, chunk).putAll(chunk.getValue().getStructValue().getFieldsMap());
+        } else {
+            listAt(parent, key, chunk).addAll(chunk.getValue().getListValue().getValuesList());
+        }
+    }
+
+    /**
+     * Returns if the header chunk was received yet.
+     */
+    public boolean hasHeader() {
+        return header != null;
+    }
+
+    /**
+     * Returns the snapshot that was put together from every chunk so far.
+     *
+     * @throws IllegalStateException if the header chunk wasn't received
+     */
+    public ReceiveStatsResponse build() {
+        if (header == null) throw new IllegalStateException("Header chunk wasn't received");
+        return header.toBuilder().setData(toStruct(data)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> structAt(Map<String, Object> parent, String key, StatsChunk chunk) {
+        final Object existing = parent.get(key);
+        if (existing instanceof Map<?, ?> map) return (Map<String, Object>) map;
+        if (existing instanceof Value value && value.hasStructValue()) {
+            final Map<String, Object> fields = new LinkedHashMap<>(value.getStructValue().getFieldsMap());
+            parent.put(key, fields);
+
+            return fields;
+        }
+
+        throw new IllegalStateException("Path %s of chunk doesn't point into a struct".formatted(chunk.getPathList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Value> listAt(Map<String, Object> parent, String key, StatsChunk chunk) {
+        final Object existing = parent.get(key);
+        if (existing instanceof List<?> list) return (List<Value>) list;
+        if (existing != null)
+            throw new IllegalStateException("Path %s of chunk doesn't point to a list".formatted(chunk.getPathList()));
+
+        final List<Value> values = new ArrayList<>();
+        parent.put(key, values);
+
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Struct toStruct(Map<String, Object> fields) {
+        final Struct.Builder struct = Struct.newBuilder();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            final Object value = field.getValue();
+            if (value instanceof Value v) {
+                struct.putFields(field.getKey(), v);
+            } else if (value instanceof Map<?, ?> map) {
+                struct.putFields(
+                        field.getKey(),
+                        Value.newBuilder()
+                                .setStructValue(toStruct((Map<String, Object>) map))
+                                .build());
+            } else {
+                struct.putFields(
+                        field.getKey(),
+                        Value.newBuilder()
+                                .setListValue(ListValue.newBuilder().addAllValues((List<Value>) value))
+                                .build());
+            }
+        }
+
+        return struct.build();
+    }
+}
@@ -27,7 +27,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import io.grpc.ManagedChannelBuilder;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Iterator;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -38,6 +40,9 @@ import org.noelware.analytics.jvm.server.AnalyticsServer;
 import org.noelware.analytics.jvm.server.AnalyticsServerBuilder;
 import org.noelware.analytics.protobufs.v1.BuildFlavour;
 import org.noelware.analytics.protobufs.v1.ConnectionAckResponse;
+import org.noelware.analytics.protobufs.v1.DescribeResponse;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
 
 public class AnalyticsClientTests {
     private static final Instant NOW = Instant.now();
@@ -56,6 +61,7 @@ public class AnalyticsClientTests {
                     metadata.setVersion("v0.0.0-devel.0");
                     metadata.setVendor("Noelware");
                 })
+                .withCompression("gzip", 256)
                 .build();
 
         serverThread = new Thread(() -> {
@@ -90,4 +96,71 @@ public class AnalyticsClientTests {
             assertEquals("0e2a7451-2b50-46c3-8481-8c7bd26de7cc", r.getInstanceUUID());
         }
     }
+
+    @Test
+    public void test_subscribeStats() throws IOException {
+        try (final AnalyticsClient client = AnalyticsClientBuilder.create("localhost", 10234)
+                .withServiceToken("MGUyYTc0NTEtMmI1MC00NmMzLTg0ODEtOGM3YmQyNmRlN2NjOmJsYWhibGFoYmxhaA==")
+                .withManagedChannel(ManagedChannelBuilder::usePlaintext)
+                .build()) {
+            final Iterator<ReceiveStatsResponse> snapshots = client.subscribeStats(Duration.ofSeconds(1));
+            for (int i = 0; i < 2; i++) {
+                assertTrue(snapshots.hasNext());
+                assertEquals("analytics-server", snapshots.next().getProduct());
+            }
+        }
+    }
+
+    @Test
+    public void test_describe() throws Throwable {
+        try (final AnalyticsClient client = AnalyticsClientBuilder.create("localhost", 10234)
+                .withServiceToken("MGUyYTc0NTEtMmI1MC00NmMzLTg0ODEtOGM3YmQyNmRlN2NjOmJsYWhibGFoYmxhaA==")
+                .withManagedChannel(ManagedChannelBuilder::usePlaintext)
+                .build()) {
+            final DescribeResponse resp = client.describe().get();
+            assertEquals(2, resp.getLatestSchemaVersion());
+            assertEquals(server.extensions().extensions().size(), resp.getExtensionsCount());
+        }
+    }
+
+    @Test
+    public void test_receiveStatsChunked() throws IOException {
+        try (final AnalyticsClient client = AnalyticsClientBuilder.create("localhost", 10234)
+                .withServiceToken("MGUyYTc0NTEtMmI1MC00NmMzLTg0ODEtOGM3YmQyNmRlN2NjOmJsYWhibGFoYmxhaA==")
+                .withManagedChannel(ManagedChannelBuilder::usePlaintext)
+                .build()) {
+            final ResponseHandler<ReceiveStatsResponse> resp =
+                    client.receiveStatsChunked(ReceiveStatsRequest.getDefaultInstance(), 0);
+
+            assertTrue(resp.isSuccessful());
+            assertEquals("analytics-server", resp.getOrNull().getProduct());
+            assertEquals(
+                    server.extensions().extensions().size(),
+                    resp.getOrNull().getData().getFieldsCount());
+        }
+    }
+
+    @Test
+    public void test_compression() throws IOException {
+        try (final AnalyticsClient client = AnalyticsClientBuilder.create("localhost", 10234)
+                .withServiceToken("MGUyYTc0NTEtMmI1MC00NmMzLTg0ODEtOGM3YmQyNmRlN2NjOmJsYWhibGFoYmxhaA==")
+                .withManagedChannel(ManagedChannelBuilder::usePlaintext)
+                .withCompression("deflate")
+                .build()) {
+            final long compressed = server.metrics().compressedMessages();
+            final long input = server.metrics().compressionInputBytes();
+            final long output = server.metrics().compressionOutputBytes();
+
+            // The ACK is smaller than the threshold, so it shouldn't be compressed.
+            assertTrue(client.connectAck().isSuccessful());
+            assertEquals(compressed, server.metrics().compressedMessages());
+
+            final ResponseHandler<ReceiveStatsResponse> resp = client.receiveStats();
+            assertTrue(resp.isSuccessful());
+            assertEquals("analytics-server", resp.getOrNull().getProduct());
+            assertEquals(compressed + 1, server.metrics().compressedMessages());
+            assertTrue(server.metrics().compressionOutputBytes() - output
+                    < server.metrics().compressionInputBytes() - input);
+        }
+    }
 }
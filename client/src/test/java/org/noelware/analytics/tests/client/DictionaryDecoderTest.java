@@ -0,0 +1,75 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.client.internal.DictionaryDecoder;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.internal.dictionary.DictionaryEncoder;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class DictionaryDecoderTest {
+    @Test
+    public void test_decodesWhatTheServerEncoded() {
+        final DictionaryEncoder encoder = new DictionaryEncoder();
+        final DictionaryDecoder decoder = new DictionaryDecoder();
+        final ReceiveStatsResponse snapshot =
+                snapshotOf(new JvmThreadsExtension().supply().toGrpcValue().getStructValue());
+
+        final ReceiveStatsResponse first = encoder.encode(snapshot);
+        assertFalse(first.hasData());
+        assertTrue(first.getDictionary().getStringsCount() > 0);
+        assertEquals(snapshot, decoder.decode(first));
+
+        // Every string was already sent with the first snapshot
+        final ReceiveStatsResponse second = encoder.encode(snapshot);
+        assertEquals(first.getDictionary().getStringsCount(), second.getDictionary().getOffset());
+        assertEquals(0, second.getDictionary().getStringsCount());
+        assertEquals(snapshot, decoder.decode(second));
+        assertTrue(second.getSerializedSize() < snapshot.getSerializedSize());
+    }
+
+    @Test
+    public void test_rejectsSnapshotsFromAnotherDictionary() {
+        final DictionaryEncoder encoder = new DictionaryEncoder();
+        final ReceiveStatsResponse snapshot = snapshotOf(Struct.newBuilder()
+                .putFields("owo", Value.newBuilder().setStringValue("uwu").build())
+                .build());
+
+        encoder.encode(snapshot);
+        assertThrows(IllegalStateException.class, () -> new DictionaryDecoder().decode(encoder.encode(snapshot)));
+    }
+
+    private static ReceiveStatsResponse snapshotOf(Struct threads) {
+        return ReceiveStatsResponse.newBuilder()
+                .setProduct("analytics-server")
+                .setData(Struct.newBuilder()
+                        .putFields("threads", Value.newBuilder().setStructValue(threads).build()))
+                .build();
+    }
+}
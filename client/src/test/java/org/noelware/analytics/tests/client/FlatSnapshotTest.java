@@ -0,0 +1,80 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.client.util.FlatSnapshot;
+import org.noelware.analytics.jvm.client.util.FlatValue;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.serialization.FlatSnapshotWriter;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class FlatSnapshotTest {
+    @Test
+    public void test_readsSingleValues() {
+        final Struct data = GrpcValueUtil.toValue(Map.of(
+                        "memory", Map.of("heap", Map.of("used", 1024, "max", -1)),
+                        "names", List.of("main", "🐻‍❄️", "main"),
+                        "ok", true,
+                        "nothing", Optional.empty()))
+                .getStructValue();
+
+        final ReceiveStatsResponse response = FlatSnapshotWriter.encode(
+                ReceiveStatsResponse.newBuilder().setData(data).build());
+
+        assertFalse(response.hasData());
+
+        final FlatSnapshot snapshot = FlatSnapshot.of(response);
+        assertEquals(1024, snapshot.get("memory.heap.used").asLong());
+        assertEquals(-1, snapshot.get("memory.heap.max").asDouble());
+        assertEquals("🐻‍❄️", snapshot.get("names.1").asString());
+        assertEquals(3, snapshot.get("names").size());
+        assertTrue(snapshot.get("ok").asBoolean());
+        assertTrue(snapshot.get("nothing").isNull());
+        assertNull(snapshot.get("memory.stack"));
+        assertNull(snapshot.get("names.3"));
+        assertThrows(IllegalStateException.class, () -> snapshot.get("ok").asString());
+    }
+
+    @Test
+    public void test_toValueMatchesTheStruct() {
+        final Value threads = new JvmThreadsExtension().supply().toGrpcValue();
+        final Struct data = Struct.newBuilder().putFields("threads", threads).build();
+
+        final FlatValue root = FlatSnapshot.of(FlatSnapshotWriter.encode(
+                        ReceiveStatsResponse.newBuilder().setData(data).build()))
+                .root();
+
+        // Fields are sorted in the flat buffer, which a Struct doesn't care about
+        assertEquals(Value.newBuilder().setStructValue(data).build(), root.toValue());
+    }
+}
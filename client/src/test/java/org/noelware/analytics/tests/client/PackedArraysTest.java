@@ -0,0 +1,75 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Value;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.client.util.PackedArrays;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+
+public class PackedArraysTest {
+    @Test
+    public void test_decodesWhatTheServerPacked() {
+        final long[] longs = {0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, 300};
+        final Value packedLongs = GrpcValueUtil.toValue(longs);
+
+        assertTrue(PackedArrays.isPacked(packedLongs));
+        assertArrayEquals(longs, PackedArrays.toLongArray(packedLongs));
+        assertArrayEquals(new double[] {1, -2}, PackedArrays.toDoubleArray(GrpcValueUtil.toValue(new int[] {1, -2})));
+
+        final double[] doubles = {0.25, -1e300, Double.POSITIVE_INFINITY};
+        final Value packedDoubles = GrpcValueUtil.toValue(doubles);
+        assertArrayEquals(doubles, PackedArrays.toDoubleArray(packedDoubles));
+        assertThrows(IllegalArgumentException.class, () -> PackedArrays.toLongArray(packedDoubles));
+
+        assertFalse(PackedArrays.isPacked(GrpcValueUtil.toValue("owo")));
+        assertArrayEquals(new long[0], PackedArrays.toLongArray(GrpcValueUtil.toValue(new long[0])));
+    }
+
+    @Test
+    public void test_decodesTypedArrays() {
+        assertArrayEquals(
+                new long[] {7, -7},
+                PackedArrays.toLongArray(
+                        org.noelware.analytics.jvm.server.util.PackedArrays.toProto(new long[] {7, -7})));
+
+        assertArrayEquals(
+                new double[] {1.5},
+                PackedArrays.toDoubleArray(
+                        org.noelware.analytics.jvm.server.util.PackedArrays.toProto(new double[] {1.5})));
+    }
+
+    @Test
+    public void test_rejectsALengthTheBytesCantHold() {
+        final Value packed = GrpcValueUtil.toValue(new long[] {1, 2});
+        final Value tampered = Value.newBuilder()
+                .setStructValue(packed.getStructValue().toBuilder()
+                        .putFields("length", Value.newBuilder().setNumberValue(1e9).build()))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> PackedArrays.toLongArray(tampered));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.client.util.SnapshotAssembler;
+import org.noelware.analytics.jvm.server.internal.streaming.SnapshotChunker;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.StatsChunk;
+
+public class SnapshotAssemblerTest {
+    @Test
+    public void test_reassemblesChunkedSnapshot() {
+        final List<Map<String, Object>> threads = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) threads.add(Map.of("id", i, "name", "worker-" + i, "stack", "x".repeat(150)));
+
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) properties.put("property." + i, "y".repeat(100));
+
+        final Struct data = GrpcValueUtil.toValue(Map.of(
+                        "threads", Map.of("count", threads.size(), "threads", threads),
+                        "properties", properties,
+                        "version", Map.of("name", "17.0.6"),
+                        "empty", List.of()))
+                .getStructValue();
+
+        final ReceiveStatsResponse snapshot = ReceiveStatsResponse.newBuilder()
+                .setProduct("analytics-server")
+                .setData(data)
+                .build();
+
+        assertTrue(snapshot.getSerializedSize() > 4 * SnapshotChunker.MIN_CHUNK_BYTES);
+
+        // Anything under the minimum is raised to it
+        final SnapshotChunker chunker = new SnapshotChunker(snapshot, 1);
+        final SnapshotAssembler assembler = new SnapshotAssembler();
+        int chunks = 0;
+
+        while (chunker.hasNext()) {
+            final StatsChunk chunk = chunker.next();
+            assertEquals(chunks == 0, chunk.hasHeader());
+            assertTrue(chunk.getSerializedSize() <= SnapshotChunker.MIN_CHUNK_BYTES);
+
+            assembler.accept(chunk);
+            chunks++;
+        }
+
+        assertTrue(chunks > 5);
+
+        final ReceiveStatsResponse assembled = assembler.build();
+        assertEquals("analytics-server", assembled.getProduct());
+        assertEquals(data, assembled.getData());
+    }
+
+    @Test
+    public void test_rejectsChunksThatDontFit() {
+        final SnapshotAssembler assembler = new SnapshotAssembler();
+        final StatsChunk chunk = StatsChunk.newBuilder()
+                .addPath("jvm")
+                .addPath("threads")
+                .setValue(GrpcValueUtil.toValue(1))
+                .build();
+
+        assertThrows(IllegalStateException.class, () -> assembler.accept(chunk));
+        assertThrows(IllegalStateException.class, assembler::build);
+
+        assembler.accept(StatsChunk.newBuilder()
+                .setHeader(ReceiveStatsResponse.getDefaultInstance())
+                .build());
+
+        assembler.accept(StatsChunk.newBuilder()
+                .addPath("jvm")
+                .setValue(Value.newBuilder().setStringValue("owo"))
+                .build());
+
+        assertThrows(IllegalStateException.class, () -> assembler.accept(chunk));
+    }
+}
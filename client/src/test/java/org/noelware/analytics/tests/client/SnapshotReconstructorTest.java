@@ -0,0 +1,111 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.client.internal.SnapshotReconstructor;
+import org.noelware.analytics.jvm.server.internal.delta.DeltaEncoder;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class SnapshotReconstructorTest {
+    @Test
+    public void test_reconstructsDeltasAndNotModified() {
+        final DeltaEncoder encoder = new DeltaEncoder(4);
+        final SnapshotReconstructor reconstructor = new SnapshotReconstructor(0);
+
+        final ReceiveStatsResponse first = snapshot(data(100, "a", true));
+        final ReceiveStatsResponse second = snapshot(data(150, "a", false));
+
+        assertEquals(first.getData(), receive(encoder, reconstructor, first).getData());
+
+        final ReceiveStatsResponse base = reconstructor.base();
+        final ReceiveStatsResponse delta = encoder.encode(reconstructor.requestFor(base), second);
+        assertTrue(delta.hasBaseVersion());
+        assertEquals(1, delta.getDelta().getChangedCount());
+        assertEquals(1, delta.getDelta().getRemovedCount());
+        assertEquals(second.getData(), reconstructor.reconstruct(base, delta).getData());
+
+        final ReceiveStatsResponse again = encoder.encode(reconstructor.requestFor(reconstructor.base()), second);
+        assertTrue(again.getNotModified());
+        assertEquals(second.getData(), receive(encoder, reconstructor, second).getData());
+    }
+
+    @Test
+    public void test_deadbandKeepsTheOldValue() {
+        final DeltaEncoder encoder = new DeltaEncoder(4);
+        final SnapshotReconstructor reconstructor = new SnapshotReconstructor(0.1);
+
+        receive(encoder, reconstructor, snapshot(data(100, "a", true)));
+
+        final ReceiveStatsResponse base = reconstructor.base();
+        final ReceiveStatsResponse response =
+                encoder.encode(reconstructor.requestFor(base), snapshot(data(105, "a", true)));
+
+        assertTrue(response.getNotModified());
+        assertEquals(100, reconstructor.reconstruct(base, response).getData()
+                .getFieldsOrThrow("memory").getStructValue()
+                .getFieldsOrThrow("used").getNumberValue());
+    }
+
+    @Test
+    public void test_requestsV1ByDefault() {
+        final ReceiveStatsRequest request = new SnapshotReconstructor(0).requestFor(null);
+
+        // The v2 schema and dictionary encoding are only sent when the request asks for them
+        assertEquals(0, request.getMaxSchemaVersion());
+        assertFalse(request.getDictionaryEncoding());
+    }
+
+    private static ReceiveStatsResponse receive(
+            DeltaEncoder encoder, SnapshotReconstructor reconstructor, ReceiveStatsResponse snapshot) {
+        final ReceiveStatsResponse base = reconstructor.base();
+        return reconstructor.reconstruct(base, encoder.encode(reconstructor.requestFor(base), snapshot));
+    }
+
+    private static ReceiveStatsResponse snapshot(Struct data) {
+        return ReceiveStatsResponse.newBuilder()
+                .setProduct("analytics-server")
+                .setData(data)
+                .build();
+    }
+
+    private static Struct data(double used, String version, boolean withThreads) {
+        final Struct memory = Struct.newBuilder()
+                .putFields("used", Value.newBuilder().setNumberValue(used).build())
+                .putFields("max", Value.newBuilder().setNumberValue(1024).build())
+                .build();
+
+        final Struct.Builder data = Struct.newBuilder()
+                .putFields("memory", Value.newBuilder().setStructValue(memory).build())
+                .putFields("version", Value.newBuilder().setStringValue(version).build());
+
+        if (withThreads) data.putFields("threads", Value.newBuilder().setNumberValue(12).build());
+        return data.build();
+    }
+}
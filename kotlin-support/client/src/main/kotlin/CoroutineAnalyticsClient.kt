@@ -23,10 +23,15 @@
 
 package org.noelware.analytics.jvm.client.coroutines
 
+import java.time.Duration
+import kotlinx.coroutines.flow.Flow
 import org.noelware.analytics.jvm.client.AnalyticsClient
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler
 import org.noelware.analytics.protobufs.v1.ConnectionAckResponse
+import org.noelware.analytics.protobufs.v1.DescribeResponse
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest
 import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse
 
 interface CoroutineAnalyticsClient {
     /**
@@ -48,4 +53,32 @@ interface CoroutineAnalyticsClient {
      * Refer to the [AnalyticsClient.receiveStats] method for more information.
      */
     suspend fun receiveStats(): ResponseHandler<ReceiveStatsResponse>
+
+    /**
+     * Refer to the [AnalyticsClient.receiveStats] method for more information.
+     */
+    suspend fun receiveStats(request: ReceiveStatsRequest): ResponseHandler<ReceiveStatsResponse>
+
+    /**
+     * Refer to the [AnalyticsClient.receiveStatsChunked] method for more information.
+     */
+    suspend fun receiveStatsChunked(request: ReceiveStatsRequest, maxChunkBytes: Int = 0): ResponseHandler<ReceiveStatsResponse>
+
+    /**
+     * Refer to the [AnalyticsClient.retrieveHistory] method for more information.
+     */
+    suspend fun retrieveHistory(cursor: Long): ResponseHandler<RetrieveHistoryResponse>
+
+    /**
+     * Refer to the [AnalyticsClient.describe] method for more information.
+     */
+    suspend fun describe(): ResponseHandler<DescribeResponse>
+
+    /**
+     * Refer to the [AnalyticsClient.subscribeStats] method for more information. The subscription is
+     * started once the flow is collected, and cancelled once the collector is. If the collector doesn't
+     * keep up, only the latest snapshot is kept. The flow completes once the server ends the subscription,
+     * and fails if the call does.
+     */
+    fun subscribeStats(interval: Duration): Flow<ReceiveStatsResponse>
 }
@@ -23,11 +23,19 @@
 
 package org.noelware.analytics.jvm.client.coroutines
 
+import java.time.Duration
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
 import kotlinx.coroutines.future.await
 import org.noelware.analytics.jvm.client.async.AsyncAnalyticsClient
 import org.noelware.analytics.jvm.client.handlers.ResponseHandler
 import org.noelware.analytics.protobufs.v1.ConnectionAckResponse
+import org.noelware.analytics.protobufs.v1.DescribeResponse
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest
 import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse
 
 internal class DefaultCoroutineAnalyticsClient(private val analyticsClient: AsyncAnalyticsClient): CoroutineAnalyticsClient {
     override val isClosed: Boolean
@@ -38,4 +46,13 @@ internal class DefaultCoroutineAnalyticsClient(private val analyticsClient: Asyn
 
     override suspend fun connectionAck(): ResponseHandler<ConnectionAckResponse> = analyticsClient.connectionAck().await()
     override suspend fun receiveStats(): ResponseHandler<ReceiveStatsResponse> = analyticsClient.receiveStats().await()
+    override suspend fun receiveStats(request: ReceiveStatsRequest): ResponseHandler<ReceiveStatsResponse> = analyticsClient.receiveStats(request).await()
+    override suspend fun receiveStatsChunked(request: ReceiveStatsRequest, maxChunkBytes: Int): ResponseHandler<ReceiveStatsResponse> = analyticsClient.receiveStatsChunked(request, maxChunkBytes).await()
+    override suspend fun retrieveHistory(cursor: Long): ResponseHandler<RetrieveHistoryResponse> = analyticsClient.retrieveHistory(cursor).await()
+    override suspend fun describe(): ResponseHandler<DescribeResponse> = analyticsClient.describe().await()
+
+    override fun subscribeStats(interval: Duration): Flow<ReceiveStatsResponse> = callbackFlow {
+        val subscription = analyticsClient.subscribeStats(interval, { trySend(it) }, { close(it) }, { close() })
+        awaitClose { subscription.cancel() }
+    }.conflate()
 }
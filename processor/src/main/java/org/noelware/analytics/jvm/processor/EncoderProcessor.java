@@ -0,0 +1,471 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the encoders of records that are annotated with <code>@GenerateEncoder</code>. Every component's
+ * encoding is picked here, from its declared type, so the generated code calls the right builder method (or
+ * <code>StatsWriter</code> method) directly instead of dispatching on the value's class at runtime, and no
+ * component can be left out by accident.
+ *
+ * <p>This module doesn't depend on the server (the server uses it to generate its own encoders), so the types
+ * it knows about are referenced by name.
+ */
+@SupportedAnnotationTypes(EncoderProcessor.GENERATE_ENCODER)
+public class EncoderProcessor extends AbstractProcessor {
+    static final String GENERATE_ENCODER = "org.noelware.analytics.jvm.server.serialization.GenerateEncoder";
+    private static final String FIELD_NAME = "org.noelware.analytics.jvm.server.serialization.FieldName";
+    private static final String SERIALIZABLE = "org.noelware.analytics.jvm.server.serialization.Serializable";
+    private static final String STREAMING_SERIALIZABLE =
+            "org.noelware.analytics.jvm.server.serialization.StreamingSerializable";
+
+    private static final String VALUE = "com.google.protobuf.Value";
+    private static final String STRUCT = "com.google.protobuf.Struct";
+    private static final String LIST_VALUE = "com.google.protobuf.ListValue";
+    private static final String NULL_VALUE =
+            VALUE + ".newBuilder().setNullValue(com.google.protobuf.NullValue.NULL_VALUE).build()";
+    private static final String GRPC_VALUE_UTIL = "org.noelware.analytics.jvm.server.util.GrpcValueUtil";
+    private static final String STATS_WRITER = "org.noelware.analytics.jvm.server.serialization.StatsWriter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.RECORD) {
+                    error(element, "@GenerateEncoder can only be used on records");
+                    continue;
+                }
+
+                final TypeElement record = (TypeElement) element;
+                if (!isAccessible(record)) {
+                    error(record, "@GenerateEncoder can't be used on a private record, or one in a private class");
+                    continue;
+                }
+
+                try {
+                    generate(record);
+                } catch (IOException e) {
+                    error(record, "Unable to write the encoder of %s: %s".formatted(record, e.getMessage()));
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the simple name of the encoder that is generated for the given record, which is its name in
+     * its package with every <code>.</code> replaced by <code>_</code>, followed by <code>Encoder</code>.
+     */
+    static String encoderName(TypeElement record) {
+        final StringBuilder name = new StringBuilder(record.getSimpleName());
+        Element enclosing = record.getEnclosingElement();
+        while (enclosing instanceof TypeElement type) {
+            name.insert(0, type.getSimpleName() + "_");
+            enclosing = type.getEnclosingElement();
+        }
+
+        return name.append("Encoder").toString();
+    }
+
+    private void generate(TypeElement record) throws IOException {
+        final String packageName = packageOf(record).getQualifiedName().toString();
+        final String encoderName = encoderName(record);
+        final String recordName = record.getQualifiedName().toString();
+        final List<? extends RecordComponentElement> components = record.getRecordComponents();
+
+        final Set<String> names = new HashSet<>();
+        final String[] fieldNames = new String[components.size()];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = fieldName(components.get(i));
+            if (!names.add(fieldNames[i])) {
+                error(components.get(i), "Field name [%s] is used more than once".formatted(fieldNames[i]));
+                return;
+            }
+        }
+
+        final Code toValue = new Code(2);
+        toValue.line("final %s.Builder struct = %s.newBuilder();", STRUCT, STRUCT);
+        for (int i = 0; i < fieldNames.length; i++) {
+            final RecordComponentElement component = components.get(i);
+            final String local = toValue.local();
+            toValue.line("final var %s = value.%s();", local, component.getAccessor().getSimpleName());
+            toValue.line(
+                    "struct.putFields(%s, %s);", literal(fieldNames[i]), valueOf(toValue, component.asType(), local));
+        }
+
+        toValue.line("return %s.newBuilder().setStructValue(struct).build();", VALUE);
+
+        final Code writeTo = new Code(2);
+        writeTo.line("writer.beginObject();");
+        for (int i = 0; i < fieldNames.length; i++) {
+            final RecordComponentElement component = components.get(i);
+            final String local = writeTo.local();
+            writeTo.line("final var %s = value.%s();", local, component.getAccessor().getSimpleName());
+            writeTo.line("writer.name(%s);", literal(fieldNames[i]));
+            write(writeTo, component.asType(), local);
+        }
+
+        writeTo.line("writer.endObject();");
+
+        final String source = """
+                package %1$s;
+
+                @javax.annotation.processing.Generated("%2$s")
+                public final class %3$s {
+                    private %3$s() {}
+
+                    /**
+                     * Returns the given {@link %4$s} as a {@link %5$s}.
+                     */
+                    public static %5$s toGrpcValue(%4$s value) {
+                %6$s    }
+
+                    /**
+                     * Writes the given {@link %4$s} with the given writer.
+                     */
+                    public static void writeTo(%4$s value, %7$s writer) {
+                %8$s    }
+                }
+                """
+                .formatted(
+                        packageName,
+                        EncoderProcessor.class.getName(),
+                        encoderName,
+                        recordName,
+                        VALUE,
+                        toValue,
+                        STATS_WRITER,
+                        writeTo);
+
+        final String qualifiedName = packageName.isEmpty() ? encoderName : packageName + "." + encoderName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, record).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    // Returns an expression of the Value that the given local is encoded as.
+    private String valueOf(Code code, TypeMirror type, String local) {
+        if (type.getKind().isPrimitive()) return primitiveValueOf(type.getKind(), local);
+
+        final String value = nonNullValueOf(code, type, local);
+        return "%s == null ? %s : %s".formatted(local, NULL_VALUE, value);
+    }
+
+    private String nonNullValueOf(Code code, TypeMirror type, String local) {
+        final TypeKind unboxed = unboxedKind(type);
+        if (unboxed != null) return primitiveValueOf(unboxed, local);
+        if (isType(type, "java.lang.String"))
+            return "%s.newBuilder().setStringValue(%s).build()".formatted(VALUE, local);
+
+        if (isEnum(type)) return "%s.newBuilder().setStringValue(%s.name()).build()".formatted(VALUE, local);
+        if (hasEncoder(type)) return "%s.toGrpcValue(%s)".formatted(encoderOf(type), local);
+        if (isSubtype(type, SERIALIZABLE)) return "%s.toGrpcValue()".formatted(local);
+        if (isSubtype(type, "java.util.Collection")) {
+            // The list is built before the field is put, so it is a statement of its own
+            final String list = code.local();
+            final String element = code.local();
+            code.line("final %s.Builder %s = %s.newBuilder();", LIST_VALUE, list, LIST_VALUE);
+            code.line("if (%s != null) {", local);
+            code.indent();
+            code.line("for (final var %s : %s) {", element, local);
+            code.indent();
+            code.line("%s.addValues(%s);", list, valueOf(code, elementType(type), element));
+            code.outdent();
+            code.line("}");
+            code.outdent();
+            code.line("}");
+
+            return "%s.newBuilder().setListValue(%s).build()".formatted(VALUE, list);
+        }
+
+        return "%s.toValue(%s)".formatted(GRPC_VALUE_UTIL, local);
+    }
+
+    private static String primitiveValueOf(TypeKind kind, String local) {
+        return switch (kind) {
+            case BOOLEAN -> "%s.newBuilder().setBoolValue(%s).build()".formatted(VALUE, local);
+            case CHAR -> "%s.newBuilder().setStringValue(String.valueOf(%s)).build()".formatted(VALUE, local);
+            default -> "%s.newBuilder().setNumberValue(%s).build()".formatted(VALUE, local);
+        };
+    }
+
+    // Writes statements that write the given local with the writer.
+    private void write(Code code, TypeMirror type, String local) {
+        if (type.getKind().isPrimitive()) {
+            code.line("writer.value(%s);", primitiveWriteArgument(type.getKind(), local));
+            return;
+        }
+
+        code.line("if (%s == null) {", local);
+        code.indent();
+        code.line("writer.nullValue();");
+        code.outdent();
+        code.line("} else {");
+        code.indent();
+
+        final TypeKind unboxed = unboxedKind(type);
+        if (unboxed != null) {
+            code.line("writer.value(%s);", primitiveWriteArgument(unboxed, local));
+        } else if (isType(type, "java.lang.String")) {
+            code.line("writer.value(%s);", local);
+        } else if (isEnum(type)) {
+            code.line("writer.value(%s.name());", local);
+        } else if (hasEncoder(type)) {
+            code.line("%s.writeTo(%s, writer);", encoderOf(type), local);
+        } else if (isSubtype(type, STREAMING_SERIALIZABLE)) {
+            code.line("%s.writeTo(writer);", local);
+        } else if (isSubtype(type, SERIALIZABLE)) {
+            code.line("writer.value(%s.toGrpcValue());", local);
+        } else if (isSubtype(type, "java.util.Collection")) {
+            final String element = code.local();
+            code.line("writer.beginArray();");
+            code.line("for (final var %s : %s) {", element, local);
+            code.indent();
+            write(code, elementType(type), element);
+            code.outdent();
+            code.line("}");
+            code.line("writer.endArray();");
+        } else {
+            code.line("writer.value((Object) %s);", local);
+        }
+
+        code.outdent();
+        code.line("}");
+    }
+
+    // Every argument is cast, so a boxed value doesn't end up in StatsWriter#value(Object).
+    private static String primitiveWriteArgument(TypeKind kind, String local) {
+        return switch (kind) {
+            case BOOLEAN -> "(boolean) %s".formatted(local);
+            case CHAR -> "String.valueOf(%s)".formatted(local);
+            case FLOAT, DOUBLE -> "(double) %s".formatted(local);
+            default -> "(long) %s".formatted(local);
+        };
+    }
+
+    private String fieldName(RecordComponentElement component) {
+        for (AnnotationMirror mirror : component.getAnnotationMirrors()) {
+            if (!isType(mirror.getAnnotationType(), FIELD_NAME)) continue;
+
+            for (var entry : mirror.getElementValues().entrySet()) {
+                final ExecutableElement key = entry.getKey();
+                final AnnotationValue value = entry.getValue();
+                if (key.getSimpleName().contentEquals("value")) return value.getValue().toString();
+            }
+        }
+
+        return toSnakeCase(component.getSimpleName().toString());
+    }
+
+    private TypeKind unboxedKind(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type).getKind();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private TypeMirror elementType(TypeMirror type) {
+        // Only the element type of collections that have it as their only type argument (like List<E>
+        // or Set<E>) is known, anything else is written as an Object.
+        if (type instanceof DeclaredType declared && declared.getTypeArguments().size() == 1) {
+            final TypeMirror argument = declared.getTypeArguments().get(0);
+            if (argument instanceof WildcardType wildcard) {
+                if (wildcard.getExtendsBound() != null) return wildcard.getExtendsBound();
+            } else if (argument.getKind() == TypeKind.DECLARED) {
+                return argument;
+            }
+        }
+
+        return processingEnv.getElementUtils().getTypeElement("java.lang.Object").asType();
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        return type instanceof DeclaredType declared && declared.asElement().getKind() == ElementKind.ENUM;
+    }
+
+    private boolean hasEncoder(TypeMirror type) {
+        if (!(type instanceof DeclaredType declared)) return false;
+
+        final Element element = declared.asElement();
+        if (element.getKind() != ElementKind.RECORD) return false;
+
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (isType(mirror.getAnnotationType(), GENERATE_ENCODER)) return true;
+        }
+
+        return false;
+    }
+
+    private String encoderOf(TypeMirror type) {
+        final TypeElement record = (TypeElement) ((DeclaredType) type).asElement();
+        final String packageName = packageOf(record).getQualifiedName().toString();
+
+        return packageName.isEmpty() ? encoderName(record) : packageName + "." + encoderName(record);
+    }
+
+    private boolean isSubtype(TypeMirror type, String name) {
+        final TypeElement element = processingEnv.getElementUtils().getTypeElement(name);
+        if (element == null) return false;
+
+        return processingEnv
+                .getTypeUtils()
+                .isAssignable(
+                        processingEnv.getTypeUtils().erasure(type),
+                        processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    private static boolean isType(TypeMirror type, String name) {
+        return type instanceof DeclaredType declared
+                && ((TypeElement) declared.asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement current) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+
+            element = current.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (!(element instanceof PackageElement)) element = element.getEnclosingElement();
+        return (PackageElement) element;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    // Same as GrpcValueUtil#toSnakeCase, so a record is encoded under the same names whether its
+    // encoder was generated or not.
+    static String toSnakeCase(String name) {
+        final StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                final boolean afterLower = i > 0 && !Character.isUpperCase(name.charAt(i - 1));
+                final boolean endsAcronym = i > 0
+                        && Character.isUpperCase(name.charAt(i - 1))
+                        && i + 1 < name.length()
+                        && Character.isLowerCase(name.charAt(i + 1));
+
+                if ((afterLower && name.charAt(i - 1) != '_') || endsAcronym) builder.append('_');
+                builder.append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static String literal(String value) {
+        final StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) builder.append("\\u%04x".formatted((int) c));
+                    else builder.append(c);
+                }
+            }
+        }
+
+        return builder.append('"').toString();
+    }
+
+    // Body of a generated method, with unique names for its locals.
+    private static class Code {
+        private final StringBuilder builder = new StringBuilder();
+        private int indent;
+        private int locals = 0;
+
+        Code(int indent) {
+            this.indent = indent;
+        }
+
+        String local() {
+            return "v" + locals++;
+        }
+
+        void line(String format, Object... args) {
+            builder.append("    ".repeat(indent)).append(format.formatted(args)).append('\n');
+        }
+
+        void indent() {
+            indent++;
+        }
+
+        void outdent() {
+            indent--;
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+}
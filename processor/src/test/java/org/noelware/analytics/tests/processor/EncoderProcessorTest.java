@@ -0,0 +1,331 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.processor.EncoderProcessor;
+
+public class EncoderProcessorTest {
+    // This module doesn't depend on the server or on protobuf, so these stand in for the parts of them that
+    // the processor and the generated encoders use, and the encoders are compiled against them.
+    private static final Map<String, String> STUBS = Map.of(
+            "org.noelware.analytics.jvm.server.serialization.GenerateEncoder",
+            """
+            package org.noelware.analytics.jvm.server.serialization;
+
+            public @interface GenerateEncoder {}
+            """,
+            "org.noelware.analytics.jvm.server.serialization.FieldName",
+            """
+            package org.noelware.analytics.jvm.server.serialization;
+
+            public @interface FieldName {
+                String value();
+            }
+            """,
+            "org.noelware.analytics.jvm.server.serialization.StatsWriter",
+            """
+            package org.noelware.analytics.jvm.server.serialization;
+
+            public class StatsWriter {
+                public StatsWriter beginObject() { return this; }
+                public StatsWriter endObject() { return this; }
+                public StatsWriter beginArray() { return this; }
+                public StatsWriter endArray() { return this; }
+                public StatsWriter name(String name) { return this; }
+                public StatsWriter nullValue() { return this; }
+                public StatsWriter value(String value) { return this; }
+                public StatsWriter value(double value) { return this; }
+                public StatsWriter value(long value) { return this; }
+                public StatsWriter value(boolean value) { return this; }
+                public StatsWriter value(com.google.protobuf.Value value) { return this; }
+                public StatsWriter value(Object payload) { return this; }
+            }
+            """,
+            "org.noelware.analytics.jvm.server.util.GrpcValueUtil",
+            """
+            package org.noelware.analytics.jvm.server.util;
+
+            public class GrpcValueUtil {
+                public static com.google.protobuf.Value toValue(Object payload) { return null; }
+            }
+            """,
+            "com.google.protobuf.NullValue",
+            """
+            package com.google.protobuf;
+
+            public enum NullValue { NULL_VALUE }
+            """,
+            "com.google.protobuf.Value",
+            """
+            package com.google.protobuf;
+
+            public class Value {
+                public static Builder newBuilder() { return new Builder(); }
+
+                public static class Builder {
+                    public Builder setNullValue(NullValue value) { return this; }
+                    public Builder setNumberValue(double value) { return this; }
+                    public Builder setStringValue(String value) { return this; }
+                    public Builder setBoolValue(boolean value) { return this; }
+                    public Builder setStructValue(Struct.Builder value) { return this; }
+                    public Builder setListValue(ListValue.Builder value) { return this; }
+                    public Value build() { return new Value(); }
+                }
+            }
+            """,
+            "com.google.protobuf.Struct",
+            """
+            package com.google.protobuf;
+
+            public class Struct {
+                public static Builder newBuilder() { return new Builder(); }
+
+                public static class Builder {
+                    public Builder putFields(String key, Value value) { return this; }
+                }
+            }
+            """,
+            "com.google.protobuf.ListValue",
+            """
+            package com.google.protobuf;
+
+            public class ListValue {
+                public static Builder newBuilder() { return new Builder(); }
+
+                public static class Builder {
+                    public Builder addValues(Value value) { return this; }
+                }
+            }
+            """);
+
+    @Test
+    public void test_generatesEncoder() throws IOException {
+        final Result result = process(
+                "org.example.Stats",
+                """
+                package org.example;
+
+                import java.util.List;
+                import java.util.Map;
+                import org.noelware.analytics.jvm.server.serialization.FieldName;
+                import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+
+                @GenerateEncoder
+                public record Stats(
+                        String name,
+                        Integer count,
+                        long totalCalls,
+                        @FieldName("p99") double ninetyNinth,
+                        List<String> tags,
+                        Map<String, Long> labels) {}
+                """);
+
+        // Boxed and object components are checked for null and primitives aren't, lists are encoded element by
+        // element, and maps are left to GrpcValueUtil and StatsWriter
+        assertEquals(List.of(), result.errors());
+        assertEquals(golden("StatsEncoder.txt"), result.generated().get("org.example.StatsEncoder"));
+    }
+
+    @Test
+    public void test_encoderOfNestedPackagePrivateRecord() throws IOException {
+        final Result result = process(
+                "org.example.Outer",
+                """
+                package org.example;
+
+                import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+
+                class Outer {
+                    @GenerateEncoder
+                    record Inner(boolean enabled) {}
+                }
+                """);
+
+        // The encoder is in the same package, so it can still see the record
+        assertEquals(List.of(), result.errors());
+        assertTrue(result.generated().containsKey("org.example.Outer_InnerEncoder"));
+    }
+
+    @Test
+    public void test_rejectsPrivateRecords() throws IOException {
+        final Result result = process(
+                "org.example.Outer",
+                """
+                package org.example;
+
+                import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+
+                public class Outer {
+                    @GenerateEncoder
+                    private record Inner(int value) {}
+
+                    private static class Hidden {
+                        @GenerateEncoder
+                        record Visible(int value) {}
+                    }
+                }
+                """);
+
+        assertEquals(
+                List.of(
+                        "@GenerateEncoder can't be used on a private record, or one in a private class",
+                        "@GenerateEncoder can't be used on a private record, or one in a private class"),
+                result.errors());
+
+        assertEquals(Map.of(), result.generated());
+    }
+
+    @Test
+    public void test_rejectsDuplicateFieldNames() throws IOException {
+        final Result result = process(
+                "org.example.Duplicate",
+                """
+                package org.example;
+
+                import org.noelware.analytics.jvm.server.serialization.FieldName;
+                import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+
+                @GenerateEncoder
+                public record Duplicate(@FieldName("used_memory") long memory, long usedMemory) {}
+                """);
+
+        assertEquals(List.of("Field name [used_memory] is used more than once"), result.errors());
+        assertEquals(Map.of(), result.generated());
+    }
+
+    @Test
+    public void test_rejectsClasses() throws IOException {
+        final Result result = process(
+                "org.example.NotARecord",
+                """
+                package org.example;
+
+                import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+
+                @GenerateEncoder
+                public class NotARecord {}
+                """);
+
+        assertEquals(List.of("@GenerateEncoder can only be used on records"), result.errors());
+    }
+
+    // Compiles the given source with the processor, and returns the errors and what was generated.
+    private static Result process(String className, String source) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final Map<String, ByteArrayOutputStream> sourceOutputs = new HashMap<>();
+
+        final List<JavaFileObject> sources = new ArrayList<>();
+        for (Map.Entry<String, String> stub : STUBS.entrySet()) sources.add(source(stub.getKey(), stub.getValue()));
+        sources.add(source(className, source));
+
+        try (JavaFileManager fileManager = new ForwardingJavaFileManager<>(
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(
+                    Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                // Class files are thrown away, the encoders only have to compile
+                final Map<String, ByteArrayOutputStream> outputs =
+                        kind == JavaFileObject.Kind.SOURCE ? sourceOutputs : new HashMap<>();
+
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return outputs.computeIfAbsent(name, ignored -> new ByteArrayOutputStream());
+                    }
+
+                    // What was generated is parsed in the next round
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        return outputs.get(name).toString(StandardCharsets.UTF_8);
+                    }
+                };
+            }
+        }) {
+            final JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    null,
+                    null,
+                    sources);
+
+            task.setProcessors(List.of(new EncoderProcessor()));
+            task.call();
+        }
+
+        final List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) errors.add(diagnostic.getMessage(null));
+        }
+
+        final Map<String, String> generated = new HashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> output : sourceOutputs.entrySet())
+            generated.put(output.getKey(), output.getValue().toString(StandardCharsets.UTF_8));
+
+        return new Result(errors, generated);
+    }
+
+    private static JavaFileObject source(String className, String source) {
+        return new SimpleJavaFileObject(
+                URI.create("mem:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    private static String golden(String name) throws IOException {
+        try (InputStream stream = EncoderProcessorTest.class.getResourceAsStream("/golden/" + name)) {
+            return new String(Objects.requireNonNull(stream, name).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private record Result(List<String> errors, Map<String, String> generated) {}
+}
@@ -28,4 +28,7 @@ plugins {
 dependencies {
     implementation("io.grpc:grpc-netty-shaded:1.55.1")
     api(project(":protobufs"))
+
+    // Generates the encoders of the built-in extensions' records
+    annotationProcessor(project(":processor"))
 }
@@ -27,6 +27,7 @@ import io.grpc.Server;
 import java.io.Closeable;
 import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
 
 /**
@@ -70,6 +71,19 @@ public interface AnalyticsServer extends Closeable {
     @NotNull
     ServerMetadata metadata();
 
+    /**
+     * Returns the {@link ServerMetrics} that this server keeps about itself.
+     */
+    @NotNull
+    ServerMetrics metrics();
+
+    /**
+     * Returns the {@link SampleHistory} that the background sampler records, or <code>null</code>
+     * if it wasn't enabled.
+     */
+    @Nullable
+    SampleHistory history();
+
     /**
      * Starts the server.
      */
@@ -23,14 +23,25 @@
 
 package org.noelware.analytics.jvm.server;
 
+import io.grpc.Codec;
 import io.grpc.ServerBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import org.noelware.analytics.jvm.server.extensions.Extension;
 import org.noelware.analytics.jvm.server.extensions.internal.DefaultExtensionRegistry;
 import org.noelware.analytics.jvm.server.internal.DefaultAnalyticsServer;
+import org.noelware.analytics.jvm.server.internal.ServerOptions;
+import org.noelware.analytics.jvm.server.internal.collection.CircuitBreaker;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionCadence;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.collection.PredictiveCollector;
 import org.noelware.analytics.jvm.server.internal.metadata.DefaultServerMetadata;
+import org.noelware.analytics.jvm.server.internal.sampling.BackgroundSampler;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
 
 /**
  * Represents the builder class for creating the {@link AnalyticsServer}.
@@ -38,6 +49,7 @@ import org.noelware.analytics.jvm.server.internal.metadata.DefaultServerMetadata
 public class AnalyticsServerBuilder {
     private final DefaultExtensionRegistry extensionRegistry = new DefaultExtensionRegistry();
     private final ServerMetadata serverMetadata = new DefaultServerMetadata();
+    private final ServerOptions options = new ServerOptions();
     private final NettyServerBuilder serverBuilder;
     private String serviceToken;
 
@@ -88,6 +100,269 @@ public class AnalyticsServerBuilder {
         return this;
     }
 
+    /**
+     * Enables the snapshot cache, so the <code>RetrieveStats</code> method serves a cached snapshot instead
+     * of calling every extension on each request. When the snapshot is older than the <code>ttl</code>, the
+     * stale snapshot is served while a single background refresh collects a new one.
+     *
+     * @param ttl How long a collected snapshot is considered fresh
+     * @param maxStaleness How old a snapshot can be before it is no longer served, must be at least the <code>ttl</code>
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withSnapshotCache(Duration ttl, Duration maxStaleness) {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("TTL must be positive");
+        if (maxStaleness.compareTo(ttl) < 0)
+            throw new IllegalArgumentException("Max staleness can't be less than the TTL");
+
+        options.setSnapshotCache(ttl, maxStaleness);
+        return this;
+    }
+
+    /**
+     * Enables request coalescing, so <code>RetrieveStats</code> calls that arrive while a collection pass is
+     * already running will attach to that pass and receive the same response, rather than making every extension
+     * collect its data again. This works with or without {@link #withSnapshotCache(Duration, Duration) the snapshot cache}.
+     *
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withRequestCoalescing() {
+        options.setCoalesceRequests(true);
+        return this;
+    }
+
+    /**
+     * Sets how long the server waits for an extension to supply its data before it is reported as timed out,
+     * for extensions that don't declare their own {@link Extension#deadline() deadline}. Defaults to 5 seconds.
+     *
+     * @param deadline The default deadline of every extension
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withExtensionDeadline(Duration deadline) {
+        if (deadline.isNegative() || deadline.isZero())
+            throw new IllegalArgumentException("Extension deadline must be positive");
+
+        options.setExtensionDeadline(deadline);
+        return this;
+    }
+
+    /**
+     * Sets the executor that extensions are collected on in parallel. By default, the server uses virtual threads
+     * when running on Java 21+, or a cached pool of daemon threads otherwise. The server doesn't shut down an
+     * executor given here when it is closed.
+     *
+     * @param executor The executor to collect extensions on
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withCollectionExecutor(ExecutorService executor) {
+        options.setCollectionExecutor(executor);
+        return this;
+    }
+
+    /**
+     * Configures the circuit breaker that every extension has. An extension that throws or times out is always reported
+     * with a null value (and a <code>FAILED</code> or <code>TIMEOUT</code> status) instead of failing the whole
+     * <code>RetrieveStats</code> call. Once it fails <code>failureThreshold</code> times in a row, it is skipped for the
+     * <code>coolDown</code> and then given a single trial call.
+     *
+     * <p>By default, 3 failures in a row open the breaker, calls slower than 2 seconds count as failures, and the
+     * cool-down is 30 seconds.
+     *
+     * @param failureThreshold  How many failures (or slow calls) in a row open the breaker
+     * @param slowCallThreshold How long a call can take before it counts as a failure, or <code>null</code> to never count slow calls
+     * @param coolDown          How long an open breaker skips the extension
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withCircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration coolDown) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("Failure threshold must be at least 1");
+        if (coolDown.isNegative()) throw new IllegalArgumentException("Cool-down can't be negative");
+
+        options.setCircuitBreaker(new CircuitBreaker.Settings(failureThreshold, slowCallThreshold, coolDown));
+        return this;
+    }
+
+    /**
+     * Enables adaptive cadence, which keeps track of how long every extension takes to supply its data and stretches
+     * the {@link Extension#refreshInterval() refresh interval} of expensive ones, so no extension spends more than
+     * <code>maxDutyCycle</code> of the time being supplied. In between, snapshots reuse the data that the extension
+     * last supplied and report how old it is. Cheap extensions are still supplied on every snapshot.
+     *
+     * @param maxDutyCycle The share of time (between 0 and 1) an extension can spend being supplied, so <code>0.01</code>
+     *                     only supplies an extension that takes 20ms at most every 2 seconds
+     * @param maxInterval  The longest an interval is stretched to, so data is never older than this
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withAdaptiveCadence(double maxDutyCycle, Duration maxInterval) {
+        if (!(maxDutyCycle > 0 && maxDutyCycle <= 1))
+            throw new IllegalArgumentException("Max duty cycle must be between 0 (exclusive) and 1");
+
+        if (maxInterval.isNegative() || maxInterval.isZero())
+            throw new IllegalArgumentException("Max interval must be positive");
+
+        options.setAdaptiveCadence(new CollectionCadence.Settings(maxDutyCycle, maxInterval));
+        return this;
+    }
+
+    /**
+     * Enables predictive collection, which learns how often every client calls <code>RetrieveStats</code> and starts
+     * collecting a snapshot right before its next call is expected, so clients that poll on a schedule rarely wait for
+     * a collection pass. A call is only served a pre-collected snapshot if its collection started at most
+     * <code>maxAge</code> before the call, otherwise it is collected (or served from the snapshot cache) as usual.
+     *
+     * @param maxAge How long before a call the collection of a pre-collected snapshot can have started
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withPredictiveCollection(Duration maxAge) {
+        if (maxAge.isNegative() || maxAge.isZero()) throw new IllegalArgumentException("Max age must be positive");
+
+        options.setPredictiveCollection(new PredictiveCollector.Settings(maxAge));
+        return this;
+    }
+
+    /**
+     * Limits how much CPU time collecting snapshots can take from the rest of the JVM, measured with the CPU time of the
+     * threads that collect (or the time that has passed, if the JVM can't measure CPU time). Once collecting has taken
+     * more than the budget within the window, the server degrades until it is back within it: calls are served the last
+     * snapshot, extensions reuse data that is newer than the window, and the ones that have to be supplied are asked for
+     * their {@link Extension#supplyReduced() reduced} data. Snapshots report this with <code>overBudget</code>, and the
+     * server's {@link ServerMetrics metrics} do too.
+     *
+     * @param maxCpuShare How much of a single core (between 0 and 1) collecting can take, so <code>0.01</code> with a
+     *                    window of a minute is 600ms of CPU time per minute
+     * @param window      How long the CPU time is averaged over
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withOverheadBudget(double maxCpuShare, Duration window) {
+        if (!(maxCpuShare > 0 && maxCpuShare <= 1))
+            throw new IllegalArgumentException("Max CPU share must be between 0 (exclusive) and 1");
+
+        if (window.isNegative() || window.isZero()) throw new IllegalArgumentException("Window must be positive");
+
+        options.setOverheadBudget(new OverheadGovernor.Settings(maxCpuShare, window));
+        return this;
+    }
+
+    /**
+     * Registers the built-in self-metrics extension, named <code>analytics</code>, which reports what supplying every
+     * extension has cost over its last calls: the last value and the percentiles of how long {@link Extension#supply()}
+     * took, how much CPU time it took, how many bytes it allocated, and how big its data was once encoded. If another
+     * extension is already registered as <code>analytics</code>, that one is kept and a warning is logged instead.
+     *
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withSelfMetrics() {
+        options.setSelfMetrics(true);
+        return this;
+    }
+
+    /**
+     * Enables delta responses for the <code>RetrieveStats</code> method. A client that sends the version of the snapshot it
+     * already holds only receives the values that have changed since then, or a "not modified" response if nothing did.
+     * Clients of this library apply the delta on their own, so they still see a full snapshot.
+     *
+     * <p>The server remembers the last <code>maxVersions</code> snapshots that it has sent, a client holding an older one
+     * receives a full snapshot.
+     *
+     * @param maxVersions How many snapshot versions are remembered
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withDeltaResponses(int maxVersions) {
+        if (maxVersions < 1) throw new IllegalArgumentException("Max versions must be at least 1");
+
+        options.setDeltaVersions(maxVersions);
+        return this;
+    }
+
+    /**
+     * Enables the background sampler, which collects a snapshot every <code>interval</code> and keeps the last
+     * <code>capacity</code> values of every numeric value the extensions supply, so spikes that happen between two
+     * <code>RetrieveStats</code> calls can still be seen through {@link AnalyticsServer#history()}.
+     *
+     * <p>The history is allocated once, when the server is built, and takes <code>capacity * (maxSeries + 1) * 8</code>
+     * bytes. Any series past <code>maxSeries</code> is dropped, and a series without a value in any of the samples that
+     * are kept is evicted to make room.
+     *
+     * @param interval  How often a sample is collected
+     * @param capacity  How many samples every series keeps
+     * @param maxSeries How many series can be recorded
+     * @param offHeap   If the history should be kept in a direct buffer, outside the Java heap
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withBackgroundSampler(Duration interval, int capacity, int maxSeries, boolean offHeap) {
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("Sampling interval must be positive");
+
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        if (maxSeries < 1) throw new IllegalArgumentException("Max series must be at least 1");
+
+        options.setSampler(new BackgroundSampler.Settings(interval, capacity, maxSeries, offHeap));
+        return this;
+    }
+
+    /**
+     * Enables direct encoding, so the <code>data</code> of full snapshots is written straight to its wire bytes with a
+     * {@link StatsWriter} rather than being built up as {@link com.google.protobuf.Value values} first. Data that implements
+     * {@link StreamingSerializable} (like {@link org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension the
+     * threads extension}) writes itself without allocating anything per value. Clients receive the exact same bytes.
+     *
+     * <p>{@link #withDeltaResponses(int) Delta responses} need the snapshot's data as a {@link com.google.protobuf.Struct},
+     * so this has no effect when they are enabled.
+     *
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withDirectEncoding() {
+        options.setDirectEncoding(true);
+        return this;
+    }
+
+    /**
+     * Enables compression of every response that is at least <code>minimumSize</code> bytes, so small responses
+     * (like <code>ConnectionAck</code>) aren't made bigger by the codec's framing. The server knows <code>gzip</code>
+     * and <code>deflate</code>, and any codec that is registered with {@link #withCompressor(Codec)}.
+     *
+     * <p><code>deflate</code> is the same algorithm as gzip, only at its fastest level, so it takes about half of
+     * gzip's CPU time for output that is a few percent bigger (see <code>CompressionBenchmark</code>). A codec that is
+     * much cheaper than gzip, like zstd or LZ4, has to be registered with {@link #withCompressor(Codec)}.
+     *
+     * <p>A client can ask for a different codec on any call, and a client that doesn't support the codec
+     * receives uncompressed responses. How well compression is doing can be seen through {@link ServerMetrics}.
+     *
+     * @param codec       The codec to compress responses with, like <code>gzip</code>
+     * @param minimumSize How big (in bytes) a response has to be before it is compressed
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withCompression(String codec, int minimumSize) {
+        if (minimumSize < 0) throw new IllegalArgumentException("Minimum size can't be negative");
+
+        options.setCompression(codec);
+        options.setCompressionThreshold(minimumSize);
+        return this;
+    }
+
+    /**
+     * Sets the codec that the responses of a single RPC are compressed with, rather than the one given to
+     * {@link #withCompression(String, int)}. Use <code>identity</code> to never compress the RPC's responses.
+     *
+     * @param method The name of the RPC, like <code>RetrieveStats</code> or <code>StreamStats</code>
+     * @param codec  The codec to compress its responses with
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withCompression(String method, String codec) {
+        options.methodCompression().put(method, codec);
+        return this;
+    }
+
+    /**
+     * Registers a codec that can be used for compression (like zstd or LZ4 from another library), on
+     * top of <code>gzip</code> and <code>deflate</code>.
+     *
+     * @param codec The codec to register
+     * @return {@link AnalyticsServerBuilder} for chaining methods
+     */
+    public AnalyticsServerBuilder withCompressor(Codec codec) {
+        options.compressors().add(codec);
+        return this;
+    }
+
     /**
      * Modifies the gRPC server to your liking
      * @param serverBuilderConsumer The {@link Consumer} function to modify the {@link ServerBuilder server builder}.
@@ -103,6 +378,6 @@ public class AnalyticsServerBuilder {
      */
     public AnalyticsServer build() {
         if (serviceToken == null) throw new IllegalStateException("Missing service token to use when connecting!");
-        return new DefaultAnalyticsServer(extensionRegistry, serviceToken, serverMetadata, serverBuilder);
+        return new DefaultAnalyticsServer(extensionRegistry, serviceToken, serverMetadata, serverBuilder, options);
     }
 }
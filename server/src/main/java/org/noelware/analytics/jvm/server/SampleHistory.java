@@ -0,0 +1,77 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server;
+
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the history that the background sampler has recorded. Every numeric value that an extension
+ * supplies is kept as its own series, named by its path (like <code>memory.heap.used</code>), and every series
+ * keeps the same last {@link #capacity()} samples. A list is kept as the series of its length, rather than one
+ * series per element.
+ *
+ * <p>Samples are numbered by a sequence that increases by one every time the sampler runs, and a series that
+ * didn't have a value in a sample has {@link Double#NaN} instead.
+ */
+public interface SampleHistory {
+    /**
+     * Returns how many samples every series keeps.
+     */
+    int capacity();
+
+    /**
+     * Returns how many series can be recorded, any series after that is dropped.
+     */
+    int maxSeries();
+
+    /**
+     * Returns the sequence of the latest sample, or <code>0</code> if nothing was sampled yet.
+     */
+    long latestSequence();
+
+    /**
+     * Returns the names of the series that have a value in any of the samples that are still kept. A series
+     * that stopped appearing is evicted once all of its values are gone, which makes room for new ones.
+     */
+    List<String> series();
+
+    /**
+     * Returns every sample of the given series that is still kept, or <code>null</code> if the
+     * series was never recorded, or was evicted.
+     *
+     * @param series The name of the series
+     */
+    @Nullable
+    Window read(String series);
+
+    /**
+     * Represents the samples of a single series, in the order they were recorded.
+     *
+     * @param firstSequence sequence of the first sample
+     * @param timestamps    when every sample was collected, in milliseconds since the epoch
+     * @param values        value of every sample, or {@link Double#NaN} if the series had no value
+     */
+    record Window(long firstSequence, long[] timestamps, double[] values) {}
+}
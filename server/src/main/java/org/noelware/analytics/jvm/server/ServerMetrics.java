@@ -0,0 +1,155 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server;
+
+import java.time.Duration;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a collection of counters that the {@link AnalyticsServer} keeps about itself, so you can
+ * see how much work the <code>RetrieveStats</code> method is doing on your application.
+ */
+public interface ServerMetrics {
+    /**
+     * Returns how many <code>RetrieveStats</code> calls were served from a fresh cached snapshot.
+     */
+    long snapshotCacheHits();
+
+    /**
+     * Returns how many <code>RetrieveStats</code> calls were served from an expired (but not too stale)
+     * cached snapshot while a background refresh was running.
+     */
+    long snapshotCacheStaleHits();
+
+    /**
+     * Returns how many <code>RetrieveStats</code> calls had to collect a new snapshot because there was
+     * no cached snapshot, or it was older than the max staleness.
+     */
+    long snapshotCacheMisses();
+
+    /**
+     * Returns how many background refreshes the snapshot cache has done.
+     */
+    long snapshotCacheRefreshes();
+
+    /**
+     * Returns the max staleness that the snapshot cache will serve, or <code>null</code>
+     * if the snapshot cache is disabled.
+     */
+    @Nullable
+    Duration snapshotCacheMaxStaleness();
+
+    /**
+     * Returns the age of the snapshot that is currently cached, or <code>null</code> if the
+     * snapshot cache is disabled or hasn't collected anything yet.
+     */
+    @Nullable
+    Duration snapshotAge();
+
+    /**
+     * Returns how many <code>RetrieveStats</code> calls were coalesced into a collection pass that
+     * was already running, rather than starting their own.
+     */
+    long coalescedCalls();
+
+    /**
+     * Returns how many collection passes predictive collection started ahead of a call that was
+     * expected, which is zero if it is disabled.
+     */
+    long predictiveCollections();
+
+    /**
+     * Returns how many <code>RetrieveStats</code> calls were served a snapshot that predictive
+     * collection started ahead of them.
+     */
+    long predictedCalls();
+
+    /**
+     * Returns how much CPU time collecting snapshots has taken within the window of the CPU budget, or
+     * <code>null</code> if the server doesn't have a budget.
+     */
+    @Nullable
+    Duration collectionCpuTime();
+
+    /**
+     * Returns if collecting snapshots has taken more CPU time than the budget allows, in which case the
+     * server is degrading its snapshots. This is always <code>false</code> if the server doesn't have a budget.
+     */
+    boolean isOverBudget();
+
+    /**
+     * Returns how many calls were served an earlier snapshot, rather than a new one being collected, because
+     * the server was over its CPU budget.
+     */
+    long overBudgetSnapshots();
+
+    /**
+     * Returns how many times an extension supplied its reduced data, because the server was over its CPU budget.
+     */
+    long reducedExtensionCalls();
+
+    /**
+     * Returns how many extension calls were abandoned, either by not being scheduled or by being interrupted,
+     * because every <code>RetrieveStats</code> call that was waiting on their collection pass was cancelled.
+     */
+    long abandonedExtensionCalls();
+
+    /**
+     * Returns how many <code>StreamStats</code> calls are currently open.
+     */
+    long activeStreams();
+
+    /**
+     * Returns how many snapshots were dropped from <code>StreamStats</code> calls because the client
+     * couldn't keep up, and a newer snapshot replaced them before they were sent.
+     */
+    long conflatedSnapshots();
+
+    /**
+     * Returns how many responses were compressed. Responses that were smaller than the compression
+     * threshold, or that were sent to a client that doesn't support the codec, aren't counted.
+     */
+    long compressedMessages();
+
+    /**
+     * Returns how many bytes the compressed responses had before they were compressed.
+     */
+    long compressionInputBytes();
+
+    /**
+     * Returns how many bytes the compressed responses had after they were compressed.
+     */
+    long compressionOutputBytes();
+
+    /**
+     * Returns how much time was spent compressing responses.
+     */
+    Duration compressionTime();
+
+    /**
+     * Returns how many times smaller the compressed responses were than their uncompressed size, or <code>1</code>
+     * if nothing was compressed yet.
+     */
+    double compressionRatio();
+}
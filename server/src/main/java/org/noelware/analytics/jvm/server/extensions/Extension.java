@@ -23,6 +23,9 @@
 
 package org.noelware.analytics.jvm.server.extensions;
 
+import java.time.Duration;
+import org.jetbrains.annotations.Nullable;
+
 /**
  * Represents an extension to extend the data to let the Analytics Server consume for data ingestion.
  */
@@ -38,4 +41,42 @@ public interface Extension<T> {
      * or any other third-party you allow.
      */
     T supply();
+
+    /**
+     * Supplies a cheaper form of this extension's data, which is called instead of {@link #supply()} while the
+     * server is over its CPU budget for collecting snapshots. Extensions that capture expensive details, like
+     * stack traces, can leave them out here. By default, this is the same as {@link #supply()}.
+     */
+    default T supplyReduced() {
+        return supply();
+    }
+
+    /**
+     * Returns how long the server should wait for {@link #supply()} before it reports this extension
+     * as timed out, or <code>null</code> to use the server's default deadline.
+     */
+    @Nullable
+    default Duration deadline() {
+        return null;
+    }
+
+    /**
+     * Returns how long the data that this extension supplies can be reused for, or <code>null</code> to supply it on
+     * every snapshot. Until it is older than this, snapshots reuse the data that it last supplied, and report how old
+     * it is in their <code>sampleAgeMillis</code>. This is meant for extensions that are expensive to supply, or whose
+     * data rarely changes.
+     */
+    @Nullable
+    default Duration refreshInterval() {
+        return null;
+    }
+
+    /**
+     * Returns if this extension always supplies the same data, like the JVM's version. A static extension's
+     * {@link #supply()} is only called until it succeeds once, and the encoded data is reused by every
+     * snapshot after that.
+     */
+    default boolean isStatic() {
+        return false;
+    }
 }
@@ -27,7 +27,9 @@ import java.util.List;
 import org.jetbrains.annotations.Nullable;
 
 /**
- * Represents the registry for all available extensions the server manages
+ * Represents the registry for all available extensions the server manages. Extensions can be registered and
+ * unregistered while the server is running, and every collection pass uses the extensions that were registered
+ * when it started.
  */
 public interface ExtensionRegistry {
     /**
@@ -44,15 +46,37 @@ public interface ExtensionRegistry {
     @Nullable
     <T> Extension<T> findByClass(Class<T> tClass);
 
+    /**
+     * Finds an extension by its {@link Extension#name() name}.
+     *
+     * @param name The name of the extension
+     * @return the extension or <code>null</code> if not found.
+     */
+    @Nullable
+    Extension<?> findByName(String name);
+
     /**
      * Registers an extension to this registry
      * @param extension extension to register
+     * @throws IllegalArgumentException if an extension with the same name is already registered
      */
     <T> void register(Extension<T> extension);
 
     /**
-     * Registers a list of extensions to this {@link ExtensionRegistry registry}.
+     * Registers a list of extensions to this {@link ExtensionRegistry registry}. Either every extension
+     * is registered, or none of them are.
+     *
      * @param extensions List of extensions to register
+     * @throws IllegalArgumentException if an extension with the same name is already registered
      */
     void registerAll(Extension<?>... extensions);
+
+    /**
+     * Unregisters the extension with the given name. A collection pass that has already started
+     * still collects it.
+     *
+     * @param name The name of the extension
+     * @return if an extension was unregistered
+     */
+    boolean unregister(String name);
 }
@@ -24,22 +24,29 @@
 package org.noelware.analytics.jvm.server.extensions.internal;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.Nullable;
 import org.noelware.analytics.jvm.server.extensions.Extension;
 import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
 
+/**
+ * Represents the default {@link ExtensionRegistry}, which is copy-on-write. Every change publishes a new immutable
+ * snapshot of the extensions, so reads never lock and a collection pass can iterate {@link #extensions()} while
+ * extensions are registered or unregistered.
+ */
 public class DefaultExtensionRegistry implements ExtensionRegistry {
-    private final ArrayList<Extension<?>> extensions = new ArrayList<>();
+    private volatile Snapshot snapshot = new Snapshot(List.of());
 
     /**
      * Returns all the extensions that were register as an immutable list.
      */
     @Override
     public List<Extension<?>> extensions() {
-        return Collections.unmodifiableList(extensions);
+        return snapshot.extensions;
     }
 
     /**
@@ -49,25 +56,20 @@ public class DefaultExtensionRegistry implements ExtensionRegistry {
      * @return the extension or <code>null</code> if not found.
      */
     @Override
-    @SuppressWarnings("unchecked") // it's already checked in the #filter function.
+    @SuppressWarnings("unchecked") // it's already checked when the index is built
     public @Nullable <T> Extension<T> findByClass(Class<T> tClass) {
-        final Optional<Extension<?>> extension = extensions.stream()
-                .filter(f -> {
-                    try {
-                        // Check if `tClass` can be cast to this extension class
-                        tClass.cast(f);
-                        return true;
-                    } catch (ClassCastException e) {
-                        // If not, we just return false and try again
-                        return false;
-                    }
-                })
-                .findAny();
-
-        final Extension<?> result = extension.orElse(null);
-        if (result == null) return null;
-
-        return (Extension<T>) result;
+        return (Extension<T>) snapshot.findByClass(tClass).orElse(null);
+    }
+
+    /**
+     * Finds an extension by its name.
+     *
+     * @param name The name of the extension
+     * @return the extension or <code>null</code> if not found.
+     */
+    @Override
+    public @Nullable Extension<?> findByName(String name) {
+        return snapshot.byName.get(name);
     }
 
     /**
@@ -77,7 +79,7 @@ public class DefaultExtensionRegistry implements ExtensionRegistry {
      */
     @Override
     public <T> void register(Extension<T> extension) {
-        extensions.add(extension);
+        registerAll(extension);
     }
 
     /**
@@ -86,9 +88,64 @@ public class DefaultExtensionRegistry implements ExtensionRegistry {
      * @param extensions List of extensions to register
      */
     @Override
-    public void registerAll(Extension<?>... extensions) {
+    public synchronized void registerAll(Extension<?>... extensions) {
+        final Snapshot current = snapshot;
+        final List<Extension<?>> updated = new ArrayList<>(current.extensions);
+        final Map<String, Extension<?>> names = new HashMap<>(current.byName);
+
         for (Extension<?> extension : extensions) {
-            register(extension);
+            if (names.putIfAbsent(extension.name(), extension) != null)
+                throw new IllegalArgumentException(
+                        "Extension with name [%s] is already registered".formatted(extension.name()));
+
+            updated.add(extension);
+        }
+
+        snapshot = new Snapshot(updated);
+    }
+
+    /**
+     * Unregisters the extension with the given name.
+     *
+     * @param name The name of the extension
+     * @return if an extension was unregistered
+     */
+    @Override
+    public synchronized boolean unregister(String name) {
+        final Snapshot current = snapshot;
+        if (!current.byName.containsKey(name)) return false;
+
+        final List<Extension<?>> updated = new ArrayList<>(current.extensions);
+        updated.removeIf(extension -> extension.name().equals(name));
+
+        snapshot = new Snapshot(updated);
+        return true;
+    }
+
+    private static class Snapshot {
+        private final List<Extension<?>> extensions;
+        private final Map<String, Extension<?>> byName;
+
+        // Filled in once per class that is looked up, and thrown away with the snapshot. This isn't a
+        // ClassValue, since that keeps its values on the class itself, long after the snapshot is gone.
+        private final Map<Class<?>, Optional<Extension<?>>> byClass = new ConcurrentHashMap<>();
+
+        Snapshot(List<Extension<?>> extensions) {
+            final Map<String, Extension<?>> byName = new HashMap<>();
+            for (Extension<?> extension : extensions) byName.put(extension.name(), extension);
+
+            this.extensions = List.copyOf(extensions);
+            this.byName = Map.copyOf(byName);
+        }
+
+        Optional<Extension<?>> findByClass(Class<?> type) {
+            return byClass.computeIfAbsent(type, ignored -> {
+                for (Extension<?> extension : extensions) {
+                    if (type.isInstance(extension)) return Optional.of(extension);
+                }
+
+                return Optional.empty();
+            });
         }
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.extensions.internal;
+
+import com.google.protobuf.Value;
+import java.util.List;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionCostRecorder;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+
+/**
+ * Built-in extension that reports what supplying every other extension has cost, so the extensions that
+ * make snapshots slow (or expensive) can be found from the snapshots themselves.
+ */
+public class SelfMetricsExtension implements Extension<SelfMetricsExtension.SelfMetrics> {
+    /**
+     * Name that this extension is registered under, which the server only takes if no other extension has.
+     */
+    public static final String NAME = "analytics";
+
+    private final ExtensionCostRecorder recorder;
+    private final ExtensionRegistry registry;
+
+    public SelfMetricsExtension(ExtensionCostRecorder recorder, ExtensionRegistry registry) {
+        this.recorder = recorder;
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the name of this {@link Extension} to be used in the final result when
+     * sending out this extension's data.
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * This method is called to supply the data that is available to be ingested to the Analytics Server
+     * or any other third-party you allow. Extensions that were unregistered aren't reported anymore.
+     */
+    @Override
+    public SelfMetrics supply() {
+        return new SelfMetrics(recorder.costs().stream()
+                .filter(cost -> registry.findByName(cost.name()) != null)
+                .toList());
+    }
+
+    /**
+     * Represents what supplying every extension has cost, over its last {@link ExtensionCostRecorder#SAMPLES}
+     * calls. The current snapshot's calls aren't in it yet.
+     *
+     * @param extensions cost of every extension, sorted by name
+     */
+    @GenerateEncoder
+    public record SelfMetrics(List<ExtensionCostRecorder.Cost> extensions)
+            implements Serializable, StreamingSerializable {
+        @Override
+        public Value toGrpcValue() {
+            return SelfMetricsExtension_SelfMetricsEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            SelfMetricsExtension_SelfMetricsEncoder.writeTo(this, writer);
+        }
+    }
+}
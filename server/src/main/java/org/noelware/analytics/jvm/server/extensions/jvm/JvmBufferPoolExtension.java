@@ -23,4 +23,94 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-public class JvmBufferPoolExtension {}
+import com.google.protobuf.Value;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+
+public class JvmBufferPoolExtension implements Extension<JvmBufferPoolExtension.BufferPools> {
+    private final List<BufferPoolMXBean> beans;
+
+    public JvmBufferPoolExtension() {
+        this(ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class));
+    }
+
+    public JvmBufferPoolExtension(List<BufferPoolMXBean> beans) {
+        this.beans = beans;
+    }
+
+    /**
+     * Returns the name of this {@link Extension} to be used in the final result when
+     * sending out this extension's data.
+     */
+    @Override
+    public String name() {
+        return "buffer_pools";
+    }
+
+    /**
+     * This method is called to supply the data that is available to be ingested to the Analytics Server
+     * or any other third-party you allow.
+     */
+    @Override
+    public BufferPools supply() {
+        return new BufferPools(beans.stream()
+                .map(bean -> new BufferPool(
+                        bean.getName(), bean.getCount(), bean.getMemoryUsed(), bean.getTotalCapacity()))
+                .toList());
+    }
+
+    public record BufferPools(List<BufferPool> pools) implements Serializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.addAllBufferPools(pools.stream().map(BufferPool::toProto).toList());
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return GrpcValueUtil.toValue(pools);
+        }
+    }
+
+    /**
+     * Represents a single buffer pool, like the <code>direct</code> or <code>mapped</code> one.
+     *
+     * @param name          name of the pool
+     * @param count         how many buffers are in the pool
+     * @param memoryUsed    how many bytes the pool is using, or -1 if it is undefined
+     * @param totalCapacity total capacity of every buffer in the pool, in bytes
+     */
+    @GenerateEncoder
+    public record BufferPool(String name, long count, long memoryUsed, long totalCapacity)
+            implements Serializable, StreamingSerializable {
+        /**
+         * Returns this pool in the v2 schema.
+         */
+        public org.noelware.analytics.protobufs.v2.BufferPool toProto() {
+            return org.noelware.analytics.protobufs.v2.BufferPool.newBuilder()
+                    .setName(name)
+                    .setCount(count)
+                    .setMemoryUsed(memoryUsed)
+                    .setTotalCapacity(totalCapacity)
+                    .build();
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return JvmBufferPoolExtension_BufferPoolEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmBufferPoolExtension_BufferPoolEncoder.writeTo(this, writer);
+        }
+    }
+}
@@ -23,4 +23,75 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-public class JvmClassLoadingExtension {}
+import com.google.protobuf.Value;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+
+public class JvmClassLoadingExtension implements Extension<JvmClassLoadingExtension.ClassLoading> {
+    private final ClassLoadingMXBean classLoadingMXBean;
+
+    public JvmClassLoadingExtension() {
+        this(ManagementFactory.getClassLoadingMXBean());
+    }
+
+    public JvmClassLoadingExtension(ClassLoadingMXBean bean) {
+        classLoadingMXBean = bean;
+    }
+
+    /**
+     * Returns the name of this {@link Extension} to be used in the final result when
+     * sending out this extension's data.
+     */
+    @Override
+    public String name() {
+        return "class_loading";
+    }
+
+    /**
+     * This method is called to supply the data that is available to be ingested to the Analytics Server
+     * or any other third-party you allow.
+     */
+    @Override
+    public ClassLoading supply() {
+        return new ClassLoading(
+                classLoadingMXBean.getLoadedClassCount(),
+                classLoadingMXBean.getTotalLoadedClassCount(),
+                classLoadingMXBean.getUnloadedClassCount());
+    }
+
+    /**
+     * Represents the class loading data of this JVM.
+     *
+     * @param loaded      how many classes are currently loaded
+     * @param totalLoaded how many classes were loaded since the JVM has started
+     * @param unloaded    how many classes were unloaded since the JVM has started
+     */
+    @GenerateEncoder
+    public record ClassLoading(int loaded, long totalLoaded, long unloaded)
+            implements Serializable, StreamingSerializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.setClassLoading(org.noelware.analytics.protobufs.v2.ClassLoading.newBuilder()
+                    .setLoaded(loaded)
+                    .setTotalLoaded(totalLoaded)
+                    .setUnloaded(unloaded));
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return JvmClassLoadingExtension_ClassLoadingEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmClassLoadingExtension_ClassLoadingEncoder.writeTo(this, writer);
+        }
+    }
+}
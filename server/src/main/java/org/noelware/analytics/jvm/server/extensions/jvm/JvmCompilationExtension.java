@@ -23,4 +23,81 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-public class JvmCompilationExtension {}
+import com.google.protobuf.Value;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.FieldName;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+
+public class JvmCompilationExtension implements Extension<JvmCompilationExtension.Compilation> {
+    private final CompilationMXBean compilationMXBean;
+
+    public JvmCompilationExtension() {
+        this(ManagementFactory.getCompilationMXBean());
+    }
+
+    /**
+     * @param bean The compilation bean, which is <code>null</code> if the JVM has no compilation system
+     */
+    public JvmCompilationExtension(@Nullable CompilationMXBean bean) {
+        compilationMXBean = bean;
+    }
+
+    /**
+     * Returns the name of this {@link Extension} to be used in the final result when
+     * sending out this extension's data.
+     */
+    @Override
+    public String name() {
+        return "compilation";
+    }
+
+    /**
+     * This method is called to supply the data that is available to be ingested to the Analytics Server
+     * or any other third-party you allow. Returns <code>null</code> if the JVM has no compilation system.
+     */
+    @Override
+    public @Nullable Compilation supply() {
+        if (compilationMXBean == null) return null;
+
+        return new Compilation(
+                compilationMXBean.getName(),
+                compilationMXBean.isCompilationTimeMonitoringSupported()
+                        ? compilationMXBean.getTotalCompilationTime()
+                        : -1);
+    }
+
+    /**
+     * Represents the JIT compiler of this JVM.
+     *
+     * @param compiler        name of the JIT compiler
+     * @param totalTimeMillis how long it has spent compiling, or -1 if that isn't monitored
+     */
+    @GenerateEncoder
+    public record Compilation(String compiler, @FieldName("total_time") long totalTimeMillis)
+            implements Serializable, StreamingSerializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.setCompilation(org.noelware.analytics.protobufs.v2.Compilation.newBuilder()
+                    .setCompiler(compiler)
+                    .setTotalTimeMillis(totalTimeMillis));
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return JvmCompilationExtension_CompilationEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmCompilationExtension_CompilationEncoder.writeTo(this, writer);
+        }
+    }
+}
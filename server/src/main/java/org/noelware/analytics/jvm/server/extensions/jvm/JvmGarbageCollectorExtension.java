@@ -23,4 +23,105 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-public class JvmGarbageCollectorExtension {}
+import com.google.protobuf.Value;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.FieldName;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+
+public class JvmGarbageCollectorExtension
+        implements Extension<JvmGarbageCollectorExtension.GarbageCollectors> {
+    private final List<GarbageCollectorMXBean> beans;
+
+    public JvmGarbageCollectorExtension() {
+        this(ManagementFactory.getGarbageCollectorMXBeans());
+    }
+
+    public JvmGarbageCollectorExtension(List<GarbageCollectorMXBean> beans) {
+        this.beans = beans;
+    }
+
+    /**
+     * Returns the name of this {@link Extension} to be used in the final result when
+     * sending out this extension's data.
+     */
+    @Override
+    public String name() {
+        return "garbage_collectors";
+    }
+
+    /**
+     * This method is called to supply the data that is available to be ingested to the Analytics Server
+     * or any other third-party you allow.
+     */
+    @Override
+    public GarbageCollectors supply() {
+        return new GarbageCollectors(beans.stream()
+                .map(bean -> new GarbageCollector(
+                        bean.getName(),
+                        bean.getCollectionCount(),
+                        bean.getCollectionTime(),
+                        Arrays.asList(bean.getMemoryPoolNames())))
+                .toList());
+    }
+
+    public record GarbageCollectors(List<GarbageCollector> collectors) implements Serializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.addAllGarbageCollectors(
+                    collectors.stream().map(GarbageCollector::toProto).toList());
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return GrpcValueUtil.toValue(collectors);
+        }
+    }
+
+    /**
+     * Represents a single garbage collector.
+     *
+     * @param name                 name of the collector
+     * @param collectionCount      how many collections it has done, or -1 if it is undefined
+     * @param collectionTimeMillis how long it has collected for, or -1 if it is undefined
+     * @param memoryPools          names of the memory pools that it manages
+     */
+    @GenerateEncoder
+    public record GarbageCollector(
+            String name,
+            long collectionCount,
+            @FieldName("collection_time") long collectionTimeMillis,
+            List<String> memoryPools)
+            implements Serializable, StreamingSerializable {
+        /**
+         * Returns this collector in the v2 schema.
+         */
+        public org.noelware.analytics.protobufs.v2.GarbageCollector toProto() {
+            return org.noelware.analytics.protobufs.v2.GarbageCollector.newBuilder()
+                    .setName(name)
+                    .setCollectionCount(collectionCount)
+                    .setCollectionTimeMillis(collectionTimeMillis)
+                    .addAllMemoryPools(memoryPools)
+                    .build();
+        }
+
+        @Override
+        public Value toGrpcValue() {
+            return JvmGarbageCollectorExtension_GarbageCollectorEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmGarbageCollectorExtension_GarbageCollectorEncoder.writeTo(this, writer);
+        }
+    }
+}
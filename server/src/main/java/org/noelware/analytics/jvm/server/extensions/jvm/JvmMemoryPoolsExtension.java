@@ -23,14 +23,18 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
 import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
 import org.noelware.analytics.jvm.server.serialization.Serializable;
-import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.protobufs.v2.JvmMemory;
+import org.noelware.analytics.protobufs.v2.JvmStats;
 
 public class JvmMemoryPoolsExtension implements Extension<JvmMemoryPoolsExtension.MemoryPools> {
     private final MemoryMXBean memoryMXBean;
@@ -63,31 +67,53 @@ public class JvmMemoryPoolsExtension implements Extension<JvmMemoryPoolsExtensio
                 new JvmMemoryUsage(memoryMXBean.getHeapMemoryUsage()));
     }
 
-    public record MemoryPools(JvmMemoryUsage nonHeap, JvmMemoryUsage heap) implements Serializable {
+    @GenerateEncoder
+    public record MemoryPools(JvmMemoryUsage nonHeap, JvmMemoryUsage heap)
+            implements Serializable, StreamingSerializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.setMemory(
+                    JvmMemory.newBuilder().setHeap(heap.toProto()).setNonHeap(nonHeap.toProto()));
+        }
+
         @Override
         public Value toGrpcValue() {
-            final Struct.Builder struct = Struct.newBuilder();
-            struct.putFields("heap", GrpcValueUtil.toValue(heap));
-            struct.putFields("non_heap", GrpcValueUtil.toValue(nonHeap));
+            return JvmMemoryPoolsExtension_MemoryPoolsEncoder.toGrpcValue(this);
+        }
 
-            return GrpcValueUtil.toValue(struct.build());
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmMemoryPoolsExtension_MemoryPoolsEncoder.writeTo(this, writer);
         }
     }
 
-    public record JvmMemoryUsage(long init, long used, long committed, long max) implements Serializable {
+    @GenerateEncoder
+    public record JvmMemoryUsage(long init, long used, long committed, long max)
+            implements Serializable, StreamingSerializable {
         public JvmMemoryUsage(MemoryUsage usage) {
             this(usage.getInit(), usage.getUsed(), usage.getCommitted(), usage.getMax());
         }
 
+        /**
+         * Returns this usage in the v2 schema.
+         */
+        public org.noelware.analytics.protobufs.v2.MemoryUsage toProto() {
+            return org.noelware.analytics.protobufs.v2.MemoryUsage.newBuilder()
+                    .setInit(init)
+                    .setUsed(used)
+                    .setCommitted(committed)
+                    .setMax(max)
+                    .build();
+        }
+
         @Override
         public Value toGrpcValue() {
-            final Struct.Builder struct = Struct.newBuilder();
-            struct.putFields("init", GrpcValueUtil.toValue(init));
-            struct.putFields("used", GrpcValueUtil.toValue(used));
-            struct.putFields("committed", GrpcValueUtil.toValue(committed));
-            struct.putFields("max", GrpcValueUtil.toValue(max));
+            return JvmMemoryPoolsExtension_JvmMemoryUsageEncoder.toGrpcValue(this);
+        }
 
-            return GrpcValueUtil.toValue(struct.build());
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmMemoryPoolsExtension_JvmMemoryUsageEncoder.writeTo(this, writer);
         }
     }
 }
@@ -23,15 +23,20 @@
 
 package org.noelware.analytics.jvm.server.extensions.jvm;
 
-import com.google.protobuf.ListValue;
-import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.*;
 import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.FieldName;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
 import org.noelware.analytics.jvm.server.serialization.Serializable;
-import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+import org.noelware.analytics.protobufs.v2.JvmThreads;
+import org.noelware.analytics.protobufs.v2.StackFrame;
 
 public class JvmThreadsExtension implements Extension<JvmThreadsExtension.JvmThreadsData> {
     private final ThreadMXBean threadMXBean;
@@ -86,6 +91,21 @@ public class JvmThreadsExtension implements Extension<JvmThreadsExtension.JvmThr
                 infos);
     }
 
+    /**
+     * Supplies only the thread counts, without the information (and stack trace) of every thread, which
+     * is what reading this extension's data spends most of its time on.
+     */
+    @Override
+    public JvmThreadsData supplyReduced() {
+        final long[] deadlock = threadMXBean.findDeadlockedThreads();
+        return new JvmThreadsData(
+                threadMXBean.getThreadCount(),
+                threadMXBean.getDaemonThreadCount(),
+                threadMXBean.getPeakThreadCount(),
+                deadlock != null ? deadlock.length : -1,
+                List.of());
+    }
+
     /**
      * Represents the data that the Analytics Server can ingest for JVM thread-related data.
      * @param current    how many current threads are there in this JVM
@@ -94,23 +114,28 @@ public class JvmThreadsExtension implements Extension<JvmThreadsExtension.JvmThr
      * @param deadlocked how many deadlocked threads are there in this JVM
      * @param info       specific thread information
      */
-    public record JvmThreadsData(int current, int background, int peak, int deadlocked, List<ThreadInfo> info)
-            implements Serializable {
+    @GenerateEncoder
+    public record JvmThreadsData(
+            int current, int background, int peak, int deadlocked, @FieldName("threads") List<ThreadInfo> info)
+            implements Serializable, StreamingSerializable, TypedSerializable {
+        @Override
+        public void writeTo(JvmStats.Builder stats) {
+            stats.setThreads(JvmThreads.newBuilder()
+                    .setCurrent(current)
+                    .setBackground(background)
+                    .setPeak(peak)
+                    .setDeadlocked(deadlocked)
+                    .addAllThreads(info.stream().map(ThreadInfo::toProto).toList()));
+        }
+
         @Override
         public Value toGrpcValue() {
-            final Struct.Builder struct = Struct.newBuilder();
-            struct.putFields("current", GrpcValueUtil.toValue(current));
-            struct.putFields("background", GrpcValueUtil.toValue(background));
-            struct.putFields("peak", GrpcValueUtil.toValue(peak));
-            struct.putFields("deadlocked", GrpcValueUtil.toValue(deadlocked));
-            struct.putFields(
-                    "threads",
-                    GrpcValueUtil.toValue(ListValue.newBuilder()
-                            .addAllValues(
-                                    info.stream().map(ThreadInfo::toGrpcValue).toList())
-                            .build()));
-
-            return GrpcValueUtil.toValue(struct.build());
+            return JvmThreadsExtension_JvmThreadsDataEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmThreadsExtension_JvmThreadsDataEncoder.writeTo(this, writer);
         }
     }
 
@@ -126,44 +151,57 @@ public class JvmThreadsExtension implements Extension<JvmThreadsExtension.JvmThr
      * @param priority       priority of the thread
      * @param stacktrace     thread stacktrace
      */
+    @GenerateEncoder
     public record ThreadInfo(
             long id,
             String name,
             String state,
             boolean suspended,
-            boolean inNative,
-            boolean isDaemonThread,
+            @FieldName("native_thread") boolean inNative,
+            @FieldName("daemon_thread") boolean isDaemonThread,
             int priority,
             List<StackTraceElement> stacktrace)
-            implements Serializable {
+            implements Serializable, StreamingSerializable {
         @Override
         public Value toGrpcValue() {
-            final Struct.Builder struct = Struct.newBuilder();
-            struct.putFields("id", GrpcValueUtil.toValue(id));
-            struct.putFields("name", GrpcValueUtil.toValue(name));
-            struct.putFields("suspended", GrpcValueUtil.toValue(suspended));
-            struct.putFields("native_thread", GrpcValueUtil.toValue(inNative));
-            struct.putFields("daemon_thread", GrpcValueUtil.toValue(isDaemonThread));
-            struct.putFields(
-                    "stacktrace",
-                    GrpcValueUtil.toValue(
-                            stacktrace.stream().map(this::toGrpcValue).toList()));
-
-            return GrpcValueUtil.toValue(struct.build());
+            return JvmThreadsExtension_ThreadInfoEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            JvmThreadsExtension_ThreadInfoEncoder.writeTo(this, writer);
+        }
+
+        /**
+         * Returns this thread's information in the v2 schema.
+         */
+        public org.noelware.analytics.protobufs.v2.ThreadInfo toProto() {
+            return org.noelware.analytics.protobufs.v2.ThreadInfo.newBuilder()
+                    .setId(id)
+                    .setName(name)
+                    .setState(state)
+                    .setSuspended(suspended)
+                    .setNativeThread(inNative)
+                    .setDaemonThread(isDaemonThread)
+                    .setPriority(priority)
+                    .addAllStacktrace(stacktrace.stream().map(this::toProto).toList())
+                    .build();
         }
 
-        private Value toGrpcValue(StackTraceElement element) {
-            final Struct.Builder struct = Struct.newBuilder();
-            struct.putFields("class_loader_name", GrpcValueUtil.toValue(element.getClassLoaderName()));
-            struct.putFields("class_name", GrpcValueUtil.toValue(element.getClassName()));
-            struct.putFields("file_name", GrpcValueUtil.toValue(element.getFileName()));
-            struct.putFields("method", GrpcValueUtil.toValue(element.getMethodName()));
-            struct.putFields("module_name", GrpcValueUtil.toValue(element.getModuleName()));
-            struct.putFields("module_version", GrpcValueUtil.toValue(element.getModuleVersion()));
-            struct.putFields("native_method", GrpcValueUtil.toValue(element.isNativeMethod()));
-            struct.putFields("line", GrpcValueUtil.toValue(element.getLineNumber()));
-
-            return GrpcValueUtil.toValue(struct.build());
+        private StackFrame toProto(StackTraceElement element) {
+            // The builder's setters don't accept nulls, so only set what the frame has
+            final StackFrame.Builder frame = StackFrame.newBuilder()
+                    .setClassName(element.getClassName())
+                    .setMethod(element.getMethodName())
+                    .setNativeMethod(element.isNativeMethod())
+                    .setLine(element.getLineNumber());
+
+            if (element.getClassLoaderName() != null) frame.setClassLoaderName(element.getClassLoaderName());
+            if (element.getFileName() != null) frame.setFileName(element.getFileName());
+            if (element.getModuleName() != null) frame.setModuleName(element.getModuleName());
+            if (element.getModuleVersion() != null) frame.setModuleVersion(element.getModuleVersion());
+
+            return frame.build();
         }
     }
 }
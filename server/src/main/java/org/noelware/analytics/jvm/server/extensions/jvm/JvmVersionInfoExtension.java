@@ -26,6 +26,8 @@ package org.noelware.analytics.jvm.server.extensions.jvm;
 import org.noelware.analytics.jvm.server.extensions.Extension;
 
 public class JvmVersionInfoExtension implements Extension<String> {
+    private static final String VERSION = Runtime.version().toString();
+
     /**
      * Returns the name of this {@link Extension} to be used in the final result when
      * sending out this extension's data.
@@ -41,6 +43,14 @@ public class JvmVersionInfoExtension implements Extension<String> {
      */
     @Override
     public String supply() {
-        return Runtime.version().toString();
+        return VERSION;
+    }
+
+    /**
+     * The JVM's version doesn't change while it is running.
+     */
+    @Override
+    public boolean isStatic() {
+        return true;
     }
 }
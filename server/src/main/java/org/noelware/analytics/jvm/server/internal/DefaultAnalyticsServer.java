@@ -23,28 +23,86 @@
 
 package org.noelware.analytics.jvm.server.internal;
 
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
 import io.grpc.Server;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.zip.Deflater;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.noelware.analytics.jvm.server.AnalyticsServer;
+import org.noelware.analytics.jvm.server.SampleHistory;
 import org.noelware.analytics.jvm.server.ServerMetadata;
+import org.noelware.analytics.jvm.server.ServerMetrics;
+import org.noelware.analytics.jvm.server.extensions.Extension;
 import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
+import org.noelware.analytics.jvm.server.extensions.internal.SelfMetricsExtension;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionExecutors;
+import org.noelware.analytics.jvm.server.internal.collection.CpuStopwatch;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionCostRecorder;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionSelection;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.collection.PredictiveCollector;
+import org.noelware.analytics.jvm.server.internal.collection.SingleFlight;
+import org.noelware.analytics.jvm.server.internal.collection.SnapshotCache;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.jvm.server.internal.compression.CompressionInterceptor;
+import org.noelware.analytics.jvm.server.internal.compression.DeflateCodec;
+import org.noelware.analytics.jvm.server.internal.compression.MeteredCodec;
+import org.noelware.analytics.jvm.server.internal.delta.DeltaEncoder;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.jvm.server.internal.sampling.BackgroundSampler;
+import org.noelware.analytics.jvm.server.internal.sampling.RingBufferSampleHistory;
+import org.noelware.analytics.jvm.server.internal.schema.FieldSchemas;
+import org.noelware.analytics.protobufs.v1.DescribeResponse;
+import org.noelware.analytics.protobufs.v1.ExtensionDescriptor;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DefaultAnalyticsServer implements AnalyticsServer {
+    private final Logger LOG = LoggerFactory.getLogger(DefaultAnalyticsServer.class);
     private final ExtensionRegistry extensionRegistry;
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final ScheduledExecutorService backgroundExecutor;
+    private final ExecutorService collectionExecutor;
+    private final boolean ownsCollectionExecutor;
+    private final DefaultServerMetrics metrics;
+    private final OverheadGovernor governor;
+    private final StatsCollector collector;
+    private final SnapshotPipeline[] pipelines;
+    private final BackgroundSampler sampler;
+    private final DeltaEncoder deltaEncoder;
     private final ServerMetadata metadata;
     private final String instanceUUID;
     private final String rawToken;
     private final Server server;
 
     public DefaultAnalyticsServer(
-            ExtensionRegistry registry, String serviceToken, ServerMetadata metadata, NettyServerBuilder server) {
+            ExtensionRegistry registry,
+            String serviceToken,
+            ServerMetadata metadata,
+            NettyServerBuilder server,
+            ServerOptions options) {
         final String finalResult = new String(Base64.getDecoder().decode(serviceToken));
         final String[] split = finalResult.split(":", 2);
         if (split.length != 2) throw new IllegalStateException("Service token was not split as 'instanceUUID:token'");
@@ -52,17 +110,245 @@ public class DefaultAnalyticsServer implements AnalyticsServer {
         this.instanceUUID = split[0];
         this.metadata = metadata;
         this.rawToken = split[1];
-        this.server = server.addService(new ServerRequestHandler(this))
+        this.metrics = new DefaultServerMetrics(System::nanoTime, options.snapshotCacheMaxStaleness());
+        this.ownsCollectionExecutor = options.collectionExecutor() == null;
+        this.collectionExecutor = ownsCollectionExecutor
+                ? CollectionExecutors.createDefault()
+                : options.collectionExecutor();
+
+        this.governor = options.overheadBudget() != null
+                ? new OverheadGovernor(
+                        options.overheadBudget(), System::nanoTime, CpuStopwatch.threadCpuClock(), metrics)
+                : null;
+
+        metrics.setGovernor(governor);
+
+        final ExtensionCostRecorder costs =
+                options.selfMetrics() ? ExtensionCostRecorder.create(System::nanoTime) : null;
+        if (costs != null) {
+            if (registry.findByName(SelfMetricsExtension.NAME) != null) {
+                LOG.warn(
+                        "An extension is already registered as [{}], not registering the self-metrics extension",
+                        SelfMetricsExtension.NAME);
+            } else {
+                registry.register(new SelfMetricsExtension(costs, registry));
+            }
+        }
+
+        this.collector = new StatsCollector(
+                registry,
+                metadata,
+                collectionExecutor,
+                options.extensionDeadline(),
+                options.circuitBreaker(),
+                options.adaptiveCadence(),
+                governor,
+                costs,
+                System::nanoTime,
+                metrics);
+
+        this.backgroundExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "analytics-server-background");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        this.deltaEncoder = options.deltaVersions() > 0 ? new DeltaEncoder(options.deltaVersions()) : null;
+
+        // Each schema version gets its own cache and coalesced passes, since a snapshot
+        // collected for one can't be served to a client that negotiated the other. The
+        // delta encoder diffs the snapshot's Struct, so it can't be pre-encoded then.
+        final boolean preEncode = options.directEncoding() && deltaEncoder == null;
+        this.pipelines = new SnapshotPipeline[StatsCollector.LATEST_SCHEMA_VERSION];
+        for (int i = 0; i < pipelines.length; i++) pipelines[i] = createPipeline(i + 1, preEncode, options);
+
+        // The sampler's passes count against the CPU budget, and stop while the server is over it
+        final BackgroundSampler.Settings samplerSettings = options.sampler();
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> samplePass =
+                token -> collect(token, ExtensionSelection.ALL, 1);
+
+        this.sampler = samplerSettings != null
+                ? new BackgroundSampler(
+                        governor != null ? governor.guard(samplePass) : samplePass,
+                        new RingBufferSampleHistory(
+                                samplerSettings.capacity(), samplerSettings.maxSeries(), samplerSettings.offHeap()),
+                        samplerSettings.interval(),
+                        governor)
+                : null;
+
+        this.server = server.compressorRegistry(compressorRegistry(options))
+                .decompressorRegistry(decompressorRegistry(options))
+                .addService(new ServerRequestHandler(this))
+                .intercept(compressionInterceptor(options))
                 .intercept(new ServerAuthenticationHandler(this))
                 .build();
     }
 
+    private List<Codec> codecs(ServerOptions options) {
+        final List<Codec> codecs = new ArrayList<>();
+        codecs.add(new Codec.Gzip());
+        codecs.add(new DeflateCodec(Deflater.BEST_SPEED));
+        codecs.addAll(options.compressors());
+
+        return codecs;
+    }
+
+    private CompressorRegistry compressorRegistry(ServerOptions options) {
+        final CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        registry.register(Codec.Identity.NONE);
+        for (Codec codec : codecs(options)) registry.register(new MeteredCodec(codec, metrics));
+
+        return registry;
+    }
+
+    private DecompressorRegistry decompressorRegistry(ServerOptions options) {
+        DecompressorRegistry registry = DecompressorRegistry.getDefaultInstance();
+        for (Codec codec : codecs(options)) registry = registry.with(codec, true);
+
+        return registry;
+    }
+
+    private CompressionInterceptor compressionInterceptor(ServerOptions options) {
+        final Set<String> known = new HashSet<>();
+        for (Codec codec : codecs(options)) known.add(codec.getMessageEncoding());
+
+        final List<String> configured = new ArrayList<>(options.methodCompression().values());
+        if (options.compression() != null) configured.add(options.compression());
+        for (String codec : configured) {
+            if (!codec.equals("identity") && !known.contains(codec))
+                throw new IllegalStateException("Unknown compression codec '%s'".formatted(codec));
+        }
+
+        return new CompressionInterceptor(
+                options.compression(), options.methodCompression(), known, options.compressionThreshold());
+    }
+
     // Returns the service token that was generated by the server. Yeah, this can be grabbed by reflection,
     // but in most cases, you wouldn't even need it.
     protected String token() {
         return rawToken;
     }
 
+    DefaultServerMetrics serverMetrics() {
+        return metrics;
+    }
+
+    // Returns a v1 snapshot, which is served from the snapshot cache if it was enabled. The
+    // token is cancelled once the call is.
+    CompletableFuture<ReceiveStatsResponse> snapshot(CancellationToken token) {
+        return pipelines[0].get(token);
+    }
+
+    // Returns the snapshot for a RetrieveStats call, in the newest schema version that both sides know. A
+    // selective request is collected on its own, since neither the snapshot cache nor a coalesced pass has
+    // what it asked for. The client (if known) is what predictive collection learns the cadence of.
+    CompletableFuture<ReceiveStatsResponse> snapshot(
+            ReceiveStatsRequest request, CancellationToken token, @Nullable Object client) {
+        final int schemaVersion = StatsCollector.negotiateSchemaVersion(request.getMaxSchemaVersion());
+        if (!ExtensionSelection.isSelective(request)) return pipelines[schemaVersion - 1].get(client, token);
+
+        return collect(token, ExtensionSelection.from(request), schemaVersion);
+    }
+
+    // Returns every registered extension for a Describe call, with the fields of its data in the
+    // latest v1 snapshot (which has every extension in its data).
+    CompletableFuture<DescribeResponse> describe(CancellationToken token) {
+        return snapshot(token).thenApply(snapshot -> {
+            final Struct data = StatsCollector.dataOf(snapshot);
+            final DescribeResponse.Builder response =
+                    DescribeResponse.newBuilder().setLatestSchemaVersion(StatsCollector.LATEST_SCHEMA_VERSION);
+
+            for (Extension<?> extension : extensionRegistry.extensions()) {
+                final Value value = data.getFieldsMap().get(extension.name());
+                response.addExtensions(ExtensionDescriptor.newBuilder()
+                        .setName(extension.name())
+                        .setIsStatic(extension.isStatic())
+                        .addAllFields(value != null ? FieldSchemas.describe(value) : List.of()));
+            }
+
+            return response.build();
+        });
+    }
+
+    // Returns the scheduler that StreamStats calls collect their snapshots on. It only
+    // schedules the collection passes, they run on the collection executor.
+    ScheduledExecutorService streamScheduler() {
+        return backgroundExecutor;
+    }
+
+    // Returns the encoder for delta responses, or null if they weren't enabled.
+    @Nullable
+    DeltaEncoder deltaEncoder() {
+        return deltaEncoder;
+    }
+
+    // Returns the background sampler, or null if it wasn't enabled.
+    @Nullable
+    BackgroundSampler sampler() {
+        return sampler;
+    }
+
+    private CompletableFuture<ReceiveStatsResponse> collect(
+            CancellationToken token, ExtensionSelection selection, int schemaVersion) {
+        try {
+            return collector.collect(token, selection, schemaVersion);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private SnapshotPipeline createPipeline(int schemaVersion, boolean preEncode, ServerOptions options) {
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> pass = token -> {
+            if (!preEncode) return collect(token, ExtensionSelection.ALL, schemaVersion);
+
+            try {
+                return collector.collectEncoded(token, schemaVersion);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+
+        final SingleFlight<ReceiveStatsResponse> singleFlight =
+                options.coalesceRequests() ? new SingleFlight<>(pass, metrics::incrementCoalescedCalls) : null;
+
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> coalesced =
+                singleFlight != null ? singleFlight::execute : pass;
+
+        // Over the CPU budget, the last snapshot is served rather than collecting a new one
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader =
+                governor != null ? governor.guard(coalesced) : coalesced;
+
+        final SnapshotCache snapshotCache = options.snapshotCacheTtl() != null
+                ? new SnapshotCache(
+                        loader,
+                        options.snapshotCacheTtl(),
+                        options.snapshotCacheMaxStaleness(),
+                        backgroundExecutor,
+                        System::nanoTime,
+                        metrics)
+                : null;
+
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> cached =
+                snapshotCache != null ? snapshotCache::get : loader;
+
+        // Pre-collected snapshots are always collected fresh, never served from the snapshot cache, and
+        // none are collected ahead of calls while over the CPU budget.
+        final PredictiveCollector.Settings predictive = options.predictiveCollection();
+        return new SnapshotPipeline(
+                cached,
+                predictive != null
+                        ? new PredictiveCollector(
+                                cached,
+                                coalesced,
+                                predictive.maxAge(),
+                                backgroundExecutor,
+                                () -> governor != null && governor.isOverBudget(),
+                                System::nanoTime,
+                                metrics)
+                        : null);
+    }
+
     /**
      * Returns the {@link ExtensionRegistry extension registry} to register or fetch extensions
      * provided by you.
@@ -113,6 +399,23 @@ public class DefaultAnalyticsServer implements AnalyticsServer {
         return metadata;
     }
 
+    /**
+     * Returns the {@link ServerMetrics} that this server keeps about itself.
+     */
+    @Override
+    public @NotNull ServerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the {@link SampleHistory} that the background sampler records, or <code>null</code>
+     * if it wasn't enabled.
+     */
+    @Override
+    public @Nullable SampleHistory history() {
+        return sampler != null ? sampler.history() : null;
+    }
+
     /**
      * Starts the server.
      */
@@ -120,6 +423,7 @@ public class DefaultAnalyticsServer implements AnalyticsServer {
     public void start() throws IOException {
         if (started.compareAndSet(false, true)) {
             server.start();
+            if (sampler != null) sampler.start();
         }
     }
 
@@ -139,6 +443,10 @@ public class DefaultAnalyticsServer implements AnalyticsServer {
     public void close() {
         if (closed.compareAndSet(false, true)) {
             server.shutdownNow();
+            backgroundExecutor.shutdownNow();
+            if (sampler != null) sampler.close();
+            if (ownsCollectionExecutor) collectionExecutor.shutdownNow();
+
             try {
                 server.awaitTermination(10, TimeUnit.SECONDS);
             } catch (InterruptedException e) {
@@ -146,4 +454,17 @@ public class DefaultAnalyticsServer implements AnalyticsServer {
             }
         }
     }
+
+    // Coalesced (and possibly cached or pre-collected) snapshots for a single schema version.
+    private record SnapshotPipeline(
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> cached,
+            @Nullable PredictiveCollector predictive) {
+        CompletableFuture<ReceiveStatsResponse> get(CancellationToken token) {
+            return cached.apply(token);
+        }
+
+        CompletableFuture<ReceiveStatsResponse> get(@Nullable Object client, CancellationToken token) {
+            return predictive != null ? predictive.get(client, token) : cached.apply(token);
+        }
+    }
 }
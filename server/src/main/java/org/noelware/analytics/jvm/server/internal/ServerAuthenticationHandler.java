@@ -26,10 +26,14 @@ package org.noelware.analytics.jvm.server.internal;
 import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
 
 import io.grpc.*;
+import java.net.SocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class ServerAuthenticationHandler implements ServerInterceptor {
+    // Address of the client that made the call, which is set for every authenticated call.
+    static final Context.Key<SocketAddress> REMOTE_ADDRESS = Context.key("analytics-remote-address");
+
     private final Metadata.Key<String> AUTHORIZATION_META_KEY =
             Metadata.Key.of("Authorization", ASCII_STRING_MARSHALLER);
 
@@ -77,7 +81,9 @@ public class ServerAuthenticationHandler implements ServerInterceptor {
                 if (!actual.equals(token)) {
                     status = Status.UNAUTHENTICATED.withDescription("Invalid token provided");
                 } else {
-                    return Contexts.interceptCall(Context.current(), call, headers, next);
+                    final SocketAddress address = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+                    return Contexts.interceptCall(
+                            Context.current().withValue(REMOTE_ADDRESS, address), call, headers, next);
                 }
             }
         }
@@ -0,0 +1,247 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal;
+
+import io.grpc.Codec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.internal.collection.CircuitBreaker;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionCadence;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.collection.PredictiveCollector;
+import org.noelware.analytics.jvm.server.internal.sampling.BackgroundSampler;
+
+/**
+ * Represents the options that the {@link org.noelware.analytics.jvm.server.AnalyticsServerBuilder} collects
+ * and passes down to the {@link DefaultAnalyticsServer}.
+ */
+public class ServerOptions {
+    private Duration snapshotCacheTtl;
+    private Duration snapshotCacheMaxStaleness;
+    private boolean coalesceRequests = false;
+    private Duration extensionDeadline = Duration.ofSeconds(5);
+    private ExecutorService collectionExecutor;
+    private CircuitBreaker.Settings circuitBreaker = CircuitBreaker.Settings.DEFAULT;
+    private CollectionCadence.Settings adaptiveCadence;
+    private PredictiveCollector.Settings predictiveCollection;
+    private OverheadGovernor.Settings overheadBudget;
+    private boolean selfMetrics = false;
+    private BackgroundSampler.Settings sampler;
+    private int deltaVersions = 0;
+    private boolean directEncoding = false;
+    private String compression;
+    private int compressionThreshold = 1024;
+    private final Map<String, String> methodCompression = new HashMap<>();
+    private final List<Codec> compressors = new ArrayList<>();
+
+    /**
+     * Returns how long a cached snapshot is considered fresh, or <code>null</code> if
+     * the snapshot cache is disabled.
+     */
+    public @Nullable Duration snapshotCacheTtl() {
+        return snapshotCacheTtl;
+    }
+
+    /**
+     * Returns how long an expired snapshot can still be served while it is being
+     * refreshed in the background.
+     */
+    public @Nullable Duration snapshotCacheMaxStaleness() {
+        return snapshotCacheMaxStaleness;
+    }
+
+    /**
+     * Returns if concurrent <code>RetrieveStats</code> calls should attach to a collection pass that
+     * is already running.
+     */
+    public boolean coalesceRequests() {
+        return coalesceRequests;
+    }
+
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+    }
+
+    /**
+     * Returns how long the server waits for an extension that doesn't declare its own deadline.
+     */
+    public @NotNull Duration extensionDeadline() {
+        return extensionDeadline;
+    }
+
+    public void setExtensionDeadline(@NotNull Duration extensionDeadline) {
+        this.extensionDeadline = extensionDeadline;
+    }
+
+    /**
+     * Returns the executor that extensions are collected on, or <code>null</code> if the
+     * server should create (and own) its default one.
+     */
+    public @Nullable ExecutorService collectionExecutor() {
+        return collectionExecutor;
+    }
+
+    public void setCollectionExecutor(@Nullable ExecutorService collectionExecutor) {
+        this.collectionExecutor = collectionExecutor;
+    }
+
+    /**
+     * Returns the settings of every extension's circuit breaker.
+     */
+    public @NotNull CircuitBreaker.Settings circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(@NotNull CircuitBreaker.Settings circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Returns the settings of adaptive cadence, or <code>null</code> if it is disabled.
+     */
+    public @Nullable CollectionCadence.Settings adaptiveCadence() {
+        return adaptiveCadence;
+    }
+
+    public void setAdaptiveCadence(@Nullable CollectionCadence.Settings adaptiveCadence) {
+        this.adaptiveCadence = adaptiveCadence;
+    }
+
+    /**
+     * Returns the settings of predictive collection, or <code>null</code> if it is disabled.
+     */
+    public @Nullable PredictiveCollector.Settings predictiveCollection() {
+        return predictiveCollection;
+    }
+
+    public void setPredictiveCollection(@Nullable PredictiveCollector.Settings predictiveCollection) {
+        this.predictiveCollection = predictiveCollection;
+    }
+
+    /**
+     * Returns the CPU budget for collecting snapshots, or <code>null</code> if there is none.
+     */
+    public @Nullable OverheadGovernor.Settings overheadBudget() {
+        return overheadBudget;
+    }
+
+    public void setOverheadBudget(@Nullable OverheadGovernor.Settings overheadBudget) {
+        this.overheadBudget = overheadBudget;
+    }
+
+    /**
+     * Returns if the built-in self-metrics extension is registered.
+     */
+    public boolean selfMetrics() {
+        return selfMetrics;
+    }
+
+    public void setSelfMetrics(boolean selfMetrics) {
+        this.selfMetrics = selfMetrics;
+    }
+
+    /**
+     * Returns the settings of the background sampler, or <code>null</code> if it is disabled.
+     */
+    public @Nullable BackgroundSampler.Settings sampler() {
+        return sampler;
+    }
+
+    public void setSampler(@Nullable BackgroundSampler.Settings sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Returns how many snapshot versions are remembered for delta responses, or <code>0</code> if
+     * delta responses are disabled.
+     */
+    public int deltaVersions() {
+        return deltaVersions;
+    }
+
+    public void setDeltaVersions(int deltaVersions) {
+        this.deltaVersions = deltaVersions;
+    }
+
+    /**
+     * Returns if full snapshots should be encoded straight to their wire bytes with a
+     * {@link org.noelware.analytics.jvm.server.serialization.StatsWriter}.
+     */
+    public boolean directEncoding() {
+        return directEncoding;
+    }
+
+    public void setDirectEncoding(boolean directEncoding) {
+        this.directEncoding = directEncoding;
+    }
+
+    /**
+     * Returns the codec that responses are compressed with, or <code>null</code> if they are
+     * only compressed for the RPCs in {@link #methodCompression()}.
+     */
+    public @Nullable String compression() {
+        return compression;
+    }
+
+    public void setCompression(@Nullable String compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Returns how big (in bytes) a response has to be before it is compressed.
+     */
+    public int compressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Returns the codec of each RPC that doesn't use the {@link #compression() default one}, keyed by
+     * the RPC's name.
+     */
+    public @NotNull Map<String, String> methodCompression() {
+        return methodCompression;
+    }
+
+    /**
+     * Returns the codecs that were registered on top of <code>gzip</code> and <code>deflate</code>.
+     */
+    public @NotNull List<Codec> compressors() {
+        return compressors;
+    }
+
+    public void setSnapshotCache(Duration ttl, Duration maxStaleness) {
+        this.snapshotCacheTtl = ttl;
+        this.snapshotCacheMaxStaleness = maxStaleness;
+    }
+}
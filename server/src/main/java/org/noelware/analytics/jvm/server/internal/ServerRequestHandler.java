@@ -23,23 +23,31 @@
 
 package org.noelware.analytics.jvm.server.internal;
 
-import com.google.protobuf.NullValue;
-import com.google.protobuf.Struct;
-import com.google.protobuf.Value;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import java.util.List;
-import org.noelware.analytics.jvm.server.AnalyticsServer;
-import org.noelware.analytics.jvm.server.extensions.Extension;
-import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionSelection;
+import org.noelware.analytics.jvm.server.internal.delta.DeltaEncoder;
+import org.noelware.analytics.jvm.server.internal.dictionary.DictionaryEncoder;
+import org.noelware.analytics.jvm.server.internal.sampling.BackgroundSampler;
+import org.noelware.analytics.jvm.server.internal.streaming.ChunkedSnapshotCall;
+import org.noelware.analytics.jvm.server.internal.streaming.SnapshotChunker;
+import org.noelware.analytics.jvm.server.internal.streaming.StatsStream;
+import org.noelware.analytics.jvm.server.serialization.FlatSnapshotWriter;
 import org.noelware.analytics.protobufs.v1.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class ServerRequestHandler extends AnalyticsGrpc.AnalyticsImplBase {
     private final Logger LOG = LoggerFactory.getLogger(ServerRequestHandler.class);
-    private final AnalyticsServer server;
+    private final DefaultAnalyticsServer server;
 
-    ServerRequestHandler(AnalyticsServer server) {
+    ServerRequestHandler(DefaultAnalyticsServer server) {
         this.server = server;
     }
 
@@ -57,31 +65,121 @@ public class ServerRequestHandler extends AnalyticsGrpc.AnalyticsImplBase {
 
     @Override
     public void retrieveStats(ReceiveStatsRequest request, StreamObserver<ReceiveStatsResponse> observer) {
-        final List<Extension<?>> extensions = server.extensions().extensions();
-        LOG.info("Ingesting data from {} extensions...", extensions.size());
-
-        final ReceiveStatsResponse.Builder resp = ReceiveStatsResponse.newBuilder();
-        resp.setBuildFlavour(server.metadata().distributionType());
-        resp.setCommitSha(server.metadata().commitHash());
-        resp.setBuildDate(server.metadata().buildDate());
-        resp.setProduct(server.metadata().product());
-        resp.setVersion(server.metadata().version());
-
-        final Struct.Builder data = Struct.newBuilder();
-        for (Extension<?> extension : extensions) {
-            final Object payload = extension.supply();
-            if (payload == null) {
-                data.putFields(
-                        extension.name(),
-                        Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build());
-                continue;
+        // The token is cancelled once the client cancels the call or its deadline has passed, so the
+        // collection pass can stop early if nobody else is waiting on it.
+        final CancellationToken token = CancellationToken.fromContext(Context.current());
+        final SocketAddress client = ServerAuthenticationHandler.REMOTE_ADDRESS.get();
+        server.snapshot(request, token, client).whenComplete((response, ex) -> {
+            // gRPC has already closed the call, so there is nobody to send anything to.
+            if (token.isCancelled()) {
+                LOG.debug("RetrieveStats call was cancelled before its snapshot was collected");
+                return;
             }
 
-            data.putFields(extension.name(), GrpcValueUtil.toValue(payload));
+            if (ex != null) {
+                LOG.error("Unable to collect stats for RetrieveStats call:", ex);
+                observer.onError(Status.INTERNAL
+                        .withDescription("Unable to collect stats")
+                        .withCause(ex)
+                        .asRuntimeException());
+
+                return;
+            }
+
+            // A selective response isn't a full snapshot, so no delta can be based on it
+            final DeltaEncoder deltaEncoder = server.deltaEncoder();
+            final ReceiveStatsResponse encoded = deltaEncoder != null && !ExtensionSelection.isSelective(request)
+                    ? deltaEncoder.encode(request, response)
+                    : response;
+
+            if (request.getFlatEncoding()) {
+                observer.onNext(FlatSnapshotWriter.encode(encoded));
+            } else if (request.getDictionaryEncoding()) {
+                observer.onNext(new DictionaryEncoder().encode(encoded));
+            } else {
+                observer.onNext(encoded);
+            }
+
+            observer.onCompleted();
+        });
+    }
+
+    @Override
+    public void retrieveHistory(RetrieveHistoryRequest request, StreamObserver<RetrieveHistoryResponse> observer) {
+        final BackgroundSampler sampler = server.sampler();
+        if (sampler == null) {
+            observer.onError(Status.FAILED_PRECONDITION
+                    .withDescription("Background sampler is not enabled on this server")
+                    .asRuntimeException());
+
+            return;
         }
 
-        resp.setData(data.build());
-        observer.onNext(resp.build());
+        observer.onNext(sampler.history().readSince(request.getCursor()));
         observer.onCompleted();
     }
+
+    @Override
+    public void describe(DescribeRequest request, StreamObserver<DescribeResponse> observer) {
+        final CancellationToken token = CancellationToken.fromContext(Context.current());
+        server.describe(token).whenComplete((response, ex) -> {
+            if (token.isCancelled()) return;
+            if (ex != null) {
+                LOG.error("Unable to describe the extensions for Describe call:", ex);
+                observer.onError(Status.INTERNAL
+                        .withDescription("Unable to describe the extensions")
+                        .withCause(ex)
+                        .asRuntimeException());
+
+                return;
+            }
+
+            observer.onNext(response);
+            observer.onCompleted();
+        });
+    }
+
+    @Override
+    public void streamStats(StreamStatsRequest request, StreamObserver<ReceiveStatsResponse> observer) {
+        LOG.info("Opening StreamStats call with a {}ms interval", request.getIntervalMillis());
+
+        final StatsStream stream = new StatsStream(
+                (ServerCallStreamObserver<ReceiveStatsResponse>) observer,
+                CancellationToken.fromContext(Context.current()),
+                server::snapshot,
+                encoderFor(request),
+                server.serverMetrics());
+
+        stream.start(server.streamScheduler(), Duration.ofMillis(request.getIntervalMillis()));
+    }
+
+    @Override
+    public void retrieveStatsChunked(RetrieveStatsChunkedRequest request, StreamObserver<StatsChunk> observer) {
+        final CancellationToken token = CancellationToken.fromContext(Context.current());
+        final ChunkedSnapshotCall call = new ChunkedSnapshotCall((ServerCallStreamObserver<StatsChunk>) observer);
+        final SocketAddress client = ServerAuthenticationHandler.REMOTE_ADDRESS.get();
+
+        // Chunks always hold a full snapshot, so the delta encoder and the encodings don't apply here
+        server.snapshot(request.getRequest(), token, client).whenComplete((response, ex) -> {
+            if (token.isCancelled()) return;
+            if (ex != null) {
+                LOG.error("Unable to collect stats for RetrieveStatsChunked call:", ex);
+                observer.onError(Status.INTERNAL
+                        .withDescription("Unable to collect stats")
+                        .withCause(ex)
+                        .asRuntimeException());
+
+                return;
+            }
+
+            call.send(new SnapshotChunker(response, request.getMaxChunkBytes()));
+        });
+    }
+
+    private static UnaryOperator<ReceiveStatsResponse> encoderFor(StreamStatsRequest request) {
+        if (request.getFlatEncoding()) return FlatSnapshotWriter::encode;
+        if (request.getDictionaryEncoding()) return new DictionaryEncoder()::encode;
+
+        return UnaryOperator.identity();
+    }
 }
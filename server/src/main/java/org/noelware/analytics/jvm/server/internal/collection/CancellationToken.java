@@ -0,0 +1,136 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import io.grpc.Context;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a signal that tells a collection pass that nobody is waiting for its result anymore, so
+ * it can stop scheduling extensions and abandon the ones that are still running.
+ */
+public class CancellationToken {
+    /**
+     * Token that is never cancelled, used for work that isn't tied to a call (like background refreshes).
+     */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final boolean cancellable;
+    private volatile boolean cancelled = false;
+    private volatile Runnable detach = () -> {};
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * Returns a token that is cancelled once the given gRPC {@link Context} is, which happens when the client
+     * cancels the call or its deadline has passed.
+     */
+    public static CancellationToken fromContext(Context context) {
+        final CancellationToken token = new CancellationToken();
+        context.addListener(ignored -> token.cancel(), Runnable::run);
+
+        return token;
+    }
+
+    /**
+     * Returns a token that is cancelled once this one is, or on its own. A long-lived token (like the one of a
+     * <code>StreamStats</code> call) gives every pass a child, so the listeners of a pass don't pile up on it.
+     * The child has to be {@link #release() released} once it isn't needed anymore.
+     */
+    public CancellationToken child() {
+        final CancellationToken child = new CancellationToken();
+        child.detach = onCancel(child::cancel);
+
+        return child;
+    }
+
+    /**
+     * Removes this token from the token that it is a {@link #child() child} of, does nothing otherwise.
+     */
+    public void release() {
+        detach.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns how many listeners are waiting for this token to be cancelled.
+     */
+    public int listenerCount() {
+        synchronized (listeners) {
+            return listeners.size();
+        }
+    }
+
+    /**
+     * Runs the given listener once this token is cancelled, or right away if it already was.
+     *
+     * @return a handle that removes the listener, for when whatever it would cancel has completed
+     */
+    public Runnable onCancel(Runnable listener) {
+        if (!cancellable) return () -> {};
+
+        synchronized (listeners) {
+            if (!cancelled) {
+                listeners.add(listener);
+                return () -> {
+                    synchronized (listeners) {
+                        listeners.remove(listener);
+                    }
+                };
+            }
+        }
+
+        listener.run();
+        return () -> {};
+    }
+
+    /**
+     * Cancels this token and runs every listener, does nothing if it was already cancelled.
+     */
+    public void cancel() {
+        if (!cancellable) return;
+
+        final List<Runnable> toRun;
+        synchronized (listeners) {
+            if (cancelled) return;
+
+            cancelled = true;
+            toRun = List.copyOf(listeners);
+            listeners.clear();
+        }
+
+        for (Runnable listener : toRun) listener.run();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.time.Duration;
+
+/**
+ * Represents a circuit breaker for a single extension. Once the extension fails (or is too slow) a
+ * number of times in a row, the breaker opens and the extension is skipped until the cool-down has
+ * passed. After that, a single trial call is let through: if it succeeds the breaker closes again,
+ * otherwise it stays open for another cool-down.
+ */
+public class CircuitBreaker {
+    private final Settings settings;
+    private State state = State.CLOSED;
+    private long openUntil = 0;
+    private int failures = 0;
+
+    public CircuitBreaker(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Returns if the extension can be called at the given time. If the cool-down has passed, this lets a
+     * single trial call through and every other call is rejected until it has been recorded.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public synchronized boolean tryAcquire(long now) {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (now - openUntil < 0) yield false;
+
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Records a call that finished without throwing, which still counts as a failure if it took longer
+     * than the slow call threshold.
+     *
+     * @param tookNanos how long the call took
+     * @param now       current time, in nanoseconds
+     */
+    public synchronized void onSuccess(long tookNanos, long now) {
+        if (settings.slowCallThreshold() != null && tookNanos >= settings.slowCallThreshold().toNanos()) {
+            onFailure(now);
+            return;
+        }
+
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Records a call that threw or timed out.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public synchronized void onFailure(long now) {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= settings.failureThreshold()) {
+            state = State.OPEN;
+            openUntil = now + settings.coolDown().toNanos();
+        }
+    }
+
+    /**
+     * Records a call that was abandoned before it finished, which doesn't count either way. If it was the
+     * trial call, the next call is let through as the trial instead.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public synchronized void onAbandoned(long now) {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openUntil = now;
+        }
+    }
+
+    /**
+     * Returns how long until the breaker will let a trial call through, which is zero if it isn't open.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public synchronized Duration remainingCoolDown(long now) {
+        if (state != State.OPEN) return Duration.ZERO;
+        return Duration.ofNanos(Math.max(0, openUntil - now));
+    }
+
+    /**
+     * Settings for every {@link CircuitBreaker}.
+     *
+     * @param failureThreshold  how many failures (or slow calls) in a row open the breaker
+     * @param slowCallThreshold how long a call can take before it counts as a failure, <code>null</code> to never count slow calls
+     * @param coolDown          how long the breaker stays open before a trial call is let through
+     */
+    public record Settings(int failureThreshold, Duration slowCallThreshold, Duration coolDown) {
+        public static final Settings DEFAULT = new Settings(3, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
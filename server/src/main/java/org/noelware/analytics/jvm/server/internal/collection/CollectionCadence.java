@@ -0,0 +1,84 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.time.Duration;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents how often a single extension is supplied. An extension is supplied again once its data is older than its
+ * {@link org.noelware.analytics.jvm.server.extensions.Extension#refreshInterval() refresh interval}, and until then
+ * every pass reuses the data it last supplied. With adaptive cadence enabled, the interval is also stretched so the
+ * extension doesn't spend more than a set share of the time being supplied, based on how long it has taken so far.
+ */
+public class CollectionCadence {
+    // weight of the newest cost in the moving average
+    private static final double ALPHA = 0.2;
+
+    private final @Nullable Settings settings;
+    private double costNanos = -1;
+
+    public CollectionCadence(@Nullable Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Records how long a successful call to the extension took.
+     *
+     * @param nanos how long the call took, in nanoseconds
+     */
+    public synchronized void recordCost(long nanos) {
+        costNanos = costNanos < 0 ? nanos : ALPHA * nanos + (1 - ALPHA) * costNanos;
+    }
+
+    /**
+     * Returns the average cost of the extension, or <code>-1</code> if it wasn't called yet.
+     */
+    public synchronized long averageCostNanos() {
+        return (long) costNanos;
+    }
+
+    /**
+     * Returns how long the data of the extension can be reused for, in nanoseconds.
+     *
+     * @param declared the refresh interval that the extension has declared, if any
+     */
+    public long intervalNanos(@Nullable Duration declared) {
+        final long interval = declared != null ? declared.toNanos() : 0;
+        final long cost = averageCostNanos();
+        if (settings == null || cost <= 0) return interval;
+
+        final long adaptive = (long) Math.min(cost / settings.maxDutyCycle(), settings.maxInterval().toNanos());
+        return Math.max(interval, adaptive);
+    }
+
+    /**
+     * Settings for adaptive cadence.
+     *
+     * @param maxDutyCycle the share of time (between 0 and 1) an extension can spend being supplied, so <code>0.01</code>
+     *                     only calls an extension that takes 20ms at most every 2 seconds
+     * @param maxInterval  the longest that adaptive cadence stretches an interval to, so data never gets older than this
+     */
+    public record Settings(double maxDutyCycle, Duration maxInterval) {}
+}
@@ -0,0 +1,70 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the default {@link ExecutorService} that extensions are collected on.
+ */
+public class CollectionExecutors {
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionExecutors.class);
+
+    private CollectionExecutors() {}
+
+    /**
+     * Returns a virtual thread per task executor if the running JVM supports it (Java 21+), otherwise
+     * a cached pool of daemon platform threads. The library targets Java 17, so the virtual thread
+     * executor is looked up at runtime rather than linked against.
+     */
+    public static ExecutorService createDefault() {
+        try {
+            final MethodHandle handle = MethodHandles.publicLookup()
+                    .findStatic(
+                            Executors.class,
+                            "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class));
+
+            return (ExecutorService) handle.invokeExact();
+        } catch (Throwable e) {
+            // Either we're running on Java 17-18, or on 19-20 without --enable-preview
+            LOG.debug("Virtual threads are not available, using platform threads to collect extensions");
+        }
+
+        final AtomicInteger threadId = new AtomicInteger(0);
+        return Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "analytics-collector-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+}
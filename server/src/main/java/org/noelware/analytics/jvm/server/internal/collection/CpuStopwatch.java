@@ -0,0 +1,104 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures how much CPU time the current thread has spent since the stopwatch was started. The JVM can't
+ * always tell: {@link ThreadMXBean#getCurrentThreadCpuTime()} returns <code>-1</code> on virtual threads, which
+ * {@link CollectionExecutors#createDefault()} uses on Java 21+, so every reading is checked and how much time
+ * has passed is measured as well, to fall back to.
+ */
+public final class CpuStopwatch {
+    private final LongSupplier nanoClock;
+    private final LongSupplier cpuClock;
+    private final long cpuStartedAt;
+    private final long startedAt;
+    private final Thread thread;
+
+    private CpuStopwatch(LongSupplier cpuClock, LongSupplier nanoClock) {
+        this.thread = Thread.currentThread();
+        this.cpuStartedAt = cpuClock.getAsLong();
+        this.startedAt = nanoClock.getAsLong();
+        this.nanoClock = nanoClock;
+        this.cpuClock = cpuClock;
+    }
+
+    /**
+     * Starts a stopwatch on the current thread.
+     *
+     * @param cpuClock  CPU time of the current thread in nanoseconds, or <code>-1</code> if it can't be measured
+     * @param nanoClock The clock to fall back to
+     */
+    public static CpuStopwatch start(LongSupplier cpuClock, LongSupplier nanoClock) {
+        return new CpuStopwatch(cpuClock, nanoClock);
+    }
+
+    /**
+     * Returns the CPU time of the current thread if the JVM supports measuring it, which is still <code>-1</code>
+     * on threads that it can't measure.
+     */
+    public static LongSupplier threadCpuClock() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported()) return () -> -1;
+
+        try {
+            if (!threads.isThreadCpuTimeEnabled()) threads.setThreadCpuTimeEnabled(true);
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return () -> -1;
+        }
+
+        return threads::getCurrentThreadCpuTime;
+    }
+
+    /**
+     * Returns how much CPU time the thread has spent since the stopwatch was started, or <code>-1</code> if
+     * it couldn't be measured at either end, or this is called on another thread.
+     */
+    public long cpuNanos() {
+        if (cpuStartedAt < 0 || Thread.currentThread() != thread) return -1;
+
+        final long cpu = cpuClock.getAsLong();
+        return cpu < 0 ? -1 : Math.max(0, cpu - cpuStartedAt);
+    }
+
+    /**
+     * Returns how much time has passed since the stopwatch was started.
+     */
+    public long elapsedNanos() {
+        return Math.max(0, nanoClock.getAsLong() - startedAt);
+    }
+
+    /**
+     * Returns {@link #cpuNanos()}, or {@link #elapsedNanos()} if the CPU time couldn't be measured. Wall time
+     * is never less than CPU time, so a budget is still kept, only more strictly.
+     */
+    public long cpuOrElapsedNanos() {
+        final long cpu = cpuNanos();
+        return cpu < 0 ? elapsedNanos() : cpu;
+    }
+}
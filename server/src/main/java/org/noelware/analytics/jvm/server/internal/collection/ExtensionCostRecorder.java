@@ -0,0 +1,241 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import com.google.protobuf.Value;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.serialization.GenerateEncoder;
+import org.noelware.analytics.jvm.server.serialization.Serializable;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.StreamingSerializable;
+
+/**
+ * Records what supplying every extension has cost: how long {@link Extension#supply()} took, how much CPU time
+ * it took and how many bytes it allocated, and how big its data was once encoded. The JVM can't measure CPU time
+ * and allocations on every thread, those are reported as <code>-1</code> rather than guessed. The last {@link #SAMPLES}
+ * calls of every extension are kept, which is what the percentiles are computed from.
+ */
+public class ExtensionCostRecorder {
+    /**
+     * How many calls of every extension are kept.
+     */
+    public static final int SAMPLES = 128;
+
+    private final ConcurrentHashMap<String, Samples> samples = new ConcurrentHashMap<>();
+    private final LongSupplier allocationClock;
+    private final LongSupplier nanoClock;
+    private final LongSupplier cpuClock;
+
+    /**
+     * @param nanoClock       The clock to use, in nanoseconds
+     * @param cpuClock        CPU time of the current thread in nanoseconds, or <code>-1</code> if it can't be measured
+     * @param allocationClock bytes that the current thread has allocated, or <code>-1</code> if that isn't known
+     */
+    public ExtensionCostRecorder(LongSupplier nanoClock, LongSupplier cpuClock, LongSupplier allocationClock) {
+        this.allocationClock = allocationClock;
+        this.nanoClock = nanoClock;
+        this.cpuClock = cpuClock;
+    }
+
+    /**
+     * Returns a recorder that reads the CPU time and allocated bytes of the current thread from the JVM, if it
+     * can measure them.
+     *
+     * @param nanoClock The clock to use, in nanoseconds
+     */
+    public static ExtensionCostRecorder create(LongSupplier nanoClock) {
+        return new ExtensionCostRecorder(nanoClock, CpuStopwatch.threadCpuClock(), threadAllocationClock());
+    }
+
+    private static LongSupplier threadAllocationClock() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean bean) || !bean.isThreadAllocatedMemorySupported())
+            return () -> -1;
+
+        try {
+            if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return () -> -1;
+        }
+
+        return bean::getCurrentThreadAllocatedBytes;
+    }
+
+    /**
+     * Starts measuring how much CPU time the current thread spends, see {@link CpuStopwatch#cpuNanos()}.
+     */
+    public CpuStopwatch startMeasuring() {
+        return CpuStopwatch.start(cpuClock, nanoClock);
+    }
+
+    /**
+     * Returns how many bytes the current thread has allocated, to pass to {@link #allocatedSince(long)} later
+     * on the same thread, or <code>-1</code> if that isn't known.
+     */
+    public long allocatedBytes() {
+        return allocationClock.getAsLong();
+    }
+
+    /**
+     * Returns how many bytes the current thread has allocated since {@link #allocatedBytes()} returned the given
+     * amount, or <code>-1</code> if that isn't known at either end. The JVM doesn't know for virtual threads.
+     *
+     * @param before what {@link #allocatedBytes()} returned
+     */
+    public long allocatedSince(long before) {
+        if (before < 0) return -1;
+
+        final long after = allocationClock.getAsLong();
+        return after < 0 ? -1 : Math.max(0, after - before);
+    }
+
+    /**
+     * Records a call of an extension.
+     *
+     * @param name           name of the extension
+     * @param wallNanos      how long the call took
+     * @param cpuNanos       how much CPU time the call took, or <code>-1</code> if that isn't known
+     * @param allocatedBytes how many bytes the call allocated, or <code>-1</code> if that isn't known
+     * @param encodedBytes   how big the data was once encoded
+     */
+    public void record(String name, long wallNanos, long cpuNanos, long allocatedBytes, long encodedBytes) {
+        samples.computeIfAbsent(name, ignored -> new Samples())
+                .add(wallNanos, cpuNanos, allocatedBytes, encodedBytes);
+    }
+
+    /**
+     * Returns the cost of every extension that was recorded, sorted by name.
+     */
+    public List<Cost> costs() {
+        final List<Cost> costs = new ArrayList<>(samples.size());
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) costs.add(entry.getValue().cost(entry.getKey()));
+
+        costs.sort((a, b) -> a.name().compareTo(b.name()));
+        return costs;
+    }
+
+    /**
+     * Represents what an extension has cost over its last calls.
+     *
+     * @param name           name of the extension
+     * @param calls          how many calls were recorded in total
+     * @param wallNanos      how long the calls took
+     * @param cpuNanos       how much CPU time the calls took, <code>-1</code> for calls where that isn't known,
+     *                       like on virtual threads
+     * @param allocatedBytes how many bytes the calls allocated, <code>-1</code> for calls where that isn't known
+     * @param encodedBytes   how big the data was once encoded
+     */
+    @GenerateEncoder
+    public record Cost(
+            String name,
+            long calls,
+            Distribution wallNanos,
+            Distribution cpuNanos,
+            Distribution allocatedBytes,
+            Distribution encodedBytes)
+            implements Serializable, StreamingSerializable {
+        @Override
+        public Value toGrpcValue() {
+            return ExtensionCostRecorder_CostEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            ExtensionCostRecorder_CostEncoder.writeTo(this, writer);
+        }
+    }
+
+    /**
+     * Represents the last value and the percentiles of a measurement.
+     */
+    @GenerateEncoder
+    public record Distribution(long last, long p50, long p90, long p99, long max)
+            implements Serializable, StreamingSerializable {
+        @Override
+        public Value toGrpcValue() {
+            return ExtensionCostRecorder_DistributionEncoder.toGrpcValue(this);
+        }
+
+        @Override
+        public void writeTo(StatsWriter writer) {
+            ExtensionCostRecorder_DistributionEncoder.writeTo(this, writer);
+        }
+
+        static Distribution of(long[] values, int count, long last) {
+            final long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+
+            return new Distribution(
+                    last,
+                    percentile(sorted, 0.5),
+                    percentile(sorted, 0.9),
+                    percentile(sorted, 0.99),
+                    sorted[count - 1]);
+        }
+
+        // nearest-rank percentile
+        private static long percentile(long[] sorted, double p) {
+            return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+    }
+
+    // Ring of the last calls of an extension
+    private static class Samples {
+        private final long[] wall = new long[SAMPLES];
+        private final long[] cpu = new long[SAMPLES];
+        private final long[] allocated = new long[SAMPLES];
+        private final long[] encoded = new long[SAMPLES];
+        private long calls = 0;
+
+        synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes, long encodedBytes) {
+            final int index = (int) (calls % SAMPLES);
+            wall[index] = wallNanos;
+            cpu[index] = cpuNanos;
+            allocated[index] = allocatedBytes;
+            encoded[index] = encodedBytes;
+            calls++;
+        }
+
+        synchronized Cost cost(String name) {
+            final int count = (int) Math.min(calls, SAMPLES);
+            final int last = (int) ((calls - 1) % SAMPLES);
+
+            return new Cost(
+                    name,
+                    calls,
+                    Distribution.of(wall, count, wall[last]),
+                    Distribution.of(cpu, count, cpu[last]),
+                    Distribution.of(allocated, count, allocated[last]),
+                    Distribution.of(encoded, count, encoded[last]));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.util.FieldMaskTree;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+
+/**
+ * Represents which extensions a <code>RetrieveStats</code> call wants, and which paths of their data. An extension
+ * that isn't selected is never called, and the data of the ones that are is converted with the {@link #mask(String)
+ * mask} of their paths, so the fields that weren't asked for are never built.
+ */
+public class ExtensionSelection {
+    /**
+     * Selection of every extension, and all of their data.
+     */
+    public static final ExtensionSelection ALL = new ExtensionSelection(Set.of(), Set.of(), null);
+
+    private final Set<String> include;
+    private final Set<String> exclude;
+    private final FieldMaskTree mask;
+
+    private ExtensionSelection(Set<String> include, Set<String> exclude, FieldMaskTree mask) {
+        this.include = include;
+        this.exclude = exclude;
+        this.mask = mask;
+    }
+
+    /**
+     * Returns the selection that the given request asks for.
+     */
+    public static ExtensionSelection from(ReceiveStatsRequest request) {
+        if (!isSelective(request)) return ALL;
+
+        return new ExtensionSelection(
+                Set.copyOf(request.getIncludeExtensionsList()),
+                Set.copyOf(request.getExcludeExtensionsList()),
+                maskOf(request));
+    }
+
+    /**
+     * Returns if the given request only wants some of the extensions, or some of their data.
+     */
+    public static boolean isSelective(ReceiveStatsRequest request) {
+        return request.getIncludeExtensionsCount() > 0
+                || request.getExcludeExtensionsCount() > 0
+                || (request.hasFieldMask()
+                        && request.getFieldMask().getPathsList().stream().anyMatch(path -> !path.isBlank()));
+    }
+
+    /**
+     * Returns if the given extension should be called.
+     */
+    public boolean includes(String extension) {
+        if (!include.isEmpty() && !include.contains(extension)) return false;
+        if (exclude.contains(extension)) return false;
+
+        return mask == null || mask.includes(extension);
+    }
+
+    /**
+     * Returns the mask that the data of the given extension is converted with.
+     *
+     * @param extension The name of the extension
+     * @return the mask, or <code>null</code> if all of its data was asked for
+     */
+    public @Nullable FieldMaskTree mask(String extension) {
+        return mask == null ? null : mask.child(extension);
+    }
+
+    // A field mask that only has blank paths is the same as not sending one
+    private static @Nullable FieldMaskTree maskOf(ReceiveStatsRequest request) {
+        return request.hasFieldMask() ? FieldMaskTree.of(request.getFieldMask().getPathsList()) : null;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+/**
+ * Keeps the CPU time that collecting snapshots takes within a budget, like 1% of a core averaged over
+ * a minute. Collection passes record how much CPU time their threads have spent, and once that is
+ * over the budget for the window, the server degrades rather than taking more from the host:
+ *
+ * <ul>
+ *     <li>calls are served the last snapshot that was collected, if there is one,</li>
+ *     <li>extensions reuse the data that they last supplied if it is newer than the window,</li>
+ *     <li>extensions that have to be supplied are asked for their reduced data instead.</li>
+ * </ul>
+ *
+ * <p>Everything that was degraded is reported, both in the snapshot and in the server's metrics.
+ */
+public class OverheadGovernor {
+    // how many slices the window is split into, the oldest slice is dropped as time goes on
+    private static final int BUCKETS = 12;
+
+    private final long[] buckets = new long[BUCKETS];
+    private final DefaultServerMetrics metrics;
+    private final LongSupplier nanoClock;
+    private final LongSupplier cpuClock;
+    private final long bucketNanos;
+    private final long budgetNanos;
+    private final Duration window;
+    private long currentBucket;
+
+    /**
+     * @param settings  The budget and its window
+     * @param nanoClock The clock to use, in nanoseconds
+     * @param cpuClock  CPU time of the current thread in nanoseconds, or <code>-1</code> if it can't be measured,
+     *                  see {@link CpuStopwatch#threadCpuClock()}
+     * @param metrics   Metrics to report degraded calls in
+     */
+    public OverheadGovernor(
+            Settings settings, LongSupplier nanoClock, LongSupplier cpuClock, DefaultServerMetrics metrics) {
+        this.bucketNanos = Math.max(1, settings.window().toNanos() / BUCKETS);
+        this.budgetNanos = (long) (settings.maxCpuShare() * settings.window().toNanos());
+        this.currentBucket = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+        this.window = settings.window();
+        this.nanoClock = nanoClock;
+        this.cpuClock = cpuClock;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts measuring how much CPU time the current thread spends collecting, to {@link #record(long)} once
+     * it's done. On threads that the JVM can't measure the CPU time of, how much time has passed is used.
+     */
+    public CpuStopwatch startMeasuring() {
+        return CpuStopwatch.start(cpuClock, nanoClock);
+    }
+
+    /**
+     * Records CPU time that was spent collecting.
+     *
+     * @param cpuNanos how much CPU time was spent
+     */
+    public synchronized void record(long cpuNanos) {
+        advance(nanoClock.getAsLong());
+        buckets[(int) Math.floorMod(currentBucket, BUCKETS)] += Math.max(0, cpuNanos);
+    }
+
+    /**
+     * Returns how much CPU time was spent collecting within the window.
+     */
+    public synchronized Duration usedCpuTime() {
+        advance(nanoClock.getAsLong());
+
+        long used = 0;
+        for (long bucket : buckets) used += bucket;
+
+        return Duration.ofNanos(used);
+    }
+
+    /**
+     * Returns if more CPU time than the budget was spent collecting within the window.
+     */
+    public boolean isOverBudget() {
+        return usedCpuTime().toNanos() > budgetNanos;
+    }
+
+    /**
+     * Returns the window that the budget is averaged over, which is also how old data an extension can
+     * reuse while the server is over its budget.
+     */
+    public Duration window() {
+        return window;
+    }
+
+    /**
+     * Returns a loader that serves the last snapshot that the given one has collected while the server is
+     * over its budget, marked as such. Until something was collected, it always collects.
+     *
+     * @param loader Function that collects a new snapshot
+     */
+    public Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> guard(
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader) {
+        final AtomicReference<ReceiveStatsResponse> last = new AtomicReference<>();
+        return token -> {
+            final ReceiveStatsResponse previous = last.get();
+            if (previous != null && isOverBudget()) {
+                metrics.incrementOverBudgetSnapshots();
+                return CompletableFuture.completedFuture(previous.toBuilder().setOverBudget(true).build());
+            }
+
+            return loader.apply(token).thenApply(response -> {
+                last.set(response);
+                return response;
+            });
+        };
+    }
+
+    // Clears the slices that the window has moved past since the last call.
+    private void advance(long now) {
+        final long bucket = Math.floorDiv(now, bucketNanos);
+        if (bucket <= currentBucket) return;
+
+        if (bucket - currentBucket >= BUCKETS) {
+            Arrays.fill(buckets, 0);
+        } else {
+            for (long b = currentBucket + 1; b <= bucket; b++) buckets[(int) Math.floorMod(b, BUCKETS)] = 0;
+        }
+
+        currentBucket = bucket;
+    }
+
+    /**
+     * Settings for the {@link OverheadGovernor}.
+     *
+     * @param maxCpuShare how much of a single core (between 0 and 1) collecting can take on average, so
+     *                    <code>0.01</code> is 600ms of CPU time per minute
+     * @param window      how long the CPU time is averaged over
+     */
+    public record Settings(double maxCpuShare, Duration window) {}
+}
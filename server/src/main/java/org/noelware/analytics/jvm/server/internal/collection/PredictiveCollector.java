@@ -0,0 +1,238 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts collecting a snapshot right before a client is expected to ask for one, so collectors that poll on a fixed
+ * schedule don't have to wait on the collection pass.
+ *
+ * <p>The period of every client is learned from when its calls arrive. Once a client's calls have arrived at a steady
+ * period a few times, a collection pass is scheduled to start a bit before its next call, which is about as long as a
+ * pass has taken so far. A call is served that snapshot (even if it is still being collected) only if its collection
+ * started no longer than the max age before the call, so the data that is served is never older than that. Any other
+ * call goes through the usual path.
+ */
+public class PredictiveCollector {
+    // how many clients are remembered, the one that called the longest time ago is forgotten first
+    private static final int MAX_CLIENTS = 64;
+
+    // weight of the newest interval (or pass duration) in the moving averages
+    private static final double ALPHA = 0.3;
+
+    private final Logger LOG = LoggerFactory.getLogger(PredictiveCollector.class);
+    private final Map<Object, ClientCadence> clients = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, ClientCadence> eldest) {
+            if (size() <= MAX_CLIENTS) return false;
+
+            eldest.getValue().cancel();
+            return true;
+        }
+    };
+
+    private final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> fallback;
+    private final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader;
+    private final ScheduledExecutorService scheduler;
+    private final DefaultServerMetrics metrics;
+    private final BooleanSupplier paused;
+    private final LongSupplier nanoClock;
+    private final long maxAgeNanos;
+    private volatile Prefetch latest;
+    private double passNanos;
+
+    /**
+     * @param fallback  Function that returns the snapshot of a call that isn't served a pre-collected one
+     * @param loader    Function that collects a new snapshot
+     * @param maxAge    How long before a call the collection of the snapshot that it is served can have started
+     * @param scheduler The scheduler to start collection passes on
+     * @param paused    Returns if no pass should be started ahead of a call right now
+     * @param nanoClock The clock to use, in nanoseconds
+     * @param metrics   Metrics to record predicted calls in
+     */
+    public PredictiveCollector(
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> fallback,
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader,
+            Duration maxAge,
+            ScheduledExecutorService scheduler,
+            BooleanSupplier paused,
+            LongSupplier nanoClock,
+            DefaultServerMetrics metrics) {
+        this.maxAgeNanos = maxAge.toNanos();
+        this.paused = paused;
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+        this.fallback = fallback;
+        this.metrics = metrics;
+        this.loader = loader;
+
+        // Until a pass has been timed, start them halfway through the max age
+        this.passNanos = maxAgeNanos / 2.0;
+    }
+
+    /**
+     * Returns the snapshot for a call from the given client, which is the pre-collected one if it is fresh enough.
+     *
+     * @param client The client that made the call (like its address), or <code>null</code> if it isn't known
+     * @param token  The call's cancellation token, which is only used if the snapshot isn't pre-collected
+     */
+    public CompletableFuture<ReceiveStatsResponse> get(@Nullable Object client, CancellationToken token) {
+        final long now = nanoClock.getAsLong();
+        if (client != null) arrived(client, now);
+
+        final Prefetch prefetch = latest;
+        if (prefetch != null
+                && now - prefetch.startedAt() <= maxAgeNanos
+                && !prefetch.future().isCompletedExceptionally()) {
+            metrics.incrementPredictedCalls();
+            return prefetch.future();
+        }
+
+        return fallback.apply(token);
+    }
+
+    private void arrived(Object client, long now) {
+        synchronized (clients) {
+            final ClientCadence cadence = clients.computeIfAbsent(client, ignored -> new ClientCadence());
+            cadence.arrived(now);
+
+            final long expectedAt = cadence.expectedAt();
+            if (expectedAt == Long.MIN_VALUE) return;
+
+            // The pass has to start within the max age of the call, or the call can't be served it
+            final long lead = (long) Math.min(leadNanos(), maxAgeNanos * 0.75);
+            final long delay = expectedAt - lead - now;
+            if (delay <= 0) return;
+
+            try {
+                cadence.next = scheduler.schedule(this::prefetch, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // the server is shutting down, so there is nothing to predict anymore
+            }
+        }
+    }
+
+    private void prefetch() {
+        if (paused.getAsBoolean()) return;
+
+        final long startedAt = nanoClock.getAsLong();
+        final Prefetch current = latest;
+
+        // Clients with the same schedule would start the same pass, so they share it
+        if (current != null
+                && startedAt - current.startedAt() < maxAgeNanos / 2
+                && !current.future().isCompletedExceptionally()) return;
+
+        CompletableFuture<ReceiveStatsResponse> future;
+        try {
+            future = loader.apply(CancellationToken.NONE);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        latest = new Prefetch(future, startedAt);
+        metrics.incrementPredictiveCollections();
+
+        future.whenComplete((response, ex) -> {
+            if (ex != null) {
+                LOG.warn("Unable to pre-collect a snapshot, the next call will collect its own:", ex);
+                return;
+            }
+
+            recordPass(nanoClock.getAsLong() - startedAt);
+        });
+    }
+
+    private synchronized void recordPass(long nanos) {
+        passNanos = ALPHA * nanos + (1 - ALPHA) * passNanos;
+    }
+
+    // Starts a bit earlier than the average pass, since passes vary
+    private synchronized double leadNanos() {
+        return passNanos * 1.25 + TimeUnit.MILLISECONDS.toNanos(5);
+    }
+
+    private record Prefetch(CompletableFuture<ReceiveStatsResponse> future, long startedAt) {}
+
+    /**
+     * Settings for predictive collection.
+     *
+     * @param maxAge how long before a call the collection of the snapshot that it is served can have started
+     */
+    public record Settings(Duration maxAge) {}
+
+    // Only accessed while holding the lock of `clients`
+    private static class ClientCadence {
+        private long lastArrival = Long.MIN_VALUE;
+        private double period = -1;
+        private double deviation = 0;
+        private int intervals = 0;
+        private ScheduledFuture<?> next;
+
+        void arrived(long now) {
+            cancel();
+            if (lastArrival != Long.MIN_VALUE) {
+                final long interval = now - lastArrival;
+                if (period < 0) {
+                    period = interval;
+                } else {
+                    deviation = ALPHA * Math.abs(interval - period) + (1 - ALPHA) * deviation;
+                    period = ALPHA * interval + (1 - ALPHA) * period;
+                }
+
+                intervals++;
+            }
+
+            lastArrival = now;
+        }
+
+        // Returns when the next call is expected, or Long.MIN_VALUE if the calls haven't been
+        // steady enough to tell.
+        long expectedAt() {
+            if (intervals < 2 || deviation > period * 0.25) return Long.MIN_VALUE;
+            return lastArrival + (long) period;
+        }
+
+        void cancel() {
+            if (next != null) next.cancel(false);
+            next = null;
+        }
+    }
+}
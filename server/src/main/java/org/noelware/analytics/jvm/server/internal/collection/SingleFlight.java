@@ -0,0 +1,132 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent calls into a single execution of the given work. The first caller starts the
+ * work, and every caller that arrives before it completes attaches to the same {@link CompletableFuture}
+ * instead of starting the work again.
+ *
+ * <p>The work is only cancelled once every caller that is attached to it has been cancelled, so one
+ * collector giving up doesn't take the result away from the others.
+ *
+ * @param <T> result type, which should be immutable since every attached caller receives the same instance
+ */
+public class SingleFlight<T> {
+    private final AtomicReference<Pass<T>> inFlight = new AtomicReference<>();
+    private final Function<CancellationToken, CompletableFuture<T>> work;
+    private final Runnable onCoalesced;
+
+    /**
+     * @param work        The work to run, which should stop once the given token is cancelled
+     * @param onCoalesced Called every time a caller attaches to a pass that is already running
+     */
+    public SingleFlight(Function<CancellationToken, CompletableFuture<T>> work, Runnable onCoalesced) {
+        this.onCoalesced = onCoalesced;
+        this.work = work;
+    }
+
+    /**
+     * Runs the work, or attaches to the pass that is already running.
+     *
+     * @param token The caller's cancellation token
+     */
+    public CompletableFuture<T> execute(CancellationToken token) {
+        while (true) {
+            final Pass<T> existing = inFlight.get();
+            if (existing != null) {
+                if (existing.attach(token)) {
+                    onCoalesced.run();
+                    return existing.future;
+                }
+
+                // Everyone that was waiting on it has left, so it is being cancelled. We
+                // will start a new pass instead.
+                inFlight.compareAndSet(existing, null);
+                continue;
+            }
+
+            // The pass counts its leader as waiting before anyone can see it, so a caller that joins
+            // and leaves right away can't cancel it out from under the leader.
+            final Pass<T> pass = new Pass<>();
+            if (!inFlight.compareAndSet(null, pass)) continue;
+
+            pass.listen(token);
+
+            CompletableFuture<T> result;
+            try {
+                result = work.apply(pass.token);
+            } catch (Throwable e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+
+            result.whenComplete((value, ex) -> {
+                // The pass is cleared before it is completed, so anyone that calls #execute()
+                // after seeing the result will start a new pass.
+                inFlight.compareAndSet(pass, null);
+                if (ex != null) {
+                    pass.future.completeExceptionally(ex);
+                } else {
+                    pass.future.complete(value);
+                }
+            });
+
+            return pass.future;
+        }
+    }
+
+    private static class Pass<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final CancellationToken token = new CancellationToken();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        boolean attach(CancellationToken caller) {
+            while (true) {
+                final int current = waiters.get();
+
+                // Nobody is waiting anymore, so it can't be joined.
+                if (current == 0) return false;
+                if (waiters.compareAndSet(current, current + 1)) break;
+            }
+
+            listen(caller);
+            return true;
+        }
+
+        // Leaves the pass once the caller is cancelled, which the caller must already be counted in
+        void listen(CancellationToken caller) {
+            final Runnable detach = caller.onCancel(() -> {
+                if (waiters.decrementAndGet() == 0) token.cancel();
+            });
+
+            // The caller's token can outlive the pass (like a stream's), so the listener is removed once it's done
+            future.whenComplete((value, ex) -> detach.run());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the last collected {@link ReceiveStatsResponse} so that collectors polling the same instance
+ * don't make every extension collect its data for each request.
+ *
+ * <p>A snapshot younger than the TTL is served as-is. Once the TTL expires, the stale snapshot keeps being
+ * served (up until the max staleness) while a single background refresh collects a new one. Anything older
+ * than the max staleness is collected again before it is served.
+ */
+public class SnapshotCache {
+    private final Logger LOG = LoggerFactory.getLogger(SnapshotCache.class);
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader;
+    private final DefaultServerMetrics metrics;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoClock;
+    private final long maxStalenessNanos;
+    private final long ttlNanos;
+    private volatile Entry entry;
+
+    public SnapshotCache(
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader,
+            Duration ttl,
+            Duration maxStaleness,
+            Executor refreshExecutor,
+            LongSupplier nanoClock,
+            DefaultServerMetrics metrics) {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("TTL must be positive");
+        if (maxStaleness.compareTo(ttl) < 0)
+            throw new IllegalArgumentException("Max staleness [%s] can't be less than the TTL [%s]"
+                    .formatted(maxStaleness, ttl));
+
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.metrics = metrics;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the cached snapshot if it can still be served, otherwise collects a new one.
+     *
+     * @param token The caller's cancellation token, which is only used if a new snapshot has to be collected
+     */
+    public CompletableFuture<ReceiveStatsResponse> get(CancellationToken token) {
+        final Entry current = entry;
+        if (current != null) {
+            final long age = nanoClock.getAsLong() - current.collectedAt;
+            if (age < ttlNanos) {
+                metrics.incrementSnapshotCacheHits();
+                return CompletableFuture.completedFuture(current.response);
+            }
+
+            if (age < maxStalenessNanos) {
+                metrics.incrementSnapshotCacheStaleHits();
+                refreshInBackground();
+
+                return CompletableFuture.completedFuture(current.response);
+            }
+        }
+
+        metrics.incrementSnapshotCacheMisses();
+        return load(token);
+    }
+
+    /**
+     * Drops the cached snapshot, so the next call to {@link #get(CancellationToken)} will collect a new one.
+     */
+    public void invalidate() {
+        entry = null;
+    }
+
+    private CompletableFuture<ReceiveStatsResponse> load(CancellationToken token) {
+        // We use the time that the collection started, so the age of the snapshot
+        // is never under-reported.
+        final long startedAt = nanoClock.getAsLong();
+        final CompletableFuture<ReceiveStatsResponse> future;
+        try {
+            future = loader.apply(token);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future.thenApply(response -> {
+            entry = new Entry(response, startedAt);
+            metrics.recordSnapshotCollected(startedAt);
+
+            return response;
+        });
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) return;
+
+        try {
+            refreshExecutor.execute(() -> load(CancellationToken.NONE).whenComplete((response, ex) -> {
+                if (ex != null) {
+                    LOG.error("Unable to refresh the cached snapshot, the stale one will be served:", ex);
+                } else {
+                    metrics.incrementSnapshotCacheRefreshes();
+                }
+
+                refreshing.set(false);
+            }));
+        } catch (RejectedExecutionException e) {
+            // the server is probably shutting down, so we will just serve the stale snapshot
+            refreshing.set(false);
+        }
+    }
+
+    private record Entry(ReceiveStatsResponse response, long collectedAt) {}
+}
@@ -0,0 +1,695 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.collection;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.Value;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.ServerMetadata;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.serialization.TypedSerializable;
+import org.noelware.analytics.jvm.server.util.FieldMaskTree;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.jvm.server.util.PackedArrays;
+import org.noelware.analytics.protobufs.v1.BuildFlavour;
+import org.noelware.analytics.protobufs.v1.ExtensionReport;
+import org.noelware.analytics.protobufs.v1.ExtensionStatus;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v2.JvmStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects a full {@link ReceiveStatsResponse} snapshot by calling {@link Extension#supply()} on
+ * every registered extension.
+ *
+ * <p>Every extension is collected in parallel on the given executor, and each one has its own deadline. Once
+ * all the extensions have supplied their data (or timed out), the data is assembled in registration order, so
+ * collecting a snapshot takes about as long as the slowest extension rather than the sum of all of them.
+ *
+ * <p>An extension that throws, or times out, is reported with a null value rather than failing the whole snapshot,
+ * and every extension has its own {@link CircuitBreaker} so one that keeps failing is skipped for a while. The
+ * breaker, the cadence and the data of an extension are dropped once it's unregistered, so one that is registered
+ * under the same name after it starts over.
+ *
+ * <p>An extension that declares a {@link Extension#refreshInterval() refresh interval} (or that adaptive cadence has
+ * given one, see {@link CollectionCadence}) is only supplied once its last data is older than that, and is reported
+ * with the age of the data it last supplied in between.
+ *
+ * <p>While the server is over its CPU budget (see {@link OverheadGovernor}), extensions reuse data that is newer
+ * than the budget's window, and the ones that have to be supplied are asked for their
+ * {@link Extension#supplyReduced() reduced} data instead.
+ *
+ * <p>Once the pass' {@link CancellationToken} is cancelled, the remaining extensions aren't scheduled and the ones that
+ * are still running are interrupted, and the pass completes with a {@link CancellationException}.
+ *
+ * <p>A {@link Extension#isStatic() static} extension is only supplied until it succeeds once, and the metadata fields are
+ * only encoded again once they've changed, so every pass after that reuses their encoded data.
+ */
+public class StatsCollector {
+    /**
+     * The latest schema version that this server can collect snapshots in.
+     */
+    public static final int LATEST_SCHEMA_VERSION = 2;
+
+    private static final Value NULL_VALUE =
+            Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+
+    private final Logger LOG = LoggerFactory.getLogger(StatsCollector.class);
+    private final ExtensionRegistry extensions;
+    private final ServerMetadata metadata;
+    private final ConcurrentHashMap<String, ExtensionState> states = new ConcurrentHashMap<>();
+    private final CollectionCadence.Settings cadenceSettings;
+    private final CircuitBreaker.Settings breakerSettings;
+    private final OverheadGovernor governor;
+    private final ExtensionCostRecorder costs;
+    private final DefaultServerMetrics metrics;
+    private final ExecutorService executor;
+    private final Duration defaultDeadline;
+    private final LongSupplier nanoClock;
+    private volatile List<Extension<?>> registered = List.of();
+    private volatile MetadataHeader header = null;
+
+    public StatsCollector(
+            ExtensionRegistry extensions,
+            ServerMetadata metadata,
+            ExecutorService executor,
+            Duration defaultDeadline,
+            CircuitBreaker.Settings breakerSettings,
+            @Nullable CollectionCadence.Settings cadenceSettings,
+            @Nullable OverheadGovernor governor,
+            @Nullable ExtensionCostRecorder costs,
+            LongSupplier nanoClock,
+            DefaultServerMetrics metrics) {
+        this.cadenceSettings = cadenceSettings;
+        this.governor = governor;
+        this.costs = costs;
+        this.breakerSettings = breakerSettings;
+        this.metrics = metrics;
+        this.defaultDeadline = defaultDeadline;
+        this.extensions = extensions;
+        this.nanoClock = nanoClock;
+        this.executor = executor;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Collects a new snapshot from all the registered extensions.
+     *
+     * @param token cancellation token of this pass
+     */
+    public CompletableFuture<ReceiveStatsResponse> collect(CancellationToken token) {
+        return collect(token, ExtensionSelection.ALL, 1);
+    }
+
+    /**
+     * Collects a new snapshot from the extensions that were selected. Any other extension is never called.
+     *
+     * @param token         cancellation token of this pass
+     * @param selection     which extensions (and which paths of their data) to collect
+     * @param schemaVersion schema version to collect the snapshot in, see {@link #negotiateSchemaVersion(int)}
+     */
+    public CompletableFuture<ReceiveStatsResponse> collect(
+            CancellationToken token, ExtensionSelection selection, int schemaVersion) {
+        return collect(token, selection, schemaVersion, false);
+    }
+
+    /**
+     * Collects a new snapshot from all the registered extensions, with its <code>data</code> already encoded. The
+     * data is written with a {@link StatsWriter} and kept as the unknown field of <code>data</code>, so it is sent
+     * as-is and clients parse it like any other snapshot, but {@link ReceiveStatsResponse#getData()} is empty on
+     * this side.
+     *
+     * @param token         cancellation token of this pass
+     * @param schemaVersion schema version to collect the snapshot in, see {@link #negotiateSchemaVersion(int)}
+     */
+    public CompletableFuture<ReceiveStatsResponse> collectEncoded(CancellationToken token, int schemaVersion) {
+        return collect(token, ExtensionSelection.ALL, schemaVersion, true);
+    }
+
+    private CompletableFuture<ReceiveStatsResponse> collect(
+            CancellationToken token, ExtensionSelection selection, int schemaVersion, boolean preEncode) {
+        final List<Extension<?>> registered = this.extensions.extensions();
+        forgetUnregistered(registered);
+
+        final List<Extension<?>> extensions = selection == ExtensionSelection.ALL
+                ? registered
+                : registered.stream()
+                        .filter(extension -> selection.includes(extension.name()))
+                        .toList();
+
+        LOG.debug("Ingesting data from {} extensions...", extensions.size());
+
+        final Instant now = Instant.now();
+        final long startedAt = nanoClock.getAsLong();
+        final boolean overBudget = governor != null && governor.isOverBudget();
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<ExtensionResult>[] results = new CompletableFuture[extensions.size()];
+        for (int i = 0; i < results.length; i++) {
+            if (token.isCancelled()) {
+                // Nobody is waiting for this pass anymore, so don't bother with the rest.
+                metrics.incrementAbandonedExtensionCalls(results.length - i);
+                return CompletableFuture.failedFuture(new CancellationException("Collection pass was cancelled"));
+            }
+
+            results[i] = collect(extensions.get(i), token, selection, schemaVersion, preEncode, overBudget);
+        }
+
+        return CompletableFuture.allOf(results).thenApply(ignored -> {
+            if (token.isCancelled()) throw new CancellationException("Collection pass was cancelled");
+
+            final CpuStopwatch cpu = governor != null ? governor.startMeasuring() : null;
+
+            final MetadataHeader header = metadataHeader();
+            final ReceiveStatsResponse.Builder resp = ReceiveStatsResponse.newBuilder();
+            if (!preEncode) resp.mergeFrom(header.message());
+
+            resp.setSnapshotDate(Timestamp.newBuilder()
+                    .setSeconds(now.getEpochSecond())
+                    .setNanos(now.getNano())
+                    .build());
+
+            // With v2, the typed fields are always there, even if no extension has written into them
+            if (schemaVersion >= 2) resp.setJvm(JvmStats.getDefaultInstance());
+
+            final Struct.Builder data = Struct.newBuilder();
+            final List<ExtensionResult> encoded = new ArrayList<>(preEncode ? results.length : 0);
+            for (CompletableFuture<ExtensionResult> future : results) {
+                // all of them are done at this point, so this doesn't block.
+                final ExtensionResult result = future.join();
+                if (result.typed() != null) {
+                    resp.mergeFrom(result.typed());
+                } else if (preEncode) {
+                    encoded.add(result);
+                } else {
+                    data.putFields(result.name(), result.value());
+                }
+
+                final ExtensionReport.Builder report =
+                        ExtensionReport.newBuilder().setName(result.name()).setStatus(result.status());
+
+                if (result.error() != null) report.setError(result.error());
+                if (result.ageNanos() > 0) report.setSampleAgeMillis(TimeUnit.NANOSECONDS.toMillis(result.ageNanos()));
+                if (result.reduced()) report.setReduced(true);
+                resp.addExtensions(report.build());
+            }
+
+            resp.setSchemaVersion(schemaVersion);
+            if (overBudget) resp.setOverBudget(true);
+
+            if (preEncode) {
+                // The metadata fields are spliced in as they were encoded, next to the data
+                resp.setUnknownFields(UnknownFieldSet.newBuilder(header.encoded())
+                        .addField(
+                                ReceiveStatsResponse.DATA_FIELD_NUMBER,
+                                UnknownFieldSet.Field.newBuilder()
+                                        .addLengthDelimited(encodeData(encoded))
+                                        .build())
+                        .build());
+            } else {
+                resp.setData(data.build());
+            }
+
+            final long tookNanos = nanoClock.getAsLong() - startedAt;
+            resp.setCollectionDuration(com.google.protobuf.Duration.newBuilder()
+                    .setSeconds(tookNanos / 1_000_000_000L)
+                    .setNanos((int) (tookNanos % 1_000_000_000L)));
+
+            final ReceiveStatsResponse built = resp.build();
+            if (cpu != null) governor.record(cpu.cpuOrElapsedNanos());
+
+            return built;
+        });
+    }
+
+    // Writes the results as a google.protobuf.Struct, where every field is a map entry with the
+    // name as its key and the already encoded value as its value. The sizes are all known upfront,
+    // so this is written in one go.
+    private static ByteString encodeData(List<ExtensionResult> results) {
+        int size = 0;
+        final int[] entrySizes = new int[results.size()];
+        for (int i = 0; i < entrySizes.length; i++) {
+            final ExtensionResult result = results.get(i);
+            entrySizes[i] = CodedOutputStream.computeStringSize(1, result.name())
+                    + CodedOutputStream.computeBytesSize(2, encodedValue(result));
+
+            size += CodedOutputStream.computeTagSize(1)
+                    + CodedOutputStream.computeUInt32SizeNoTag(entrySizes[i])
+                    + entrySizes[i];
+        }
+
+        final byte[] bytes = new byte[size];
+        final CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            for (int i = 0; i < entrySizes.length; i++) {
+                final ExtensionResult result = results.get(i);
+                output.writeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(entrySizes[i]);
+                output.writeString(1, result.name());
+                output.writeBytes(2, encodedValue(result));
+            }
+
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // It's written into an array of the exact size, so this can't happen.
+            throw new IllegalStateException(e);
+        }
+
+        // Nothing else has a reference to the array, so it doesn't need to be copied.
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * Returns the <code>data</code> of the given snapshot, which is parsed back out of its bytes if the snapshot
+     * was {@link #collectEncoded(CancellationToken, int) pre-encoded}.
+     *
+     * @param snapshot snapshot to return the data of
+     * @throws IllegalStateException if the pre-encoded data isn't a valid struct
+     */
+    public static Struct dataOf(ReceiveStatsResponse snapshot) {
+        if (snapshot.hasData()) return snapshot.getData();
+
+        final UnknownFieldSet.Field field = snapshot.getUnknownFields().getField(ReceiveStatsResponse.DATA_FIELD_NUMBER);
+        if (field.getLengthDelimitedList().isEmpty()) return Struct.getDefaultInstance();
+
+        try {
+            return Struct.parseFrom(field.getLengthDelimitedList().get(0));
+        } catch (IOException e) {
+            throw new IllegalStateException("Pre-encoded data of the snapshot isn't a valid struct", e);
+        }
+    }
+
+    /**
+     * Returns a builder of the given snapshot without its <code>data</code>, whether it was pre-encoded or not. Anything
+     * else that was pre-encoded is kept.
+     *
+     * @param snapshot snapshot to remove the data from
+     */
+    public static ReceiveStatsResponse.Builder withoutData(ReceiveStatsResponse snapshot) {
+        final UnknownFieldSet unknownFields = UnknownFieldSet.newBuilder(snapshot.getUnknownFields())
+                .clearField(ReceiveStatsResponse.DATA_FIELD_NUMBER)
+                .build();
+
+        return snapshot.toBuilder().clearData().setUnknownFields(unknownFields);
+    }
+
+    // How big the extension's data is on the wire, in whichever form it is sent.
+    private static long encodedSize(ExtensionResult result) {
+        if (result.typed() != null) return result.typed().getSerializedSize();
+        if (result.encoded() != null) return result.encoded().size();
+
+        return result.value().getSerializedSize();
+    }
+
+    private static ByteString encodedValue(ExtensionResult result) {
+        return result.encoded() != null ? result.encoded() : result.value().toByteString();
+    }
+
+    /**
+     * Returns the schema version to use for a client that understands up to the given version. Both
+     * <code>0</code> (a client that doesn't know about schema versions) and <code>1</code> get v1.
+     */
+    public static int negotiateSchemaVersion(int maxSchemaVersion) {
+        // it's an uint32 on the wire, so anything over Integer.MAX_VALUE shows up as negative here
+        if (Integer.compareUnsigned(maxSchemaVersion, LATEST_SCHEMA_VERSION) >= 0) return LATEST_SCHEMA_VERSION;
+        return Math.max(1, maxSchemaVersion);
+    }
+
+    private CompletableFuture<ExtensionResult> collect(
+            Extension<?> extension,
+            CancellationToken token,
+            ExtensionSelection selection,
+            int schemaVersion,
+            boolean preEncode,
+            boolean overBudget) {
+        final String name = extension.name();
+        final ExtensionState state = state(extension);
+        final CollectionCadence cadence = state.cadence;
+
+        final Memo memo = state.memo;
+        if (memo != null) {
+            final long age = nanoClock.getAsLong() - memo.suppliedAt();
+            if (extension.isStatic())
+                return CompletableFuture.completedFuture(memo.data().toResult(selection, schemaVersion, preEncode, 0));
+
+            // Over the budget, the extension's cadence is lowered to once per window
+            if (age < cadence.intervalNanos(extension.refreshInterval())
+                    || (overBudget && age < governor.window().toNanos()))
+                return CompletableFuture.completedFuture(
+                        memo.data().toResult(selection, schemaVersion, preEncode, age));
+        }
+
+        final CircuitBreaker breaker = state.breaker;
+        if (!breaker.tryAcquire(nanoClock.getAsLong())) {
+            return CompletableFuture.completedFuture(new ExtensionResult(
+                    name,
+                    NULL_VALUE,
+                    ExtensionStatus.SKIPPED,
+                    "circuit breaker is open for another %s"
+                            .formatted(breaker.remainingCoolDown(nanoClock.getAsLong())),
+                    null,
+                    null,
+                    0,
+                    false));
+        }
+
+        final Duration deadline = extension.deadline() != null ? extension.deadline() : defaultDeadline;
+        final CompletableFuture<ExtensionResult> result = new CompletableFuture<>();
+        final Future<?> task = executor.submit(() -> {
+            // The pass could've been cancelled while this was waiting on the executor
+            if (token.isCancelled()) return;
+
+            final long startedAt = nanoClock.getAsLong();
+            final CpuStopwatch cpu = governor != null ? governor.startMeasuring() : null;
+            final CpuStopwatch costCpu = costs != null ? costs.startMeasuring() : null;
+            final long allocatedBefore = costs != null ? costs.allocatedBytes() : -1;
+            try {
+                // GrpcValueUtil#toValue (with the selection's mask) is done here too, so a payload that
+                // can't be serialized only fails this extension. A static extension is only supplied
+                // once, so it is never reduced.
+                final boolean reduce = overBudget && !extension.isStatic();
+                final Object payload = reduce ? extension.supplyReduced() : extension.supply();
+                final long suppliedAt = nanoClock.getAsLong();
+                final long supplyCpuNanos = costCpu != null ? costCpu.cpuNanos() : -1;
+                final long allocatedBytes = costs != null ? costs.allocatedSince(allocatedBefore) : -1;
+                cadence.recordCost(suppliedAt - startedAt);
+
+                final SuppliedData data = reduce
+                        ? new SuppliedData(extension, payload, true)
+                        : remember(state, new SuppliedData(extension, payload, false), suppliedAt);
+
+                final ExtensionResult supplied = data.toResult(selection, schemaVersion, preEncode, 0);
+                final long finishedAt = nanoClock.getAsLong();
+                if (costs != null) {
+                    costs.record(
+                            name,
+                            suppliedAt - startedAt,
+                            supplyCpuNanos,
+                            allocatedBytes,
+                            encodedSize(supplied));
+                }
+
+                if (reduce) metrics.incrementReducedExtensionCalls();
+
+                // The breaker is updated before the result is completed, so the next pass always sees
+                // it. If the deadline was already reached, the timeout has been recorded instead.
+                if (result.isDone()) return;
+                breaker.onSuccess(finishedAt - startedAt, finishedAt);
+                result.complete(supplied);
+            } catch (Throwable e) {
+                if (result.isDone()) return;
+
+                LOG.error("Extension [{}] failed to supply its data, reporting it as null:", name, e);
+                breaker.onFailure(nanoClock.getAsLong());
+                result.complete(new ExtensionResult(
+                        name, NULL_VALUE, ExtensionStatus.FAILED, summarize(e), null, null, 0, false));
+            } finally {
+                if (cpu != null) governor.record(cpu.cpuOrElapsedNanos());
+            }
+        });
+
+        final Runnable unregister = token.onCancel(() -> {
+            if (result.complete(new ExtensionResult(
+                    name,
+                    NULL_VALUE,
+                    ExtensionStatus.CANCELLED,
+                    "call was cancelled before it supplied its data",
+                    null,
+                    null,
+                    0,
+                    false))) {
+                metrics.incrementAbandonedExtensionCalls(1);
+                breaker.onAbandoned(nanoClock.getAsLong());
+                task.cancel(true);
+            }
+        });
+
+        final ExtensionResult timedOut = new ExtensionResult(
+                name,
+                NULL_VALUE,
+                ExtensionStatus.TIMEOUT,
+                "didn't supply its data within %s".formatted(deadline),
+                null,
+                null,
+                0,
+                false);
+
+        return result.completeOnTimeout(timedOut, deadline.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((value, ex) -> {
+                    // The token can outlive the pass, so its listener would keep this extension's result around
+                    unregister.run();
+                    if (value == timedOut) {
+                        LOG.warn("Extension [{}] didn't supply its data within {}, reporting it as null", name, deadline);
+                        breaker.onFailure(nanoClock.getAsLong());
+
+                        // interrupt it, in case the extension is waiting on something
+                        task.cancel(true);
+                    }
+                });
+    }
+
+    private ExtensionState state(Extension<?> extension) {
+        final ExtensionState state = states.get(extension.name());
+        if (state != null && state.extension == extension) return state;
+
+        return states.compute(extension.name(), (ignored, existing) -> {
+            if (existing != null && existing.extension == extension) return existing;
+
+            return new ExtensionState(
+                    extension, new CircuitBreaker(breakerSettings), new CollectionCadence(cadenceSettings));
+        });
+    }
+
+    // Drops what was kept for the extensions that were unregistered, once the registry has changed. A pass
+    // that was still running when they were could have kept one again, so this is also done while there
+    // are more of them than extensions.
+    private void forgetUnregistered(List<Extension<?>> extensions) {
+        if (extensions == registered && states.size() <= extensions.size()) return;
+
+        final Set<Extension<?>> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(extensions);
+        states.values().removeIf(state -> !current.contains(state.extension));
+        registered = extensions;
+    }
+
+    // Keeps the data for the next passes, if they can reuse it. A static extension keeps the data that
+    // it supplied first, in case two passes raced to supply it.
+    private SuppliedData remember(ExtensionState state, SuppliedData data, long suppliedAt) {
+        if (state.extension.isStatic()) {
+            synchronized (state) {
+                if (state.memo == null) state.memo = new Memo(data, suppliedAt);
+                return state.memo.data();
+            }
+        }
+
+        if (state.extension.refreshInterval() != null || cadenceSettings != null || governor != null) {
+            state.memo = new Memo(data, suppliedAt);
+        }
+
+        return data;
+    }
+
+    private static String summarize(Throwable e) {
+        final String summary = e.getMessage() == null
+                ? e.getClass().getName()
+                : "%s: %s".formatted(e.getClass().getName(), e.getMessage());
+
+        return summary.length() > 256 ? summary.substring(0, 256) : summary;
+    }
+
+    // The metadata rarely (if ever) changes after the server has started, so its fields are only
+    // encoded again once one of them isn't the same object anymore.
+    private MetadataHeader metadataHeader() {
+        final BuildFlavour flavour = metadata.distributionType();
+        final String commitHash = metadata.commitHash();
+        final String buildDate = metadata.buildDate();
+        final String product = metadata.product();
+        final String version = metadata.version();
+
+        final MetadataHeader header = this.header;
+        if (header != null
+                && header.flavour() == flavour
+                && header.commitHash() == commitHash
+                && header.buildDate() == buildDate
+                && header.product() == product
+                && header.version() == version) return header;
+
+        // The builder's setters don't accept nulls or UNRECOGNIZED, so only set
+        // what the product has given us.
+        final ReceiveStatsResponse.Builder resp = ReceiveStatsResponse.newBuilder();
+        if (flavour != BuildFlavour.UNRECOGNIZED) resp.setBuildFlavour(flavour);
+        if (commitHash != null) resp.setCommitSha(commitHash);
+        if (buildDate != null) resp.setBuildDate(buildDate);
+
+        resp.setProduct(product);
+        resp.setVersion(version);
+
+        final ReceiveStatsResponse message = resp.build();
+        final MetadataHeader created;
+        try {
+            created = new MetadataHeader(
+                    flavour,
+                    commitHash,
+                    buildDate,
+                    product,
+                    version,
+                    message,
+                    UnknownFieldSet.parseFrom(message.toByteString()));
+        } catch (IOException e) {
+            // It was just encoded from a valid message, so this can't happen.
+            throw new IllegalStateException(e);
+        }
+
+        this.header = created;
+        return created;
+    }
+
+    private record MetadataHeader(
+            BuildFlavour flavour,
+            @Nullable String commitHash,
+            @Nullable String buildDate,
+            String product,
+            String version,
+            ReceiveStatsResponse message,
+            UnknownFieldSet encoded) {}
+
+    // The data that an extension has supplied. Every form that it can be sent in is only created
+    // once it's needed, and kept, so a static extension's data is only converted (or encoded) once.
+    private static class SuppliedData {
+        private final String name;
+        private final Object payload;
+        private final boolean reduced;
+        private volatile ReceiveStatsResponse typed = null;
+        private volatile ByteString encoded = null;
+        private volatile Value value = null;
+
+        SuppliedData(Extension<?> extension, Object payload, boolean reduced) {
+            this.name = extension.name();
+            this.payload = payload;
+            this.reduced = reduced;
+        }
+
+        ExtensionResult toResult(ExtensionSelection selection, int schemaVersion, boolean preEncode, long ageNanos) {
+            // With v2, data that has a typed form (or a primitive array) is written into a
+            // partial response that is merged into the snapshot, rather than being converted
+            // to a Value.
+            if (schemaVersion >= 2 && (payload instanceof TypedSerializable || PackedArrays.isPackable(payload))) {
+                if (typed == null) typed = createTyped();
+                return new ExtensionResult(name, NULL_VALUE, ExtensionStatus.OK, null, typed, null, ageNanos, reduced);
+            }
+
+            // Only the data with every field is kept, what a mask leaves out is never built
+            final FieldMaskTree mask = selection.mask(name);
+            if (preEncode) {
+                final ByteString bytes;
+                if (mask != null) {
+                    bytes = new StatsWriter().mask(mask).value(payload).toByteString();
+                } else {
+                    if (encoded == null) encoded = new StatsWriter().value(payload).toByteString();
+                    bytes = encoded;
+                }
+
+                return new ExtensionResult(name, NULL_VALUE, ExtensionStatus.OK, null, null, bytes, ageNanos, reduced);
+            }
+
+            final Value converted;
+            if (mask == null) {
+                if (value == null) value = GrpcValueUtil.toValue(payload);
+                converted = value;
+            } else {
+                // If it was already converted, trimming it is cheaper than converting it again
+                final Value full = value;
+                converted = full != null ? mask.project(full) : GrpcValueUtil.toValue(payload, mask);
+            }
+
+            return new ExtensionResult(name, converted, ExtensionStatus.OK, null, null, null, ageNanos, reduced);
+        }
+
+        private ReceiveStatsResponse createTyped() {
+            if (payload instanceof TypedSerializable serializable) {
+                final JvmStats.Builder stats = JvmStats.newBuilder();
+                serializable.writeTo(stats);
+
+                return ReceiveStatsResponse.newBuilder().setJvm(stats).build();
+            }
+
+            return ReceiveStatsResponse.newBuilder()
+                    .putArrays(name, PackedArrays.toProto(payload))
+                    .build();
+        }
+    }
+
+    private record ExtensionResult(
+            String name,
+            Value value,
+            ExtensionStatus status,
+            String error,
+            @Nullable ReceiveStatsResponse typed,
+            @Nullable ByteString encoded,
+            long ageNanos,
+            boolean reduced) {}
+
+    // data that an extension has supplied, and when
+    private record Memo(SuppliedData data, long suppliedAt) {}
+
+    // What is kept for a registered extension. It's looked up by name, but belongs to that instance of the
+    // extension, so another one that is registered under the same name doesn't get its breaker or its data.
+    private static class ExtensionState {
+        private final Extension<?> extension;
+        private final CircuitBreaker breaker;
+        private final CollectionCadence cadence;
+        private volatile Memo memo = null;
+
+        ExtensionState(Extension<?> extension, CircuitBreaker breaker, CollectionCadence cadence) {
+            this.extension = extension;
+            this.breaker = breaker;
+            this.cadence = cadence;
+        }
+    }
+}
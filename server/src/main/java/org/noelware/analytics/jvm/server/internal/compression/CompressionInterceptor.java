@@ -0,0 +1,94 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.compression;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.*;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the interceptor that picks which codec the responses of a call are compressed with. A client can
+ * ask for a codec with the <code>analytics-compression</code> header, otherwise the codec configured for the
+ * RPC (or the default one) is used. Responses smaller than the threshold are always sent uncompressed, since
+ * compressing a few bytes only makes them bigger.
+ */
+public class CompressionInterceptor implements ServerInterceptor {
+    public static final Metadata.Key<String> COMPRESSION_META_KEY =
+            Metadata.Key.of("analytics-compression", ASCII_STRING_MARSHALLER);
+
+    private final Map<String, String> methodCodecs;
+    private final Set<String> knownCodecs;
+    private final String defaultCodec;
+    private final int threshold;
+
+    /**
+     * @param defaultCodec the codec of every RPC that isn't in <code>methodCodecs</code>, <code>null</code> to not compress them
+     * @param methodCodecs codec of each RPC, keyed by its name (like <code>RetrieveStats</code>)
+     * @param knownCodecs  every codec that the server's compressor registry has
+     * @param threshold    how big (in bytes) a response has to be before it is compressed
+     */
+    public CompressionInterceptor(
+            @Nullable String defaultCodec, Map<String, String> methodCodecs, Set<String> knownCodecs, int threshold) {
+        this.methodCodecs = Map.copyOf(methodCodecs);
+        this.knownCodecs = Set.copyOf(knownCodecs);
+        this.defaultCodec = defaultCodec;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        final String codec =
+                codecFor(call.getMethodDescriptor().getBareMethodName(), headers.get(COMPRESSION_META_KEY));
+        if (codec == null || codec.equals("identity")) return next.startCall(call, headers);
+
+        // If the client didn't advertise this codec, gRPC sends the responses uncompressed.
+        call.setCompression(codec);
+        return next.startCall(
+                new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                    @Override
+                    public void sendMessage(RespT message) {
+                        // The serialized size is memoized by the message, so this doesn't cost
+                        // anything that gRPC wouldn't do on its own when it is sent.
+                        setMessageCompression(
+                                !(message instanceof MessageLite lite) || lite.getSerializedSize() >= threshold);
+
+                        super.sendMessage(message);
+                    }
+                },
+                headers);
+    }
+
+    private @Nullable String codecFor(@Nullable String method, @Nullable String requested) {
+        if (requested != null && (requested.equals("identity") || knownCodecs.contains(requested)))
+            return requested;
+        if (method != null && methodCodecs.containsKey(method)) return methodCodecs.get(method);
+
+        return defaultCodec;
+    }
+}
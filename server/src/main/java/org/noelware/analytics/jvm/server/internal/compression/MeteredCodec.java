@@ -0,0 +1,145 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.compression;
+
+import io.grpc.Codec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+
+/**
+ * Represents a {@link Codec} that records how many bytes went in and out of every message it compressed, and
+ * how long it took, into the server's metrics.
+ */
+public class MeteredCodec implements Codec {
+    private final DefaultServerMetrics metrics;
+    private final Codec delegate;
+
+    public MeteredCodec(Codec delegate, DefaultServerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getMessageEncoding() {
+        return delegate.getMessageEncoding();
+    }
+
+    @Override
+    public OutputStream compress(OutputStream os) throws IOException {
+        final long start = System.nanoTime();
+        final CountingOutputStream sink = new CountingOutputStream(os);
+        final OutputStream compressing = delegate.compress(sink);
+
+        return new MeteredOutputStream(compressing, sink, System.nanoTime() - start);
+    }
+
+    @Override
+    public InputStream decompress(InputStream is) throws IOException {
+        return delegate.decompress(is);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // gRPC writes the whole message and then closes the stream, so the time is only
+    // what is spent inside of it (and not in between writes).
+    private class MeteredOutputStream extends OutputStream {
+        private final CountingOutputStream sink;
+        private final OutputStream out;
+        private boolean closed = false;
+        private long written = 0;
+        private long nanos;
+
+        MeteredOutputStream(OutputStream out, CountingOutputStream sink, long nanos) {
+            this.sink = sink;
+            this.nanos = nanos;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            final long start = System.nanoTime();
+            out.write(b);
+
+            nanos += System.nanoTime() - start;
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final long start = System.nanoTime();
+            out.write(b, off, len);
+
+            nanos += System.nanoTime() - start;
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+
+            final long start = System.nanoTime();
+            out.close();
+
+            nanos += System.nanoTime() - start;
+            metrics.recordCompression(written, sink.count, nanos);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.delta;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.noelware.analytics.protobufs.v1.FieldChange;
+import org.noelware.analytics.protobufs.v1.FieldPath;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.SnapshotDelta;
+
+/**
+ * Turns full snapshots into delta (or "not modified") responses against the snapshot that the client already holds.
+ *
+ * <p>Every response carries the version of the snapshot that the client will hold after applying it, and the encoder
+ * remembers the last few of them. Since a number that stayed within the client's deadband isn't sent, what the client
+ * holds can differ from what was collected, so the encoder remembers the client's view rather than the collected
+ * snapshot, and the version is a hash of that view.
+ */
+public class DeltaEncoder {
+    private final Map<Long, Struct> views;
+    private volatile Versioned last;
+
+    /**
+     * @param maxVersions How many versions are remembered, a client holding an older one receives a full snapshot
+     */
+    public DeltaEncoder(int maxVersions) {
+        this.views = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Struct> eldest) {
+                return size() > maxVersions;
+            }
+        };
+    }
+
+    /**
+     * Encodes the given snapshot for the given request.
+     *
+     * @param request  The request that the client sent
+     * @param snapshot The full snapshot that was collected
+     */
+    public ReceiveStatsResponse encode(ReceiveStatsRequest request, ReceiveStatsResponse snapshot) {
+        final Struct base = request.hasKnownVersion() ? remembered(request.getKnownVersion()) : null;
+        if (base == null) {
+            final long version = versionOf(snapshot.getData());
+            remember(version, snapshot.getData());
+
+            return snapshot.toBuilder().setSnapshotVersion(version).build();
+        }
+
+        final double deadband = request.hasDeadband() ? request.getDeadband() : 0;
+        final SnapshotDelta.Builder delta = SnapshotDelta.newBuilder();
+        final Struct view = diff(new ArrayList<>(), base, snapshot.getData(), deadband, delta);
+
+        final ReceiveStatsResponse.Builder response = snapshot.toBuilder().clearData();
+        if (delta.getChangedCount() == 0 && delta.getRemovedCount() == 0) {
+            return response.setSnapshotVersion(request.getKnownVersion())
+                    .setNotModified(true)
+                    .build();
+        }
+
+        final long version = versionOf(view);
+        remember(version, view);
+
+        return response.setSnapshotVersion(version)
+                .setBaseVersion(request.getKnownVersion())
+                .setDelta(delta)
+                .build();
+    }
+
+    // Diffs the two structs, records the changes in the delta, and returns what the client
+    // will hold after applying them.
+    private static Struct diff(
+            List<String> path, Struct old, Struct current, double deadband, SnapshotDelta.Builder delta) {
+        final Struct.Builder view = Struct.newBuilder();
+        for (Map.Entry<String, Value> field : current.getFieldsMap().entrySet()) {
+            path.add(field.getKey());
+
+            final Value previous = old.getFieldsMap().get(field.getKey());
+            final Value value = field.getValue();
+            if (previous == null) {
+                delta.addChanged(FieldChange.newBuilder().addAllPath(path).setValue(value));
+                view.putFields(field.getKey(), value);
+            } else if (previous.hasStructValue() && value.hasStructValue()) {
+                view.putFields(
+                        field.getKey(),
+                        Value.newBuilder()
+                                .setStructValue(diff(
+                                        path, previous.getStructValue(), value.getStructValue(), deadband, delta))
+                                .build());
+            } else if (previous.equals(value) || withinDeadband(previous, value, deadband)) {
+                view.putFields(field.getKey(), previous);
+            } else {
+                delta.addChanged(FieldChange.newBuilder().addAllPath(path).setValue(value));
+                view.putFields(field.getKey(), value);
+            }
+
+            path.remove(path.size() - 1);
+        }
+
+        for (String key : old.getFieldsMap().keySet()) {
+            if (current.containsFields(key)) continue;
+
+            path.add(key);
+            delta.addRemoved(FieldPath.newBuilder().addAllPath(path));
+            path.remove(path.size() - 1);
+        }
+
+        return view.build();
+    }
+
+    private static boolean withinDeadband(Value previous, Value value, double deadband) {
+        if (deadband <= 0 || !previous.hasNumberValue() || !value.hasNumberValue()) return false;
+
+        final double old = previous.getNumberValue();
+        if (old == 0) return false;
+
+        return Math.abs(value.getNumberValue() - old) <= Math.abs(old) * deadband;
+    }
+
+    private Struct remembered(long version) {
+        synchronized (views) {
+            return views.get(version);
+        }
+    }
+
+    private void remember(long version, Struct view) {
+        synchronized (views) {
+            views.put(version, view);
+        }
+    }
+
+    // The snapshot cache hands out the same snapshot many times, so the last version is kept
+    // to not hash it again on every call.
+    private long versionOf(Struct data) {
+        final Versioned last = this.last;
+        if (last != null && last.data == data) return last.version;
+
+        final long version = hash(data);
+        this.last = new Versioned(data, version);
+        return version;
+    }
+
+    // FNV-1a over the deterministic encoding of the struct, so that equal structs always
+    // have the same version. 0 is reserved for "not supported", so it is never returned.
+    private static long hash(Struct data) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.getSerializedSize());
+        try {
+            final CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            output.useDeterministicSerialization();
+            data.writeTo(output);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes.toByteArray()) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+
+    private record Versioned(Struct data, long version) {}
+}
@@ -0,0 +1,143 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.dictionary;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.HashMap;
+import java.util.Map;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v2.DictList;
+import org.noelware.analytics.protobufs.v2.DictStruct;
+import org.noelware.analytics.protobufs.v2.DictValue;
+import org.noelware.analytics.protobufs.v2.StringDictionary;
+
+/**
+ * Turns the <code>data</code> of a snapshot into <code>dictionaryData</code>, where every key (and most strings) are
+ * sent as an id in a string dictionary rather than as-is. Only the strings that the dictionary didn't have yet are sent
+ * along with a snapshot, so a dictionary that is kept for a whole <code>StreamStats</code> call only sends the keys of
+ * the data once.
+ *
+ * <p>This isn't thread-safe, and snapshots have to be encoded in the order that they're sent in.
+ */
+public class DictionaryEncoder {
+    /**
+     * Strings longer than this are sent as-is, since they're unlikely to be sent again.
+     */
+    public static final int MAX_STRING_LENGTH = 256;
+
+    /**
+     * How many strings a dictionary can hold before it is started over, which is sent as an <code>offset</code> of
+     * <code>0</code>.
+     */
+    public static final int MAX_STRINGS = 65_536;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private StringDictionary.Builder additions = StringDictionary.newBuilder();
+
+    /**
+     * Returns the given snapshot with its data dictionary encoded, or as it is if it doesn't have any data (like a
+     * delta or "not modified" response).
+     *
+     * @param snapshot snapshot to encode
+     */
+    public ReceiveStatsResponse encode(ReceiveStatsResponse snapshot) {
+        if (snapshot.getNotModified() || snapshot.hasBaseVersion()) return snapshot;
+
+        final Struct data = StatsCollector.dataOf(snapshot);
+
+        // Thread names (and the like) keep changing, so the dictionary would grow forever otherwise
+        if (ids.size() >= MAX_STRINGS) ids.clear();
+        additions.setOffset(ids.size());
+
+        final DictValue encoded =
+                DictValue.newBuilder().setStructValue(encode(data)).build();
+
+        final StringDictionary dictionary = additions.build();
+        additions = StringDictionary.newBuilder();
+
+        return StatsCollector.withoutData(snapshot)
+                .setDictionary(dictionary)
+                .setDictionaryData(encoded)
+                .build();
+    }
+
+    private DictStruct encode(Struct struct) {
+        final DictStruct.Builder builder = DictStruct.newBuilder();
+        for (Map.Entry<String, Value> field : struct.getFieldsMap().entrySet()) {
+            builder.addKeys(idOf(field.getKey()));
+            builder.addValues(encode(field.getValue()));
+        }
+
+        return builder.build();
+    }
+
+    private DictValue encode(Value value) {
+        return switch (value.getKindCase()) {
+            case NUMBER_VALUE -> DictValue.newBuilder()
+                    .setNumberValue(value.getNumberValue())
+                    .build();
+
+            case STRING_VALUE -> value.getStringValue().length() > MAX_STRING_LENGTH
+                    ? DictValue.newBuilder()
+                            .setStringValue(value.getStringValue())
+                            .build()
+                    : DictValue.newBuilder()
+                            .setStringId(idOf(value.getStringValue()))
+                            .build();
+
+            case BOOL_VALUE -> DictValue.newBuilder()
+                    .setBoolValue(value.getBoolValue())
+                    .build();
+
+            case STRUCT_VALUE -> DictValue.newBuilder()
+                    .setStructValue(encode(value.getStructValue()))
+                    .build();
+
+            case LIST_VALUE -> {
+                final ListValue list = value.getListValue();
+                final DictList.Builder builder = DictList.newBuilder();
+                for (Value element : list.getValuesList()) builder.addValues(encode(element));
+
+                yield DictValue.newBuilder().setListValue(builder).build();
+            }
+
+            default -> DictValue.newBuilder().setNullValue(true).build();
+        };
+    }
+
+    // Returns the id of the given string, which is added to the dictionary if it wasn't in it yet.
+    private int idOf(String string) {
+        final Integer existing = ids.get(string);
+        if (existing != null) return existing;
+
+        final int id = ids.size();
+        ids.put(string, id);
+        additions.addStrings(string);
+
+        return id;
+    }
+}
@@ -24,22 +24,18 @@
 package org.noelware.analytics.jvm.server.internal.metadata;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.noelware.analytics.jvm.server.ServerMetadata;
 import org.noelware.analytics.protobufs.v1.BuildFlavour;
 
 public class DefaultServerMetadata implements ServerMetadata {
-    private final Map<String, Object> metadata = new HashMap<>();
-
-    private final String BUILD_FLAVOUR_KEY = "build:flavour";
-    private final String COMMIT_HASH_KEY = "commit:hash";
-    private final String BUILD_DATE_KEY = "build:date";
-    private final String PRODUCT_KEY = "product";
-    private final String VERSION_KEY = "version";
-    private final String VENDOR_KEY = "vendor";
+    private volatile BuildFlavour distributionType = BuildFlavour.UNRECOGNIZED;
+    private volatile String commitHash = null;
+    private volatile String buildDate = null;
+    private volatile String product = "unknown";
+    private volatile String version = "unknown";
+    private volatile String vendor = "unknown";
 
     /**
      * Sets the {@link BuildFlavour} metadata field.
@@ -47,7 +43,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setDistributionType(@NotNull BuildFlavour flavour) {
-        metadata.put(BUILD_FLAVOUR_KEY, flavour);
+        distributionType = flavour;
     }
 
     /**
@@ -56,7 +52,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setBuildDate(@NotNull Instant date) {
-        metadata.put(BUILD_DATE_KEY, date.toString());
+        buildDate = date.toString();
     }
 
     /**
@@ -66,7 +62,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setBuildDate(@NotNull String date) {
-        metadata.put(BUILD_DATE_KEY, date);
+        buildDate = date;
     }
 
     /**
@@ -75,7 +71,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setCommitHash(@NotNull String commitHash) {
-        metadata.put(COMMIT_HASH_KEY, commitHash);
+        this.commitHash = commitHash;
     }
 
     /**
@@ -84,7 +80,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setProductName(@NotNull String productName) {
-        metadata.put(PRODUCT_KEY, productName);
+        product = productName;
     }
 
     /**
@@ -93,7 +89,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setVersion(@NotNull String version) {
-        metadata.put(VERSION_KEY, version);
+        this.version = version;
     }
 
     /**
@@ -102,7 +98,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public void setVendor(@NotNull String vendor) {
-        metadata.put(VENDOR_KEY, vendor);
+        this.vendor = vendor;
     }
 
     /**
@@ -110,7 +106,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @NotNull BuildFlavour distributionType() {
-        return (BuildFlavour) metadata.getOrDefault(BUILD_FLAVOUR_KEY, BuildFlavour.UNRECOGNIZED);
+        return distributionType;
     }
 
     /**
@@ -120,10 +116,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @Nullable String buildDate() {
-        final Object attr = metadata.getOrDefault(BUILD_DATE_KEY, null);
-        if (attr == null) return null;
-
-        return (String) attr;
+        return buildDate;
     }
 
     /**
@@ -132,10 +125,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @Nullable String commitHash() {
-        final Object attr = metadata.getOrDefault(COMMIT_HASH_KEY, null);
-        if (attr == null) return null;
-
-        return (String) attr;
+        return commitHash;
     }
 
     /**
@@ -143,7 +133,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @NotNull String version() {
-        return (String) metadata.getOrDefault(VERSION_KEY, "unknown");
+        return version;
     }
 
     /**
@@ -151,7 +141,7 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @NotNull String product() {
-        return (String) metadata.getOrDefault(PRODUCT_KEY, "unknown");
+        return product;
     }
 
     /**
@@ -159,6 +149,6 @@ public class DefaultServerMetadata implements ServerMetadata {
      */
     @Override
     public @NotNull String vendor() {
-        return (String) metadata.getOrDefault(VENDOR_KEY, "unknown");
+        return vendor;
     }
 }
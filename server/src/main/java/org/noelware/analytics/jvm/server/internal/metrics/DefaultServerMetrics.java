@@ -0,0 +1,242 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.ServerMetrics;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+
+public class DefaultServerMetrics implements ServerMetrics {
+    private final LongAdder snapshotCacheHits = new LongAdder();
+    private final LongAdder snapshotCacheStaleHits = new LongAdder();
+    private final LongAdder snapshotCacheMisses = new LongAdder();
+    private final LongAdder snapshotCacheRefreshes = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final LongAdder predictiveCollections = new LongAdder();
+    private final LongAdder predictedCalls = new LongAdder();
+    private final LongAdder overBudgetSnapshots = new LongAdder();
+    private final LongAdder reducedExtensionCalls = new LongAdder();
+    private final LongAdder abandonedExtensionCalls = new LongAdder();
+    private final LongAdder activeStreams = new LongAdder();
+    private final LongAdder conflatedSnapshots = new LongAdder();
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder compressionInputBytes = new LongAdder();
+    private final LongAdder compressionOutputBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+
+    // Long.MIN_VALUE means that nothing was collected by the snapshot cache yet.
+    private volatile long lastSnapshotAt = Long.MIN_VALUE;
+    private volatile OverheadGovernor governor = null;
+    private final Duration snapshotCacheMaxStaleness;
+    private final LongSupplier nanoClock;
+
+    public DefaultServerMetrics(LongSupplier nanoClock, @Nullable Duration snapshotCacheMaxStaleness) {
+        this.snapshotCacheMaxStaleness = snapshotCacheMaxStaleness;
+        this.nanoClock = nanoClock;
+    }
+
+    public void incrementSnapshotCacheHits() {
+        snapshotCacheHits.increment();
+    }
+
+    public void incrementSnapshotCacheStaleHits() {
+        snapshotCacheStaleHits.increment();
+    }
+
+    public void incrementSnapshotCacheMisses() {
+        snapshotCacheMisses.increment();
+    }
+
+    public void incrementSnapshotCacheRefreshes() {
+        snapshotCacheRefreshes.increment();
+    }
+
+    public void incrementCoalescedCalls() {
+        coalescedCalls.increment();
+    }
+
+    public void incrementPredictiveCollections() {
+        predictiveCollections.increment();
+    }
+
+    public void incrementPredictedCalls() {
+        predictedCalls.increment();
+    }
+
+    public void incrementOverBudgetSnapshots() {
+        overBudgetSnapshots.increment();
+    }
+
+    public void incrementReducedExtensionCalls() {
+        reducedExtensionCalls.increment();
+    }
+
+    // Sets the governor that collectionCpuTime and isOverBudget are read from.
+    public void setGovernor(@Nullable OverheadGovernor governor) {
+        this.governor = governor;
+    }
+
+    public void incrementAbandonedExtensionCalls(long calls) {
+        abandonedExtensionCalls.add(calls);
+    }
+
+    public void incrementActiveStreams() {
+        activeStreams.increment();
+    }
+
+    public void decrementActiveStreams() {
+        activeStreams.decrement();
+    }
+
+    public void incrementConflatedSnapshots() {
+        conflatedSnapshots.increment();
+    }
+
+    public void recordCompression(long inputBytes, long outputBytes, long nanos) {
+        compressedMessages.increment();
+        compressionInputBytes.add(inputBytes);
+        compressionOutputBytes.add(outputBytes);
+        compressionNanos.add(nanos);
+    }
+
+    public void recordSnapshotCollected(long atNanos) {
+        lastSnapshotAt = atNanos;
+    }
+
+    @Override
+    public long snapshotCacheHits() {
+        return snapshotCacheHits.sum();
+    }
+
+    @Override
+    public long snapshotCacheStaleHits() {
+        return snapshotCacheStaleHits.sum();
+    }
+
+    @Override
+    public long snapshotCacheMisses() {
+        return snapshotCacheMisses.sum();
+    }
+
+    @Override
+    public long snapshotCacheRefreshes() {
+        return snapshotCacheRefreshes.sum();
+    }
+
+    @Override
+    public @Nullable Duration snapshotCacheMaxStaleness() {
+        return snapshotCacheMaxStaleness;
+    }
+
+    @Override
+    public @Nullable Duration snapshotAge() {
+        final long at = lastSnapshotAt;
+        if (at == Long.MIN_VALUE) return null;
+
+        return Duration.ofNanos(nanoClock.getAsLong() - at);
+    }
+
+    @Override
+    public long coalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    @Override
+    public long predictiveCollections() {
+        return predictiveCollections.sum();
+    }
+
+    @Override
+    public long predictedCalls() {
+        return predictedCalls.sum();
+    }
+
+    @Override
+    public @Nullable Duration collectionCpuTime() {
+        final OverheadGovernor governor = this.governor;
+        return governor != null ? governor.usedCpuTime() : null;
+    }
+
+    @Override
+    public boolean isOverBudget() {
+        final OverheadGovernor governor = this.governor;
+        return governor != null && governor.isOverBudget();
+    }
+
+    @Override
+    public long overBudgetSnapshots() {
+        return overBudgetSnapshots.sum();
+    }
+
+    @Override
+    public long reducedExtensionCalls() {
+        return reducedExtensionCalls.sum();
+    }
+
+    @Override
+    public long abandonedExtensionCalls() {
+        return abandonedExtensionCalls.sum();
+    }
+
+    @Override
+    public long activeStreams() {
+        return activeStreams.sum();
+    }
+
+    @Override
+    public long conflatedSnapshots() {
+        return conflatedSnapshots.sum();
+    }
+
+    @Override
+    public long compressedMessages() {
+        return compressedMessages.sum();
+    }
+
+    @Override
+    public long compressionInputBytes() {
+        return compressionInputBytes.sum();
+    }
+
+    @Override
+    public long compressionOutputBytes() {
+        return compressionOutputBytes.sum();
+    }
+
+    @Override
+    public Duration compressionTime() {
+        return Duration.ofNanos(compressionNanos.sum());
+    }
+
+    @Override
+    public double compressionRatio() {
+        final long output = compressionOutputBytes.sum();
+        if (output == 0) return 1;
+
+        return (double) compressionInputBytes.sum() / output;
+    }
+}
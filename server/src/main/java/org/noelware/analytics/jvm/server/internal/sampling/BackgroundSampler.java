@@ -0,0 +1,140 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.sampling;
+
+import com.google.protobuf.Timestamp;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.CpuStopwatch;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects a snapshot at a fixed cadence and records it into a {@link RingBufferSampleHistory}, so what
+ * happens between two <code>RetrieveStats</code> calls isn't lost. Snapshots are collected with the same
+ * {@link StatsCollector} that the server uses, so extensions still have their deadlines and circuit breakers.
+ *
+ * <p>With an {@link OverheadGovernor}, sampling counts against the server's CPU budget like any other
+ * collection, and no samples are recorded while the server is over it.
+ */
+public class BackgroundSampler implements Closeable {
+    private final Logger LOG = LoggerFactory.getLogger(BackgroundSampler.class);
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final ScheduledExecutorService scheduler;
+    private final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> collector;
+    private final RingBufferSampleHistory history;
+    private final OverheadGovernor governor;
+    private final Duration interval;
+
+    /**
+     * @param collector Function that collects a snapshot, through {@link OverheadGovernor#guard(Function)} if there
+     *                  is a governor
+     * @param history   The history to record the samples into
+     * @param interval  How often a sample is collected
+     * @param governor  The governor that the CPU time of recording a sample is counted in, if there is one
+     */
+    public BackgroundSampler(
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> collector,
+            RingBufferSampleHistory history,
+            Duration interval,
+            @Nullable OverheadGovernor governor) {
+        this.collector = collector;
+        this.interval = interval;
+        this.history = history;
+        this.governor = governor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "analytics-server-sampler");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Starts sampling, does nothing if it already has.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) return;
+
+        LOG.info("Sampling every {}, keeping the last {} samples", interval, history.capacity());
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the history that this sampler records into.
+     */
+    public RingBufferSampleHistory history() {
+        return history;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Collects a single sample and records it, which {@link #start()} does at the sampler's interval.
+     */
+    public void sample() {
+        // Every extension has its own deadline, so this never blocks for long. An exception
+        // must not escape, otherwise the scheduler stops running this.
+        try {
+            final ReceiveStatsResponse response = collector.apply(CancellationToken.NONE).join();
+
+            // Over the budget, the governor serves the last sample again, which was already recorded
+            if (response.getOverBudget()) return;
+
+            final CpuStopwatch cpu = governor != null ? governor.startMeasuring() : null;
+            try {
+                final Timestamp at = response.getSnapshotDate();
+                history.append(at.getSeconds() * 1000 + at.getNanos() / 1_000_000, response.getData());
+            } finally {
+                if (cpu != null) governor.record(cpu.cpuOrElapsedNanos());
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to collect a sample, skipping it:", e);
+        }
+    }
+
+    /**
+     * Settings of the {@link BackgroundSampler}.
+     *
+     * @param interval  how often a sample is collected
+     * @param capacity  how many samples every series keeps
+     * @param maxSeries how many series can be recorded
+     * @param offHeap   if the samples are kept outside the Java heap
+     */
+    public record Settings(Duration interval, int capacity, int maxSeries, boolean offHeap) {}
+}
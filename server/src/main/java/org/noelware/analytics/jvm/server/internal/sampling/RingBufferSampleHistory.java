@@ -0,0 +1,274 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.sampling;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.SampleHistory;
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse;
+import org.noelware.analytics.protobufs.v1.SampleSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SampleHistory} that keeps every series in a fixed-size ring of primitive doubles. All the rings
+ * (and the timestamps they share) are allocated up front in a single buffer, which can live on or off the
+ * heap, so the memory it takes never grows past <code>capacity * (maxSeries + 1) * 8</code> bytes.
+ *
+ * <p>The elements of a list aren't sampled one by one, since their indices don't identify them (the first
+ * thread of one snapshot isn't the first of the next). The length of the list is sampled under its path instead.
+ * A series that had no value in any of the samples that are kept is evicted, and its ring is reused.
+ */
+public class RingBufferSampleHistory implements SampleHistory {
+    private final Logger LOG = LoggerFactory.getLogger(RingBufferSampleHistory.class);
+    private final Map<String, Integer> seriesIndex = new HashMap<>();
+    private final ArrayDeque<Integer> freeIndices = new ArrayDeque<>();
+    private final String[] seriesNames;
+    private final long[] lastSeen;
+    private final LongBuffer timestamps;
+    private final DoubleBuffer values;
+    private final int capacity;
+    private final int maxSeries;
+    private boolean warnedAboutDroppedSeries = false;
+    private long latestSequence = 0;
+    private int usedIndices = 0;
+
+    /**
+     * @param capacity  How many samples every series keeps
+     * @param maxSeries How many series can be recorded
+     * @param offHeap   If the samples should be kept in a direct buffer, outside the Java heap
+     */
+    public RingBufferSampleHistory(int capacity, int maxSeries, boolean offHeap) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        if (maxSeries < 1) throw new IllegalArgumentException("Max series must be at least 1");
+
+        final int bytes;
+        try {
+            bytes = Math.multiplyExact(Math.multiplyExact(capacity, maxSeries + 1), Double.BYTES);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("%d samples of %d series don't fit in a single buffer".formatted(capacity, maxSeries));
+        }
+
+        final ByteBuffer buffer = (offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes))
+                .order(ByteOrder.nativeOrder());
+
+        final int timestampBytes = capacity * Long.BYTES;
+        this.timestamps = buffer.slice(0, timestampBytes).order(ByteOrder.nativeOrder()).asLongBuffer();
+        this.values = buffer.slice(timestampBytes, bytes - timestampBytes)
+                .order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+
+        this.seriesNames = new String[maxSeries];
+        this.lastSeen = new long[maxSeries];
+        this.capacity = capacity;
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * Records a new sample from the data of a collected snapshot. Every numeric value in it is kept under
+     * its path, as is the length of every list, and every other value is ignored.
+     *
+     * @param timestamp When the snapshot was collected, in milliseconds since the epoch
+     * @param data      The data of the snapshot
+     * @return the sequence of the new sample
+     */
+    public synchronized long append(long timestamp, Struct data) {
+        final long sequence = ++latestSequence;
+        final int slot = slotOf(sequence);
+        timestamps.put(slot, timestamp);
+
+        // Clear the slot first, so a series that isn't in this snapshot doesn't keep the
+        // value it had a full ring ago. Once that was its last value, it is evicted.
+        for (int i = 0; i < usedIndices; i++) {
+            if (seriesNames[i] == null) continue;
+
+            values.put(i * capacity + slot, Double.NaN);
+            if (sequence - lastSeen[i] >= capacity) evict(i);
+        }
+
+        final StringBuilder path = new StringBuilder();
+        for (Map.Entry<String, Value> field : data.getFieldsMap().entrySet()) {
+            path.setLength(0);
+            path.append(field.getKey());
+            record(path, field.getValue(), slot);
+        }
+
+        return sequence;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int maxSeries() {
+        return maxSeries;
+    }
+
+    @Override
+    public synchronized long latestSequence() {
+        return latestSequence;
+    }
+
+    @Override
+    public synchronized List<String> series() {
+        final List<String> series = new ArrayList<>(seriesIndex.size());
+        for (int i = 0; i < usedIndices; i++) {
+            if (seriesNames[i] != null) series.add(seriesNames[i]);
+        }
+
+        return series;
+    }
+
+    @Override
+    public synchronized @Nullable Window read(String series) {
+        final Integer index = seriesIndex.get(series);
+        if (index == null) return null;
+
+        final long firstSequence = Math.max(1, latestSequence - capacity + 1);
+        final int count = (int) (latestSequence - firstSequence + 1);
+        final long[] timestamps = new long[count];
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            final int slot = slotOf(firstSequence + i);
+            timestamps[i] = this.timestamps.get(slot);
+            values[i] = this.values.get(index * capacity + slot);
+        }
+
+        return new Window(firstSequence, timestamps, values);
+    }
+
+    /**
+     * Returns every sample after the given cursor as a single batch, for the <code>RetrieveHistory</code>
+     * method. A series that has no value in any of these samples is left out.
+     *
+     * @param cursor sequence of the last sample the caller has seen, or <code>0</code> for every sample
+     */
+    public synchronized RetrieveHistoryResponse readSince(long cursor) {
+        final long oldest = Math.max(1, latestSequence - capacity + 1);
+        final RetrieveHistoryResponse.Builder response =
+                RetrieveHistoryResponse.newBuilder().setNextCursor(latestSequence);
+
+        // A cursor past the latest sample means that the server was restarted since the caller's last visit,
+        // so everything we have is new to them.
+        final boolean restarted = cursor > latestSequence;
+        final long from = restarted ? oldest : Math.max(cursor + 1, oldest);
+        response.setGap(latestSequence > 0 && (restarted || from > cursor + 1));
+        if (from > latestSequence) return response.setFirstSequence(latestSequence + 1).build();
+
+        final int count = (int) (latestSequence - from + 1);
+        response.setFirstSequence(from);
+        for (int i = 0; i < count; i++) response.addTimestamps(timestamps.get(slotOf(from + i)));
+
+        for (int index = 0; index < usedIndices; index++) {
+            if (seriesNames[index] == null) continue;
+
+            final SampleSeries.Builder series = SampleSeries.newBuilder().setName(seriesNames[index]);
+            boolean hasValues = false;
+            for (int i = 0; i < count; i++) {
+                final double value = values.get(index * capacity + slotOf(from + i));
+                hasValues |= !Double.isNaN(value);
+                series.addValues(value);
+            }
+
+            if (hasValues) response.addSeries(series.build());
+        }
+
+        return response.build();
+    }
+
+    private void record(StringBuilder path, Value value, int slot) {
+        switch (value.getKindCase()) {
+            case NUMBER_VALUE -> put(path, value.getNumberValue(), slot);
+
+            case STRUCT_VALUE -> {
+                final int length = path.length();
+                for (Map.Entry<String, Value> field :
+                        value.getStructValue().getFieldsMap().entrySet()) {
+                    path.setLength(length);
+                    path.append('.').append(field.getKey());
+                    record(path, field.getValue(), slot);
+                }
+            }
+
+            case LIST_VALUE -> put(path, value.getListValue().getValuesCount(), slot);
+
+            default -> {
+                // strings, booleans and nulls aren't sampled
+            }
+        }
+    }
+
+    private void put(StringBuilder path, double value, int slot) {
+        final int index = indexOf(path.toString());
+        if (index == -1) return;
+
+        values.put(index * capacity + slot, value);
+        lastSeen[index] = latestSequence;
+    }
+
+    private int indexOf(String series) {
+        final Integer existing = seriesIndex.get(series);
+        if (existing != null) return existing;
+
+        final Integer free = freeIndices.poll();
+        final int index = free != null ? free : usedIndices < maxSeries ? usedIndices++ : -1;
+        if (index == -1) {
+            if (!warnedAboutDroppedSeries) {
+                LOG.warn("Sample history is full ({} series), series [{}] and any new ones are dropped", maxSeries, series);
+                warnedAboutDroppedSeries = true;
+            }
+
+            return -1;
+        }
+
+        for (int i = 0; i < capacity; i++) values.put(index * capacity + i, Double.NaN);
+
+        seriesIndex.put(series, index);
+        seriesNames[index] = series;
+        return index;
+    }
+
+    // Every value of the series has been cleared by now, so only its name has to go.
+    private void evict(int index) {
+        seriesIndex.remove(seriesNames[index]);
+        seriesNames[index] = null;
+        freeIndices.push(index);
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
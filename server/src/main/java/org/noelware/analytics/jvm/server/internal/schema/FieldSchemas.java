@@ -0,0 +1,94 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.schema;
+
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.noelware.analytics.protobufs.v1.FieldSchema;
+import org.noelware.analytics.protobufs.v1.FieldType;
+
+/**
+ * Describes the fields of an extension's data for the <code>Describe</code> method.
+ */
+public class FieldSchemas {
+    private FieldSchemas() {}
+
+    /**
+     * Returns every field of the given data, where the data itself has an empty path. Every element of a list is
+     * described under the same path, so a field only shows up once no matter how many elements have it.
+     *
+     * @param data data of an extension
+     */
+    public static List<FieldSchema> describe(Value data) {
+        final Map<String, FieldType> fields = new LinkedHashMap<>();
+        walk("", data, fields);
+
+        final List<FieldSchema> schemas = new ArrayList<>(fields.size());
+        for (Map.Entry<String, FieldType> field : fields.entrySet()) {
+            schemas.add(FieldSchema.newBuilder()
+                    .setPath(field.getKey())
+                    .setType(field.getValue())
+                    .build());
+        }
+
+        return schemas;
+    }
+
+    private static void walk(String path, Value value, Map<String, FieldType> fields) {
+        final FieldType type = typeOf(value);
+
+        // A field that was null in one element could have a value in the next one
+        final FieldType existing = fields.get(path);
+        if (existing == null || existing == FieldType.UNKNOWN_FIELD) fields.put(path, type);
+
+        switch (value.getKindCase()) {
+            case STRUCT_VALUE -> {
+                for (Map.Entry<String, Value> field :
+                        value.getStructValue().getFieldsMap().entrySet()) {
+                    walk(path.isEmpty() ? field.getKey() : path + "." + field.getKey(), field.getValue(), fields);
+                }
+            }
+
+            case LIST_VALUE -> {
+                for (Value element : value.getListValue().getValuesList()) walk(path + "[]", element, fields);
+            }
+
+            default -> {}
+        }
+    }
+
+    private static FieldType typeOf(Value value) {
+        return switch (value.getKindCase()) {
+            case NUMBER_VALUE -> FieldType.NUMBER;
+            case STRING_VALUE -> FieldType.STRING;
+            case BOOL_VALUE -> FieldType.BOOL;
+            case STRUCT_VALUE -> FieldType.STRUCT;
+            case LIST_VALUE -> FieldType.LIST;
+            default -> FieldType.UNKNOWN_FIELD;
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.streaming;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import java.util.Iterator;
+import org.noelware.analytics.protobufs.v1.StatsChunk;
+
+/**
+ * Represents a single <code>RetrieveStatsChunked</code> call. Chunks are only built and written while the call
+ * {@link ServerCallStreamObserver#isReady() is ready}, so the server never buffers more than gRPC's own window
+ * of a snapshot that the client is slow to read.
+ */
+public class ChunkedSnapshotCall {
+    private final ServerCallStreamObserver<StatsChunk> observer;
+    private Iterator<StatsChunk> chunks;
+    private boolean done = false;
+
+    /**
+     * Creates the call, which has to happen before the RPC method returns, since that is the only
+     * time that the handlers can be set.
+     *
+     * @param observer The call to write chunks to
+     */
+    public ChunkedSnapshotCall(ServerCallStreamObserver<StatsChunk> observer) {
+        this.observer = observer;
+
+        observer.setOnReadyHandler(this::drain);
+        observer.setOnCancelHandler(this::cancel);
+    }
+
+    /**
+     * Starts writing the given chunks, and completes the call once every chunk was written.
+     */
+    public synchronized void send(Iterator<StatsChunk> chunks) {
+        this.chunks = chunks;
+        drain();
+    }
+
+    private synchronized void drain() {
+        if (chunks == null || done) return;
+        while (observer.isReady() && chunks.hasNext()) observer.onNext(chunks.next());
+
+        if (!chunks.hasNext()) {
+            done = true;
+            observer.onCompleted();
+        }
+    }
+
+    private synchronized void cancel() {
+        done = true;
+        chunks = null;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.streaming;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.noelware.analytics.protobufs.v1.StatsChunk;
+
+/**
+ * Represents the chunks of a single snapshot for the <code>RetrieveStatsChunked</code> method, which are only built
+ * as they are iterated over. The first chunk is the snapshot without its data, and every extension follows in its
+ * own chunk. A value that doesn't fit into a chunk is split up: a struct is sent with the fields that fit, the rest
+ * of its fields are merged into it by the chunks after it (or sent in their own chunks, if they're too big on their
+ * own), and a list is sent in slices.
+ */
+public class SnapshotChunker implements Iterator<StatsChunk> {
+    public static final int DEFAULT_CHUNK_BYTES = 1024 * 1024;
+    public static final int MIN_CHUNK_BYTES = 64 * 1024;
+    public static final int MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    // Room for the chunk's own fields and the length prefixes of its value, which
+    // aren't part of the value's serialized size.
+    private static final int CHUNK_OVERHEAD = 32;
+
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private final int maxChunkBytes;
+    private StatsChunk header;
+
+    /**
+     * @param snapshot      The snapshot to split up, whether its data was pre-encoded or not
+     * @param maxChunkBytes How big a chunk can be, <code>0</code> for {@link #DEFAULT_CHUNK_BYTES}
+     */
+    public SnapshotChunker(ReceiveStatsResponse snapshot, int maxChunkBytes) {
+        // it's an uint32 on the wire, so anything over Integer.MAX_VALUE shows up as negative here
+        if (maxChunkBytes == 0) this.maxChunkBytes = DEFAULT_CHUNK_BYTES;
+        else if (Integer.compareUnsigned(maxChunkBytes, MAX_CHUNK_BYTES) > 0) this.maxChunkBytes = MAX_CHUNK_BYTES;
+        else this.maxChunkBytes = Math.max(MIN_CHUNK_BYTES, maxChunkBytes);
+
+        this.header = StatsChunk.newBuilder()
+                .setHeader(StatsCollector.withoutData(snapshot))
+                .build();
+
+        for (Map.Entry<String, Value> entry : StatsCollector.dataOf(snapshot).getFieldsMap().entrySet()) {
+            pending.addLast(new Pending(List.of(entry.getKey()), entry.getValue(), 0, false));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return header != null || !pending.isEmpty();
+    }
+
+    @Override
+    public StatsChunk next() {
+        if (header != null) {
+            final StatsChunk chunk = header;
+            header = null;
+
+            return chunk;
+        }
+
+        final Pending next = pending.pollFirst();
+        if (next == null) throw new NoSuchElementException();
+
+        final int budget = maxChunkBytes - CHUNK_OVERHEAD - pathSize(next.path);
+        final Value value = next.value;
+
+        if (value.hasListValue() && (next.from > 0 || value.getSerializedSize() > budget)) return slice(next, budget);
+        if (value.hasStructValue() && value.getSerializedSize() > budget) return split(next, budget);
+
+        // Anything else that is too big (like a huge string) can't be split up, so it
+        // is sent as-is.
+        return chunk(next.path, value, next.append);
+    }
+
+    private StatsChunk split(Pending next, int budget) {
+        final Struct.Builder fits = Struct.newBuilder();
+        final Struct.Builder remainder = Struct.newBuilder();
+        final List<Pending> tooBig = new ArrayList<>();
+        int size = 0;
+
+        for (Map.Entry<String, Value> field : next.value.getStructValue().getFieldsMap().entrySet()) {
+            // map entry tag + its length prefix
+            final int fieldSize = CodedOutputStream.computeStringSize(1, field.getKey())
+                    + CodedOutputStream.computeMessageSize(2, field.getValue())
+                    + 6;
+
+            if (fieldSize > budget) {
+                tooBig.add(new Pending(child(next.path, field.getKey()), field.getValue(), 0, false));
+            } else if (size + fieldSize <= budget) {
+                fits.putFields(field.getKey(), field.getValue());
+                size += fieldSize;
+            } else {
+                remainder.putFields(field.getKey(), field.getValue());
+            }
+        }
+
+        // Everything that didn't fit comes right after the struct that it is put in, with
+        // the small fields merged into it in as few chunks as possible.
+        for (int i = tooBig.size() - 1; i >= 0; i--) pending.addFirst(tooBig.get(i));
+        if (remainder.getFieldsCount() > 0)
+            pending.addFirst(new Pending(next.path, Value.newBuilder().setStructValue(remainder).build(), 0, true));
+
+        return chunk(next.path, Value.newBuilder().setStructValue(fits).build(), next.append);
+    }
+
+    private StatsChunk slice(Pending next, int budget) {
+        final ListValue list = next.value.getListValue();
+        final ListValue.Builder slice = ListValue.newBuilder();
+        int size = 0;
+        int i = next.from;
+
+        // A slice always has at least one item, even if that item is bigger than the budget
+        while (i < list.getValuesCount()) {
+            final int itemSize = CodedOutputStream.computeMessageSize(1, list.getValues(i));
+            if (slice.getValuesCount() > 0 && size + itemSize > budget) break;
+
+            slice.addValues(list.getValues(i++));
+            size += itemSize;
+        }
+
+        if (i < list.getValuesCount()) pending.addFirst(new Pending(next.path, next.value, i, true));
+        return chunk(next.path, Value.newBuilder().setListValue(slice).build(), true);
+    }
+
+    private static StatsChunk chunk(List<String> path, Value value, boolean append) {
+        return StatsChunk.newBuilder()
+                .addAllPath(path)
+                .setValue(value)
+                .setAppend(append)
+                .build();
+    }
+
+    private static int pathSize(List<String> path) {
+        int size = 0;
+        for (String element : path) size += CodedOutputStream.computeStringSize(2, element);
+
+        return size;
+    }
+
+    private static List<String> child(List<String> path, String key) {
+        final List<String> child = new ArrayList<>(path.size() + 1);
+        child.addAll(path);
+        child.add(key);
+
+        return List.copyOf(child);
+    }
+
+    // `from` is the index of the next item to send, if the value is a list that is being sliced,
+    // and `append` is whether the value is added to (rather than replacing) the one at `path`.
+    private record Pending(List<String> path, Value value, int from, boolean append) {}
+}
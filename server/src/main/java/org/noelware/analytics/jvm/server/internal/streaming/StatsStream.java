@@ -0,0 +1,173 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.internal.streaming;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents a single <code>StreamStats</code> call, which pushes a snapshot to the client at a fixed interval.
+ *
+ * <p>Snapshots are only written while the call {@link ServerCallStreamObserver#isReady() is ready}, and only the
+ * latest snapshot is held back otherwise. A client that can't keep up receives the newest snapshot once it catches up
+ * rather than every snapshot it missed, so a slow consumer never makes the server buffer more than one snapshot.
+ *
+ * <p>A snapshot is only encoded (like with the call's string dictionary) right before it is written, since a snapshot
+ * that is dropped would otherwise take the strings it added to the dictionary with it.
+ */
+public class StatsStream {
+    /**
+     * The shortest interval a client can ask for, anything under this is raised to it.
+     */
+    public static final Duration MIN_INTERVAL = Duration.ofSeconds(1);
+
+    private final Logger LOG = LoggerFactory.getLogger(StatsStream.class);
+    private final AtomicReference<ReceiveStatsResponse> pending = new AtomicReference<>();
+    private final AtomicBoolean collecting = new AtomicBoolean(false);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> snapshots;
+    private final ServerCallStreamObserver<ReceiveStatsResponse> observer;
+    private final UnaryOperator<ReceiveStatsResponse> encoder;
+    private final DefaultServerMetrics metrics;
+    private final CancellationToken token;
+    private volatile ScheduledFuture<?> task;
+
+    /**
+     * @param observer  The call to write snapshots to
+     * @param token     Cancellation token of the call
+     * @param snapshots Function that returns the next snapshot to send
+     * @param encoder   Function that encodes a snapshot right before it is written
+     * @param metrics   Metrics to record conflated snapshots in
+     */
+    public StatsStream(
+            ServerCallStreamObserver<ReceiveStatsResponse> observer,
+            CancellationToken token,
+            Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> snapshots,
+            UnaryOperator<ReceiveStatsResponse> encoder,
+            DefaultServerMetrics metrics) {
+        this.encoder = encoder;
+        this.snapshots = snapshots;
+        this.observer = observer;
+        this.metrics = metrics;
+        this.token = token;
+    }
+
+    /**
+     * Starts pushing snapshots at the given interval, until the call is cancelled.
+     *
+     * @param scheduler The scheduler to collect snapshots on
+     * @param interval  How often a snapshot is collected, raised to {@link #MIN_INTERVAL} if it is shorter
+     */
+    public void start(ScheduledExecutorService scheduler, Duration interval) {
+        final Duration actual = interval.compareTo(MIN_INTERVAL) < 0 ? MIN_INTERVAL : interval;
+
+        // Both handlers have to be set before anything is written. Having a cancel handler also
+        // makes #onNext() a no-op (instead of throwing) once the call was cancelled.
+        observer.setOnReadyHandler(this::drain);
+        observer.setOnCancelHandler(this::stop);
+        metrics.incrementActiveStreams();
+
+        try {
+            task = scheduler.scheduleAtFixedRate(this::tick, 0, actual.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            stop();
+            observer.onError(Status.UNAVAILABLE
+                    .withDescription("Server is shutting down")
+                    .asRuntimeException());
+
+            return;
+        }
+
+        // The call could've been cancelled before the task was scheduled
+        if (stopped.get()) task.cancel(false);
+    }
+
+    private void tick() {
+        if (stopped.get() || token.isCancelled()) return;
+
+        // Don't start another pass if the last one is still running, the client will
+        // get the next one instead.
+        if (!collecting.compareAndSet(false, true)) return;
+
+        // Every pass gets its own token, so nothing that a pass registers on it outlives the pass
+        final CancellationToken passToken = token.child();
+        final CompletableFuture<ReceiveStatsResponse> future;
+        try {
+            future = snapshots.apply(passToken);
+        } catch (Exception e) {
+            passToken.release();
+            collecting.set(false);
+            LOG.error("Unable to collect a snapshot for StreamStats call, skipping it:", e);
+            return;
+        }
+
+        future.whenComplete((response, ex) -> {
+            passToken.release();
+            collecting.set(false);
+            if (ex != null) {
+                if (!token.isCancelled())
+                    LOG.error("Unable to collect a snapshot for StreamStats call, skipping it:", ex);
+
+                return;
+            }
+
+            if (pending.getAndSet(response) != null) metrics.incrementConflatedSnapshots();
+            drain();
+        });
+    }
+
+    private synchronized void drain() {
+        while (!stopped.get() && observer.isReady()) {
+            final ReceiveStatsResponse next = pending.getAndSet(null);
+            if (next == null) return;
+
+            observer.onNext(encoder.apply(next));
+        }
+    }
+
+    private void stop() {
+        if (!stopped.compareAndSet(false, true)) return;
+
+        metrics.decrementActiveStreams();
+        pending.set(null);
+
+        final ScheduledFuture<?> task = this.task;
+        if (task != null) task.cancel(false);
+    }
+}
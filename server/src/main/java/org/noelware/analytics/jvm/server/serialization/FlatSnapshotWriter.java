@@ -0,0 +1,232 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.serialization;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.Value;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+/**
+ * Writes the <code>data</code> of a snapshot in a flat, offset-based layout that a client can read single values out
+ * of without parsing the rest, unlike a {@link Struct} which has to be parsed as a whole.
+ *
+ * <p>Every number is little-endian, and every offset is an <code>int32</code> from the start of the buffer. The buffer
+ * starts with the magic <code>"ANF1"</code> and the offset of the root value. Every value starts with a one byte tag:
+ *
+ * <ul>
+ *     <li><code>0</code>: null</li>
+ *     <li><code>1</code>: number, followed by the <code>float64</code></li>
+ *     <li><code>2</code> and <code>3</code>: false and true</li>
+ *     <li><code>4</code>: string, followed by the <code>int32</code> length and the UTF-8 bytes</li>
+ *     <li><code>5</code>: struct, followed by the <code>int32</code> count and an offset to the key (a string) and to
+ *     the value of every field. Fields are sorted by the bytes of their key, so a field can be binary searched.</li>
+ *     <li><code>6</code>: list, followed by the <code>int32</code> count and the offset of every element</li>
+ * </ul>
+ *
+ * Every string (keys included) is only written once, and values are written before the struct or list that holds
+ * them.
+ */
+public class FlatSnapshotWriter {
+    private static final byte[] MAGIC = {'A', 'N', 'F', '1'};
+    private static final byte NULL = 0;
+    private static final byte NUMBER = 1;
+    private static final byte FALSE = 2;
+    private static final byte TRUE = 3;
+    private static final byte STRING = 4;
+    private static final byte STRUCT = 5;
+    private static final byte LIST = 6;
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private byte[] buffer = new byte[1024];
+    private int position = 0;
+
+    private FlatSnapshotWriter() {}
+
+    /**
+     * Returns the given snapshot with its <code>data</code> sent as <code>flatData</code>, or as it is if it doesn't have
+     * any data (like a delta or "not modified" response).
+     *
+     * @param snapshot snapshot to encode
+     */
+    public static ReceiveStatsResponse encode(ReceiveStatsResponse snapshot) {
+        if (snapshot.getNotModified() || snapshot.hasBaseVersion()) return snapshot;
+
+        final ByteString flat = write(StatsCollector.dataOf(snapshot));
+        return StatsCollector.withoutData(snapshot).setFlatData(flat).build();
+    }
+
+    /**
+     * Writes the given struct as a flat buffer.
+     *
+     * @param data struct to write
+     */
+    public static ByteString write(Struct data) {
+        final FlatSnapshotWriter writer = new FlatSnapshotWriter();
+        writer.writeBytes(MAGIC);
+        writer.writeInt(0); // the root's offset, once it's known
+
+        final int root = writer.write(data);
+        writer.putInt(MAGIC.length, root);
+
+        // Nothing else has a reference to the array, so it doesn't need to be copied.
+        return UnsafeByteOperations.unsafeWrap(writer.buffer, 0, writer.position);
+    }
+
+    private int write(Value value) {
+        return switch (value.getKindCase()) {
+            case NUMBER_VALUE -> {
+                final int offset = position;
+                writeByte(NUMBER);
+                writeLong(Double.doubleToRawLongBits(value.getNumberValue()));
+
+                yield offset;
+            }
+
+            case BOOL_VALUE -> {
+                final int offset = position;
+                writeByte(value.getBoolValue() ? TRUE : FALSE);
+
+                yield offset;
+            }
+
+            case STRING_VALUE -> write(value.getStringValue());
+            case STRUCT_VALUE -> write(value.getStructValue());
+            case LIST_VALUE -> write(value.getListValue());
+            default -> {
+                final int offset = position;
+                writeByte(NULL);
+
+                yield offset;
+            }
+        };
+    }
+
+    private int write(Struct struct) {
+        final Map<String, Value> fields = struct.getFieldsMap();
+        final byte[][] keys = new byte[fields.size()][];
+        final String[] names = new String[fields.size()];
+        final Integer[] order = new Integer[fields.size()];
+        final int[] values = new int[fields.size()];
+
+        int i = 0;
+        for (Map.Entry<String, Value> field : fields.entrySet()) {
+            names[i] = field.getKey();
+            keys[i] = field.getKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = write(field.getValue());
+            order[i] = i;
+            i++;
+        }
+
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+
+        final int[] keyOffsets = new int[order.length];
+        for (int j = 0; j < order.length; j++) keyOffsets[j] = write(names[order[j]], keys[order[j]]);
+
+        final int offset = position;
+        writeByte(STRUCT);
+        writeInt(order.length);
+        for (int j = 0; j < order.length; j++) {
+            writeInt(keyOffsets[j]);
+            writeInt(values[order[j]]);
+        }
+
+        return offset;
+    }
+
+    private int write(ListValue list) {
+        final List<Value> elements = list.getValuesList();
+        final int[] offsets = new int[elements.size()];
+        for (int i = 0; i < offsets.length; i++) offsets[i] = write(elements.get(i));
+
+        final int offset = position;
+        writeByte(LIST);
+        writeInt(offsets.length);
+        for (int element : offsets) writeInt(element);
+
+        return offset;
+    }
+
+    private int write(String string) {
+        final Integer existing = strings.get(string);
+        return existing != null ? existing : write(string, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int write(String string, byte[] bytes) {
+        final Integer existing = strings.get(string);
+        if (existing != null) return existing;
+
+        final int offset = position;
+        writeByte(STRING);
+        writeInt(bytes.length);
+        writeBytes(bytes);
+        strings.put(string, offset);
+
+        return offset;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        putInt(position, value);
+        position += 4;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        putInt(position, (int) value);
+        putInt(position + 4, (int) (value >>> 32));
+        position += 8;
+    }
+
+    private void putInt(int at, int value) {
+        buffer[at] = (byte) value;
+        buffer[at + 1] = (byte) (value >>> 8);
+        buffer[at + 2] = (byte) (value >>> 16);
+        buffer[at + 3] = (byte) (value >>> 24);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (position + needed <= buffer.length) return;
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+    }
+}
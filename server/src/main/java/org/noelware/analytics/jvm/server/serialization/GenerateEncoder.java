@@ -0,0 +1,52 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.serialization;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record that should have its encoder generated at build time by the <code>analytics-processor</code>
+ * annotation processor. For a record <code>Outer.Data</code>, it generates <code>Outer_DataEncoder</code> in the
+ * same package, with a <code>toGrpcValue(Data)</code> method that builds its {@link com.google.protobuf.Value} and
+ * a <code>writeTo(Data, StatsWriter)</code> method that writes it with a {@link StatsWriter}.
+ *
+ * <p>Every component is encoded, under its {@link FieldName name} or its <code>snake_case</code> name otherwise.
+ * The record still has to implement {@link Serializable} (and {@link StreamingSerializable}) by calling them:
+ *
+ * <pre>{@code
+ * @GenerateEncoder
+ * public record Data(long usedBytes, @FieldName("pool") String poolName) implements Serializable {
+ *     @Override
+ *     public Value toGrpcValue() {
+ *         return Outer_DataEncoder.toGrpcValue(this);
+ *     }
+ * }
+ * }</pre>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateEncoder {}
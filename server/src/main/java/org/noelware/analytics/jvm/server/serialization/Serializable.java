@@ -27,8 +27,9 @@ import com.google.protobuf.Value;
 
 /**
  * Represents an interface that helps create {@link com.google.protobuf.Value values} with Java POJOs. This
- * is automatically generated when the RetrieveStats method descriptor is called, and the stats are usually not
- * cached, so it can take a while when all the extensions are retrieving their data.
+ * is automatically generated when the RetrieveStats method descriptor is called. The stats are only cached if the
+ * server was built with {@link org.noelware.analytics.jvm.server.AnalyticsServerBuilder#withSnapshotCache}, otherwise
+ * it can take a while when all the extensions are retrieving their data.
  */
 public interface Serializable {
     Value toGrpcValue();
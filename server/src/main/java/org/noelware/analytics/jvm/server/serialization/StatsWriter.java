@@ -0,0 +1,610 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.serialization;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.Value;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+import org.noelware.analytics.jvm.server.util.FieldMaskTree;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+
+/**
+ * Writes a single {@link Value} straight to its wire bytes, without building any {@link Value}, {@link com.google.protobuf.Struct}
+ * or {@link com.google.protobuf.ListValue} along the way. The bytes are the same as what protobuf would've written for the
+ * equal {@link Value}, so clients can't tell the difference.
+ *
+ * <p>Every nested message is written in place, after room for the largest length that it can have. Its length is
+ * filled in once it is finished, and the room that the length didn't need is left out by {@link #toByteString()} in a
+ * single pass, so no message is ever moved. Writing objects, arrays and primitives only allocates the buffer itself,
+ * which can be reused with {@link #reset()}.
+ *
+ * <p>With a {@link #mask(FieldMaskTree) mask}, the fields that aren't in it are skipped as they are written, so
+ * nothing of them ends up in the buffer, and payloads that {@link #value(Object)} has to convert never build them.
+ *
+ * <pre>{@code
+ * writer.beginObject()
+ *     .name("current").value(12)
+ *     .name("names").beginArray().value("main").value("analytics-server-background").endArray()
+ *     .endObject();
+ * }</pre>
+ */
+public class StatsWriter {
+    // wire tags of the fields in google/protobuf/struct.proto
+    private static final byte STRUCT_FIELDS_TAG = 0x0A; // Struct.fields, each map entry is a message
+    private static final byte ENTRY_KEY_TAG = 0x0A; // Struct.FieldsEntry.key
+    private static final byte ENTRY_VALUE_TAG = 0x12; // Struct.FieldsEntry.value
+    private static final byte LIST_VALUES_TAG = 0x0A; // ListValue.values
+    private static final byte NULL_VALUE_TAG = 0x08; // Value.null_value
+    private static final byte NUMBER_VALUE_TAG = 0x11; // Value.number_value
+    private static final byte STRING_VALUE_TAG = 0x1A; // Value.string_value
+    private static final byte BOOL_VALUE_TAG = 0x20; // Value.bool_value
+    private static final byte STRUCT_VALUE_TAG = 0x2A; // Value.struct_value
+    private static final byte LIST_VALUE_TAG = 0x32; // Value.list_value
+
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+
+    // what #beforeValue() returns for a value that the mask leaves out
+    private static final int SKIPPED = -1;
+
+    // room that every message gets for its length, which is the most that an int's varint takes up
+    private static final int MAX_LENGTH_SIZE = 5;
+
+    // where the length of every message that was opened starts (in the order that they were), and how many
+    // of the bytes after it the length didn't need
+    private int[] gapStarts = new int[16];
+    private int[] gapSizes = new int[16];
+    private int gapCount = 0;
+    private int totalGapSize = 0;
+
+    // each message that is still open, and how big the gaps of the messages that were finished before it were
+    private int[] regions = new int[16];
+    private int[] regionGapSizes = new int[16];
+    private int regionCount = 0;
+
+    // the objects and arrays that are still open, and how many regions their value has opened
+    private int[] scopes = new int[8];
+    private int[] scopeRegions = new int[8];
+    private int scopeCount = 0;
+
+    // the paths that the value is trimmed to, the ones that apply to each object and array that is still
+    // open, and the ones of the field that was named last
+    private FieldMaskTree mask = null;
+    private FieldMaskTree[] scopeMasks = new FieldMaskTree[8];
+    private FieldMaskTree fieldMask = null;
+
+    // whether the field that was named last is left out, and how many of the open objects and arrays are
+    private boolean skipsField = false;
+    private int skippedScopes = 0;
+
+    private boolean hasName = false;
+    private boolean written = false;
+    private byte[] buffer;
+    private int position = 0;
+
+    public StatsWriter() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity How many bytes the buffer starts with
+     */
+    public StatsWriter(int initialCapacity) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("Initial capacity must be positive");
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Only writes the fields of the value that are in the given mask. Everything else that is written into this
+     * writer is skipped.
+     *
+     * @param mask The fields to write, or <code>null</code> for every field
+     * @throws IllegalStateException if a value was already written
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter mask(@Nullable FieldMaskTree mask) {
+        if (written) throw new IllegalStateException("The mask has to be set before the value is written");
+
+        this.mask = mask;
+        return this;
+    }
+
+    /**
+     * Starts an object, which is written as a {@link com.google.protobuf.Struct}.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter beginObject() {
+        open(OBJECT, STRUCT_VALUE_TAG);
+        return this;
+    }
+
+    /**
+     * Finishes the object that was started last.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter endObject() {
+        close(OBJECT);
+        return this;
+    }
+
+    /**
+     * Starts an array, which is written as a {@link com.google.protobuf.ListValue}.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter beginArray() {
+        open(ARRAY, LIST_VALUE_TAG);
+        return this;
+    }
+
+    /**
+     * Finishes the array that was started last.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter endArray() {
+        close(ARRAY);
+        return this;
+    }
+
+    /**
+     * Sets the name of the next value in the current object.
+     *
+     * @param name The name of the value
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter name(String name) {
+        if (scopeCount == 0 || scopes[scopeCount - 1] != OBJECT)
+            throw new IllegalStateException("Names can only be written inside an object");
+
+        if (hasName) throw new IllegalStateException("Name [%s] was written twice in a row".formatted(name));
+
+        hasName = true;
+        if (skippedScopes > 0) return this;
+
+        final FieldMaskTree scopeMask = scopeMasks[scopeCount - 1];
+        if (scopeMask != null && !scopeMask.includes(name)) {
+            skipsField = true;
+            return this;
+        }
+
+        fieldMask = scopeMask != null ? scopeMask.child(name) : null;
+        writeByte(STRUCT_FIELDS_TAG);
+        openRegion();
+        writeByte(ENTRY_KEY_TAG);
+        writeString(name);
+
+        return this;
+    }
+
+    /**
+     * Writes a null value.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter nullValue() {
+        final int opened = beforeValue();
+        if (opened == SKIPPED) return this;
+
+        writeByte(NULL_VALUE_TAG);
+        writeByte((byte) 0);
+        closeRegions(opened);
+
+        return this;
+    }
+
+    /**
+     * Writes a string value, or a null value if it is <code>null</code>.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(@Nullable String value) {
+        if (value == null) return nullValue();
+
+        final int opened = beforeValue();
+        if (opened == SKIPPED) return this;
+
+        writeByte(STRING_VALUE_TAG);
+        writeString(value);
+        closeRegions(opened);
+
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(double value) {
+        final int opened = beforeValue();
+        if (opened == SKIPPED) return this;
+
+        writeByte(NUMBER_VALUE_TAG);
+        writeFixed64(Double.doubleToRawLongBits(value));
+        closeRegions(opened);
+
+        return this;
+    }
+
+    /**
+     * Writes a number value. Like every number in a {@link Value}, it is sent as a double.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(long value) {
+        return value((double) value);
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(boolean value) {
+        final int opened = beforeValue();
+        if (opened == SKIPPED) return this;
+
+        writeByte(BOOL_VALUE_TAG);
+        writeByte((byte) (value ? 1 : 0));
+        closeRegions(opened);
+
+        return this;
+    }
+
+    /**
+     * Writes a {@link Value} that was already built. With a mask, it is trimmed down to the fields that are in it.
+     *
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(Value value) {
+        if (skipsNextValue()) return nullValue();
+
+        final FieldMaskTree mask = nextMask();
+        return writeValue(mask != null ? mask.project(value) : value);
+    }
+
+    /**
+     * Writes the given <code>payload</code>, the same way that {@link GrpcValueUtil#toValue(Object)} would
+     * transform it. {@link StreamingSerializable} payloads write themselves, anything else that isn't a
+     * primitive or a list goes through {@link GrpcValueUtil#toValue(Object, FieldMaskTree)}.
+     *
+     * @param payload object payload to write
+     * @throws IllegalStateException if the given <code>payload</code> couldn't be transformed
+     * @return {@link StatsWriter} for chaining methods
+     */
+    public StatsWriter value(@Nullable Object payload) {
+        // nothing is written for a value that is left out, so there is no point in converting it
+        if (payload == null || skipsNextValue()) return nullValue();
+        if (payload instanceof StreamingSerializable serializable) {
+            serializable.writeTo(this);
+            return this;
+        }
+
+        if (payload instanceof String string) return value(string);
+        if (payload instanceof Number number) return value(number.doubleValue());
+        if (payload instanceof Boolean bool) return value(bool.booleanValue());
+        if (payload instanceof Value value) return value(value);
+        if (payload instanceof StackTraceElement element) return stackFrame(element);
+        if (payload instanceof List<?> list) {
+            beginArray();
+            for (Object element : list) value(element);
+
+            return endArray();
+        }
+
+        return writeValue(GrpcValueUtil.toValue(payload, nextMask()));
+    }
+
+    private StatsWriter writeValue(Value value) {
+        final int opened = beforeValue();
+        if (opened == SKIPPED) return this;
+
+        final int size = value.getSerializedSize();
+        ensureCapacity(size);
+
+        try {
+            final CodedOutputStream output = CodedOutputStream.newInstance(buffer, position, size);
+            value.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // It's written into our own buffer, so this can't happen.
+            throw new IllegalStateException(e);
+        }
+
+        position += size;
+        closeRegions(opened);
+
+        return this;
+    }
+
+    /**
+     * Returns the bytes of the value that was written.
+     *
+     * @throws IllegalStateException if no value was written, or an object or array wasn't finished
+     */
+    public ByteString toByteString() {
+        if (!written || scopeCount != 0) throw new IllegalStateException("No complete value was written");
+
+        final byte[] bytes = new byte[position - totalGapSize];
+        int from = 0;
+        int to = 0;
+        for (int i = 0; i < gapCount; i++) {
+            final int gapStart = gapStarts[i] + MAX_LENGTH_SIZE - gapSizes[i];
+            System.arraycopy(buffer, from, bytes, to, gapStart - from);
+            to += gapStart - from;
+            from = gapStarts[i] + MAX_LENGTH_SIZE;
+        }
+
+        System.arraycopy(buffer, from, bytes, to, position - from);
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * Clears everything that was written (and the mask), so this writer can be used for another value. The
+     * buffer is kept.
+     */
+    public void reset() {
+        regionCount = 0;
+        gapCount = 0;
+        totalGapSize = 0;
+        scopeCount = 0;
+        mask = null;
+        fieldMask = null;
+        skipsField = false;
+        skippedScopes = 0;
+        hasName = false;
+        written = false;
+        position = 0;
+    }
+
+    private StatsWriter stackFrame(StackTraceElement element) {
+        return beginObject()
+                .name("class_loader_name")
+                .value(element.getClassLoaderName())
+                .name("class_name")
+                .value(element.getClassName())
+                .name("file_name")
+                .value(element.getFileName())
+                .name("method")
+                .value(element.getMethodName())
+                .name("module_name")
+                .value(element.getModuleName())
+                .name("module_version")
+                .value(element.getModuleVersion())
+                .name("native_method")
+                .value(element.isNativeMethod())
+                .name("line")
+                .value(element.getLineNumber())
+                .endObject();
+    }
+
+    private void open(int scope, byte tag) {
+        final FieldMaskTree mask = nextMask();
+        final int opened = beforeValue();
+        if (scopeCount == scopes.length) {
+            scopes = Arrays.copyOf(scopes, scopeCount * 2);
+            scopeRegions = Arrays.copyOf(scopeRegions, scopeCount * 2);
+            scopeMasks = Arrays.copyOf(scopeMasks, scopeCount * 2);
+        }
+
+        // A skipped object or array is still tracked, so whatever is written into it is checked like usual
+        if (opened == SKIPPED) {
+            skippedScopes++;
+        } else {
+            writeByte(tag);
+            openRegion();
+        }
+
+        scopes[scopeCount] = scope;
+        scopeMasks[scopeCount] = mask;
+        scopeRegions[scopeCount++] = opened;
+    }
+
+    private void close(int scope) {
+        if (scopeCount == 0 || scopes[scopeCount - 1] != scope)
+            throw new IllegalStateException(scope == OBJECT ? "No object to finish" : "No array to finish");
+
+        if (hasName) throw new IllegalStateException("Object was finished with a name that has no value");
+
+        final int opened = scopeRegions[--scopeCount];
+        scopeMasks[scopeCount] = null;
+        if (opened == SKIPPED) {
+            skippedScopes--;
+            return;
+        }
+
+        // the object or array itself, then whatever its value was wrapped in
+        closeRegions(1 + opened);
+    }
+
+    // Returns the mask that applies to the next value.
+    private @Nullable FieldMaskTree nextMask() {
+        if (scopeCount == 0) return mask;
+        return scopes[scopeCount - 1] == ARRAY ? scopeMasks[scopeCount - 1] : fieldMask;
+    }
+
+    // Returns if the next value is left out by the mask.
+    private boolean skipsNextValue() {
+        return skippedScopes > 0 || skipsField;
+    }
+
+    // Opens the messages that the next value is wrapped in, and returns how many it has opened, or
+    // SKIPPED if the mask leaves it out.
+    private int beforeValue() {
+        if (scopeCount == 0) {
+            if (written) throw new IllegalStateException("A writer can only write a single value");
+
+            written = true;
+            return 0;
+        }
+
+        if (scopes[scopeCount - 1] == OBJECT) {
+            if (!hasName) throw new IllegalStateException("Values in an object need a name");
+
+            // the map entry was opened by #name(String), unless the mask leaves it out
+            hasName = false;
+            if (skipsNextValue()) {
+                skipsField = false;
+                return SKIPPED;
+            }
+
+            writeByte(ENTRY_VALUE_TAG);
+            openRegion();
+
+            return 2;
+        }
+
+        if (skippedScopes > 0) return SKIPPED;
+
+        writeByte(LIST_VALUES_TAG);
+        openRegion();
+
+        return 1;
+    }
+
+    private void openRegion() {
+        if (regionCount == regions.length) {
+            regions = Arrays.copyOf(regions, regionCount * 2);
+            regionGapSizes = Arrays.copyOf(regionGapSizes, regionCount * 2);
+        }
+
+        if (gapCount == gapStarts.length) {
+            gapStarts = Arrays.copyOf(gapStarts, gapCount * 2);
+            gapSizes = Arrays.copyOf(gapSizes, gapCount * 2);
+        }
+
+        regions[regionCount] = gapCount;
+        regionGapSizes[regionCount++] = totalGapSize;
+        gapStarts[gapCount++] = position;
+
+        ensureCapacity(MAX_LENGTH_SIZE);
+        position += MAX_LENGTH_SIZE;
+    }
+
+    private void closeRegions(int count) {
+        for (int i = 0; i < count; i++) {
+            // The messages that were finished inside of this one are shorter than they are in
+            // the buffer by their gaps.
+            final int region = regions[--regionCount];
+            final int start = gapStarts[region];
+            final int length =
+                    position - start - MAX_LENGTH_SIZE - (totalGapSize - regionGapSizes[regionCount]);
+
+            writeVarintAt(start, length);
+            gapSizes[region] = MAX_LENGTH_SIZE - CodedOutputStream.computeUInt32SizeNoTag(length);
+            totalGapSize += gapSizes[region];
+        }
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeFixed64(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) buffer[position++] = (byte) (value >>> (i * 8));
+    }
+
+    private void writeVarintAt(int at, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[at++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[at] = (byte) value;
+    }
+
+    // Encodes the string as UTF-8 right into the buffer. Like protobuf, a lone surrogate is written as '?'.
+    private void writeString(String value) {
+        final int length = utf8Length(value);
+        final int lengthSize = CodedOutputStream.computeUInt32SizeNoTag(length);
+        ensureCapacity(lengthSize + length);
+
+        writeVarintAt(position, length);
+        position += lengthSize;
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >>> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xE0 | (c >>> 12));
+                buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = '?';
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else {
+                length += 1;
+            }
+        }
+
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+                && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.length - position >= needed) return;
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+    }
+}
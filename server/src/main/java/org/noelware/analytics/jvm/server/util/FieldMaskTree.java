@@ -0,0 +1,124 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.util;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the paths of a {@link com.google.protobuf.FieldMask} as a tree, so
+ * {@link GrpcValueUtil#toValue(Object, FieldMaskTree)} and
+ * {@link org.noelware.analytics.jvm.server.serialization.StatsWriter#mask(FieldMaskTree)} can leave out every field
+ * that isn't in it while the data is being converted. Like protobuf field masks, the paths that go through a
+ * list apply to every element of it.
+ *
+ * <p>A tree is never empty, and <code>null</code> stands for every field wherever a tree is accepted.
+ */
+public class FieldMaskTree {
+    private final Map<String, FieldMaskTree> children = new HashMap<>();
+
+    // whether every field under this one is in the mask
+    private boolean all = false;
+
+    private FieldMaskTree() {}
+
+    /**
+     * Returns the tree of the given paths, like <code>memory.heap.used</code>. Blank paths are skipped.
+     *
+     * @return the tree, or <code>null</code> if there were no paths left, which stands for every field
+     */
+    public static @Nullable FieldMaskTree of(Iterable<String> paths) {
+        final FieldMaskTree root = new FieldMaskTree();
+        for (String path : paths) {
+            if (path.isBlank()) continue;
+
+            FieldMaskTree node = root;
+            for (String key : path.split("\\.")) {
+                node = node.children.computeIfAbsent(key, ignored -> new FieldMaskTree());
+            }
+
+            node.all = true;
+        }
+
+        return root.children.isEmpty() ? null : root;
+    }
+
+    /**
+     * Returns if the field with the given name is in the mask, or has fields that are.
+     */
+    public boolean includes(String name) {
+        return all || children.containsKey(name);
+    }
+
+    /**
+     * Returns the tree that applies to the value of the given field.
+     *
+     * @return the tree, or <code>null</code> if every field of the value is in the mask
+     */
+    public @Nullable FieldMaskTree child(String name) {
+        if (all) return null;
+
+        final FieldMaskTree child = children.get(name);
+        return child == null || child.all ? null : child;
+    }
+
+    /**
+     * Copies the fields of an already converted value that are in the mask into a new value. A value that isn't
+     * a struct or a list is returned as-is.
+     */
+    public Value project(Value value) {
+        if (all) return value;
+
+        switch (value.getKindCase()) {
+            case STRUCT_VALUE -> {
+                final Struct struct = value.getStructValue();
+                final Struct.Builder projected = Struct.newBuilder();
+                for (Map.Entry<String, Value> field : struct.getFieldsMap().entrySet()) {
+                    if (!includes(field.getKey())) continue;
+
+                    final FieldMaskTree child = child(field.getKey());
+                    final Value fieldValue = field.getValue();
+                    projected.putFields(field.getKey(), child == null ? fieldValue : child.project(fieldValue));
+                }
+
+                return Value.newBuilder().setStructValue(projected).build();
+            }
+
+            case LIST_VALUE -> {
+                final ListValue.Builder projected = ListValue.newBuilder();
+                for (Value element : value.getListValue().getValuesList()) projected.addValues(project(element));
+
+                return Value.newBuilder().setListValue(projected).build();
+            }
+
+            default -> {
+                return value;
+            }
+        }
+    }
+}
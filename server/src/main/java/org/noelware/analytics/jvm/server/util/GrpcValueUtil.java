@@ -23,48 +23,293 @@
 
 package org.noelware.analytics.jvm.server.util;
 
-import com.google.protobuf.*;
-import java.util.List;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import org.jetbrains.annotations.Nullable;
 import org.noelware.analytics.jvm.server.serialization.Serializable;
 
 /**
  * Auxiliary class for {@link Value} transformations.
  */
 public class GrpcValueUtil {
+    private static final Value NULL_VALUE =
+            Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+
+    // Every class gets its converter picked once, so transforming a payload is a single lookup
+    // rather than going through every check each time.
+    private static final ClassValue<Converter> CONVERTERS = new ClassValue<>() {
+        @Override
+        protected Converter computeValue(Class<?> type) {
+            return createConverter(type);
+        }
+    };
+
     private GrpcValueUtil() {}
 
     /**
      * Transforms a given <code>payload</code> and tries to transform it to {@link Value a serializable gRPC value}.
+     * Primitive arrays are packed rather than turned into a list, see {@link PackedArrays}.
+     *
+     * <p>Besides primitives, strings and protobuf's own types, this supports lists (and any other collection),
+     * arrays, maps, enums (as their name), {@link Optional optionals}, stack frames and records, which are transformed into a
+     * struct of their components with <code>snake_case</code> names. A payload that implements {@link Serializable}
+     * is always transformed with {@link Serializable#toGrpcValue()}.
+     *
      * @param payload object payload to transform
      * @throws IllegalStateException if the given <code>payload</code> couldn't be transformed
      * @return {@link Value serializable gRPC value}
      */
     public static Value toValue(Object payload) {
-        final Value.Builder valueBuilder = Value.newBuilder();
-        if (payload == null)
-            return valueBuilder.setNullValue(NullValue.NULL_VALUE).build();
-        else if (payload instanceof String)
-            return valueBuilder.setStringValue((String) payload).build();
-        else if (payload instanceof Number)
-            return valueBuilder.setNumberValue(((Number) payload).doubleValue()).build();
-        else if (payload instanceof Boolean)
-            return valueBuilder.setBoolValue((Boolean) payload).build();
-        else if (payload instanceof Serializable) return ((Serializable) payload).toGrpcValue();
-        else if (payload instanceof List<?>)
-            return valueBuilder
-                    .setListValue(ListValue.newBuilder()
-                            .addAllValues(((List<?>) payload)
-                                    .stream().map(GrpcValueUtil::toValue).toList())
-                            .build())
+        return toValue(payload, null);
+    }
+
+    /**
+     * Transforms a given <code>payload</code> like {@link #toValue(Object)}, but only with the fields that are in the
+     * given mask. Records, maps and stack frames never read or convert the fields that are left out, anything that is
+     * already a {@link Value} (or is {@link Serializable}) is trimmed down once it is.
+     *
+     * @param payload object payload to transform
+     * @param mask    fields to transform, or <code>null</code> for every field
+     * @throws IllegalStateException if the given <code>payload</code> couldn't be transformed
+     * @return {@link Value serializable gRPC value}
+     */
+    public static Value toValue(Object payload, @Nullable FieldMaskTree mask) {
+        if (payload == null) return NULL_VALUE;
+        return CONVERTERS.get(payload.getClass()).convert(payload, mask);
+    }
+
+    // The checks are in the same order as they always were, so a class that is more than one
+    // of these (like a Serializable list) is transformed the same way it was before.
+    private static Converter createConverter(Class<?> type) {
+        if (type == String.class)
+            return (payload, mask) -> Value.newBuilder().setStringValue((String) payload).build();
+
+        if (Number.class.isAssignableFrom(type))
+            return (payload, mask) -> Value.newBuilder()
+                    .setNumberValue(((Number) payload).doubleValue())
+                    .build();
+
+        if (type == Boolean.class)
+            return (payload, mask) -> Value.newBuilder().setBoolValue((Boolean) payload).build();
+
+        if (Serializable.class.isAssignableFrom(type))
+            return (payload, mask) -> project(((Serializable) payload).toGrpcValue(), mask);
+
+        // A packed array is a single value, so a mask never goes into it
+        if (type == int[].class || type == long[].class || type == double[].class)
+            return (payload, mask) -> PackedArrays.toValue(payload);
+
+        if (Collection.class.isAssignableFrom(type))
+            return (payload, mask) -> toListValue((Collection<?>) payload, mask);
+
+        if (Value.class.isAssignableFrom(type)) return (payload, mask) -> project((Value) payload, mask);
+        if (ListValue.class.isAssignableFrom(type))
+            return (payload, mask) -> project(
+                    Value.newBuilder().setListValue((ListValue) payload).build(), mask);
+
+        if (Struct.class.isAssignableFrom(type))
+            return (payload, mask) -> project(
+                    Value.newBuilder().setStructValue((Struct) payload).build(), mask);
+
+        if (Map.class.isAssignableFrom(type)) return (payload, mask) -> toStructValue((Map<?, ?>) payload, mask);
+        if (Enum.class.isAssignableFrom(type))
+            return (payload, mask) -> Value.newBuilder()
+                    .setStringValue(((Enum<?>) payload).name())
                     .build();
-        else if (payload instanceof Value) return (Value) payload;
-        else if (payload instanceof ListValue)
-            return valueBuilder.setListValue((ListValue) payload).build();
-        else if (payload instanceof Struct)
-            return valueBuilder.setStructValue((Struct) payload).build();
-        else
+
+        if (type == Optional.class) return (payload, mask) -> toValue(((Optional<?>) payload).orElse(null), mask);
+        if (type == Character.class)
+            return (payload, mask) -> Value.newBuilder()
+                    .setStringValue(payload.toString())
+                    .build();
+
+        if (type == char[].class)
+            return (payload, mask) -> Value.newBuilder()
+                    .setStringValue(new String((char[]) payload))
+                    .build();
+
+        if (type == StackTraceElement.class)
+            return (payload, mask) -> toStackFrameValue((StackTraceElement) payload, mask);
+
+        if (type == boolean[].class) return (payload, mask) -> toListValue((boolean[]) payload);
+        if (type == byte[].class) return (payload, mask) -> toListValue((byte[]) payload);
+        if (type == short[].class) return (payload, mask) -> toListValue((short[]) payload);
+        if (type == float[].class) return (payload, mask) -> toListValue((float[]) payload);
+        if (Object[].class.isAssignableFrom(type)) return (payload, mask) -> toListValue((Object[]) payload, mask);
+        if (type.isRecord()) return createRecordConverter(type);
+
+        return (payload, mask) -> {
             throw new IllegalStateException(
                     "Payload [%s] is not supported in #toValue(Object), maybe implement Serializable?"
                             .formatted(payload));
+        };
+    }
+
+    // The accessor of every component is looked up once, and turned into a MethodHandle that
+    // takes and returns an Object, so reading a component doesn't go through reflection.
+    private static Converter createRecordConverter(Class<?> type) {
+        final RecordComponent[] components = type.getRecordComponents();
+        final String[] names = new String[components.length];
+        final MethodHandle[] accessors = new MethodHandle[components.length];
+
+        try {
+            for (int i = 0; i < components.length; i++) {
+                // Records that aren't public (or in a package that isn't open to us) can't be read otherwise
+                final Method accessor = components[i].getAccessor();
+                accessor.trySetAccessible();
+
+                names[i] = toSnakeCase(components[i].getName());
+                accessors[i] = MethodHandles.lookup()
+                        .unreflect(accessor)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            }
+        } catch (IllegalAccessException e) {
+            return (payload, mask) -> {
+                throw new IllegalStateException(
+                        "Record [%s] can't be read by #toValue(Object), maybe implement Serializable?"
+                                .formatted(type.getName()),
+                        e);
+            };
+        }
+
+        return (payload, mask) -> {
+            final Struct.Builder struct = Struct.newBuilder();
+            for (int i = 0; i < accessors.length; i++) {
+                // a component that is left out by the mask isn't even read
+                if (mask != null && !mask.includes(names[i])) continue;
+
+                final Object component;
+                try {
+                    component = accessors[i].invokeExact(payload);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+
+                struct.putFields(names[i], toValue(component, mask != null ? mask.child(names[i]) : null));
+            }
+
+            return Value.newBuilder().setStructValue(struct).build();
+        };
+    }
+
+    private static Value project(Value value, @Nullable FieldMaskTree mask) {
+        return mask == null ? value : mask.project(value);
+    }
+
+    private static Value toStructValue(Map<?, ?> map, @Nullable FieldMaskTree mask) {
+        final Struct.Builder struct = Struct.newBuilder();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            final Object key = entry.getKey();
+            putField(struct, key instanceof Enum<?> e ? e.name() : String.valueOf(key), entry.getValue(), mask);
+        }
+
+        return Value.newBuilder().setStructValue(struct).build();
+    }
+
+    private static Value toStackFrameValue(StackTraceElement element, @Nullable FieldMaskTree mask) {
+        final Struct.Builder struct = Struct.newBuilder();
+        putField(struct, "class_loader_name", element.getClassLoaderName(), mask);
+        putField(struct, "class_name", element.getClassName(), mask);
+        putField(struct, "file_name", element.getFileName(), mask);
+        putField(struct, "method", element.getMethodName(), mask);
+        putField(struct, "module_name", element.getModuleName(), mask);
+        putField(struct, "module_version", element.getModuleVersion(), mask);
+        putField(struct, "native_method", element.isNativeMethod(), mask);
+        putField(struct, "line", element.getLineNumber(), mask);
+
+        return Value.newBuilder().setStructValue(struct).build();
+    }
+
+    private static void putField(Struct.Builder struct, String name, Object value, @Nullable FieldMaskTree mask) {
+        if (mask == null) {
+            struct.putFields(name, toValue(value));
+        } else if (mask.includes(name)) {
+            struct.putFields(name, toValue(value, mask.child(name)));
+        }
+    }
+
+    private static Value toListValue(Collection<?> collection, @Nullable FieldMaskTree mask) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (Object element : collection) list.addValues(toValue(element, mask));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    private static Value toListValue(Object[] array, @Nullable FieldMaskTree mask) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (Object element : array) list.addValues(toValue(element, mask));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    private static Value toListValue(boolean[] array) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (boolean element : array) list.addValues(Value.newBuilder().setBoolValue(element));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    private static Value toListValue(byte[] array) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (byte element : array) list.addValues(Value.newBuilder().setNumberValue(element));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    private static Value toListValue(short[] array) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (short element : array) list.addValues(Value.newBuilder().setNumberValue(element));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    private static Value toListValue(float[] array) {
+        final ListValue.Builder list = ListValue.newBuilder();
+        for (float element : array) list.addValues(Value.newBuilder().setNumberValue(element));
+
+        return Value.newBuilder().setListValue(list).build();
+    }
+
+    /**
+     * Turns a camelCase name (like a record component's) into <code>snake_case</code>, which is what
+     * the built-in extensions use for their keys. An acronym is kept together, so <code>gcCPUTime</code>
+     * becomes <code>gc_cpu_time</code>.
+     */
+    public static String toSnakeCase(String name) {
+        final StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                final boolean afterLower = i > 0 && !Character.isUpperCase(name.charAt(i - 1));
+                final boolean endsAcronym = i > 0
+                        && Character.isUpperCase(name.charAt(i - 1))
+                        && i + 1 < name.length()
+                        && Character.isLowerCase(name.charAt(i + 1));
+
+                if ((afterLower && name.charAt(i - 1) != '_') || endsAcronym) builder.append('_');
+                builder.append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Value convert(Object payload, @Nullable FieldMaskTree mask);
     }
 }
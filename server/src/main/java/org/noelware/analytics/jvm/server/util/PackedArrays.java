@@ -0,0 +1,155 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.jvm.server.util;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.io.IOException;
+import java.util.Base64;
+import org.noelware.analytics.protobufs.v2.PackedArray;
+
+/**
+ * Auxiliary class for encoding primitive arrays (<code>int[]</code>, <code>long[]</code> and <code>double[]</code>)
+ * without boxing every element or wrapping it in its own {@link Value}.
+ *
+ * <p>In the <code>data</code> Struct, an array is sent as
+ * <code>{"@packed": "sint64" | "double", "length": n, "bytes": "..."}</code>, where <code>bytes</code> is the base64
+ * of the same bytes as a packed repeated <code>sint64</code> or <code>double</code> field. In the v2 schema, it is
+ * sent as a {@link PackedArray}.
+ */
+public class PackedArrays {
+    /** Key of the struct that marks it as a packed array, and holds its type. */
+    public static final String PACKED_KEY = "@packed";
+
+    /** Key that holds how many elements the packed array has. */
+    public static final String LENGTH_KEY = "length";
+
+    /** Key that holds the base64 encoded elements of the packed array. */
+    public static final String BYTES_KEY = "bytes";
+
+    /** Type of <code>int[]</code> and <code>long[]</code> arrays, which are zigzag encoded varints. */
+    public static final String SINT64 = "sint64";
+
+    /** Type of <code>double[]</code> arrays, which are little-endian IEEE 754 doubles. */
+    public static final String DOUBLE = "double";
+
+    private PackedArrays() {}
+
+    /**
+     * Returns if the given <code>payload</code> is a primitive array that can be packed.
+     */
+    public static boolean isPackable(Object payload) {
+        return payload instanceof int[] || payload instanceof long[] || payload instanceof double[];
+    }
+
+    /**
+     * Transforms the given primitive array into its packed {@link Value}.
+     *
+     * @param array <code>int[]</code>, <code>long[]</code> or <code>double[]</code> array
+     * @throws IllegalArgumentException if the given <code>array</code> isn't one of them
+     */
+    public static Value toValue(Object array) {
+        final int length;
+        final byte[] bytes;
+        if (array instanceof int[] ints) {
+            length = ints.length;
+            bytes = encode(ints.length, (output, i) -> output.writeSInt64NoTag(ints[i]), sint64Size(ints));
+        } else if (array instanceof long[] longs) {
+            length = longs.length;
+            bytes = encode(longs.length, (output, i) -> output.writeSInt64NoTag(longs[i]), sint64Size(longs));
+        } else if (array instanceof double[] doubles) {
+            length = doubles.length;
+            bytes = encode(doubles.length, (output, i) -> output.writeDoubleNoTag(doubles[i]), doubles.length * 8);
+        } else {
+            throw new IllegalArgumentException(
+                    "Payload [%s] is not a primitive array that can be packed".formatted(array));
+        }
+
+        final String type = array instanceof double[] ? DOUBLE : SINT64;
+        final Struct struct = Struct.newBuilder()
+                .putFields(PACKED_KEY, GrpcValueUtil.toValue(type))
+                .putFields(LENGTH_KEY, GrpcValueUtil.toValue(length))
+                .putFields(BYTES_KEY, GrpcValueUtil.toValue(Base64.getEncoder().encodeToString(bytes)))
+                .build();
+
+        return Value.newBuilder().setStructValue(struct).build();
+    }
+
+    /**
+     * Transforms the given primitive array into a {@link PackedArray} of the v2 schema.
+     *
+     * @param array <code>int[]</code>, <code>long[]</code> or <code>double[]</code> array
+     * @throws IllegalArgumentException if the given <code>array</code> isn't one of them
+     */
+    public static PackedArray toProto(Object array) {
+        final PackedArray.Builder packed = PackedArray.newBuilder();
+        if (array instanceof int[] ints) {
+            for (int value : ints) packed.addIntegers(value);
+        } else if (array instanceof long[] longs) {
+            for (long value : longs) packed.addIntegers(value);
+        } else if (array instanceof double[] doubles) {
+            for (double value : doubles) packed.addNumbers(value);
+        } else {
+            throw new IllegalArgumentException(
+                    "Payload [%s] is not a primitive array that can be packed".formatted(array));
+        }
+
+        return packed.build();
+    }
+
+    private static byte[] encode(int length, ElementWriter writer, int size) {
+        final byte[] bytes = new byte[size];
+        final CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+
+        try {
+            for (int i = 0; i < length; i++) writer.write(output, i);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // It's written into an array of the exact size, so this can't happen.
+            throw new IllegalStateException(e);
+        }
+
+        return bytes;
+    }
+
+    private static int sint64Size(int[] values) {
+        int size = 0;
+        for (int value : values) size += CodedOutputStream.computeSInt64SizeNoTag(value);
+
+        return size;
+    }
+
+    private static int sint64Size(long[] values) {
+        int size = 0;
+        for (long value : values) size += CodedOutputStream.computeSInt64SizeNoTag(value);
+
+        return size;
+    }
+
+    @FunctionalInterface
+    private interface ElementWriter {
+        void write(CodedOutputStream output, int index) throws IOException;
+    }
+}
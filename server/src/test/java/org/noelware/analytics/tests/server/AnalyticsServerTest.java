@@ -23,10 +23,41 @@
 
 package org.noelware.analytics.tests.server;
 
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.AnalyticsServer;
+import org.noelware.analytics.jvm.server.AnalyticsServerBuilder;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.extensions.internal.SelfMetricsExtension;
+
 public class AnalyticsServerTest {
     // This is stub testing instance UUID for all Noelware Analytics libraries.
     public static final String INSTANCE_UUID = "0e2a7451-2b50-46c3-8481-8c7bd26de7cc";
 
     // base64 encoded: 0e2a7451-2b50-46c3-8481-8c7bd26de7cc:blahblahblah
     public static final String SERVICE_TOKEN = "MGUyYTc0NTEtMmI1MC00NmMzLTg0ODEtOGM3YmQyNmRlN2NjOmJsYWhibGFoYmxhaA==";
+
+    @Test
+    public void test_selfMetricsDoesNotReplaceAnExtensionWithItsName() throws Exception {
+        final Extension<String> extension = new Extension<>() {
+            @Override
+            public String name() {
+                return SelfMetricsExtension.NAME;
+            }
+
+            @Override
+            public String supply() {
+                return "mine";
+            }
+        };
+
+        try (final AnalyticsServer server = new AnalyticsServerBuilder()
+                .withServiceToken(SERVICE_TOKEN)
+                .withExtension(extension)
+                .withSelfMetrics()
+                .build()) {
+            assertSame(extension, server.extensions().findByName(SelfMetricsExtension.NAME));
+        }
+    }
 }
@@ -25,8 +25,10 @@ package org.noelware.analytics.tests.server;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.extensions.Extension;
 import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
 import org.noelware.analytics.jvm.server.extensions.internal.DefaultExtensionRegistry;
 import org.noelware.analytics.jvm.server.extensions.jvm.JvmMemoryPoolsExtension;
@@ -46,4 +48,34 @@ public class ExtensionRegistryTest {
         assertNull(registry.findByClass(JvmThreadsExtension.JvmThreadsData.class));
         assertNotNull(registry.findByClass(JvmThreadsExtension.class));
     }
+
+    @Test
+    public void test_registerAndUnregister() {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        final JvmVersionInfoExtension version = new JvmVersionInfoExtension();
+
+        registry.register(version);
+        final List<Extension<?>> before = registry.extensions();
+
+        // Nothing is registered if any of the extensions has a name that is taken
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> registry.registerAll(new JvmThreadsExtension(), new JvmVersionInfoExtension()));
+
+        assertSame(before, registry.extensions());
+        assertNull(registry.findByClass(JvmThreadsExtension.class));
+        assertSame(version, registry.findByName(version.name()));
+
+        registry.register(new JvmThreadsExtension());
+        assertNotNull(registry.findByClass(JvmThreadsExtension.class));
+
+        assertTrue(registry.unregister(version.name()));
+        assertFalse(registry.unregister(version.name()));
+        assertNull(registry.findByName(version.name()));
+        assertNull(registry.findByClass(JvmVersionInfoExtension.class));
+
+        // The list that was returned before is a snapshot, so it never changes
+        assertEquals(List.of(version), before);
+        assertEquals(1, registry.extensions().size());
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.internal.schema.FieldSchemas;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v1.FieldSchema;
+import org.noelware.analytics.protobufs.v1.FieldType;
+
+public class FieldSchemasTest {
+    @Test
+    public void test_describesEveryFieldOnce() {
+        final List<Map<String, Object>> threads = List.of(
+                Map.of("name", "main"), Map.of("name", "worker", "priority", 5));
+
+        final List<FieldSchema> fields =
+                FieldSchemas.describe(GrpcValueUtil.toValue(Map.of("current", 2, "threads", threads)));
+
+        assertEquals(FieldSchema.newBuilder().setType(FieldType.STRUCT).build(), fields.get(0));
+        assertTrue(fields.contains(schemaOf("current", FieldType.NUMBER)));
+        assertTrue(fields.contains(schemaOf("threads", FieldType.LIST)));
+        assertTrue(fields.contains(schemaOf("threads[]", FieldType.STRUCT)));
+        assertTrue(fields.contains(schemaOf("threads[].name", FieldType.STRING)));
+        assertTrue(fields.contains(schemaOf("threads[].priority", FieldType.NUMBER)));
+        assertEquals(6, fields.size());
+    }
+
+    private static FieldSchema schemaOf(String path, FieldType type) {
+        return FieldSchema.newBuilder().setPath(path).setType(type).build();
+    }
+}
@@ -25,12 +25,21 @@ package org.noelware.analytics.tests.server;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.ListValue;
 import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.util.FieldMaskTree;
 import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.jvm.server.util.PackedArrays;
 
 public class GrpcValueUtilTests {
     @Test
@@ -55,4 +64,99 @@ public class GrpcValueUtilTests {
             GrpcValueUtil.toValue(Struct.newBuilder());
         });
     }
+
+    @Test
+    public void test_primitiveArraysArePacked() throws Exception {
+        final Struct packed = GrpcValueUtil.toValue(new long[] {1, -2, Long.MAX_VALUE}).getStructValue();
+        assertEquals(PackedArrays.SINT64, packed.getFieldsOrThrow(PackedArrays.PACKED_KEY).getStringValue());
+        assertEquals(3, packed.getFieldsOrThrow(PackedArrays.LENGTH_KEY).getNumberValue());
+
+        final CodedInputStream input = CodedInputStream.newInstance(Base64.getDecoder()
+                .decode(packed.getFieldsOrThrow(PackedArrays.BYTES_KEY).getStringValue()));
+
+        assertEquals(1, input.readSInt64());
+        assertEquals(-2, input.readSInt64());
+        assertEquals(Long.MAX_VALUE, input.readSInt64());
+        assertTrue(input.isAtEnd());
+
+        final Value doubles = GrpcValueUtil.toValue(new double[] {0.5, Double.NaN});
+        assertEquals(
+                PackedArrays.DOUBLE,
+                doubles.getStructValue().getFieldsOrThrow(PackedArrays.PACKED_KEY).getStringValue());
+
+        assertEquals(List.of(4L, -5L), PackedArrays.toProto(new int[] {4, -5}).getIntegersList());
+        assertThrows(IllegalArgumentException.class, () -> PackedArrays.toProto(new float[] {1f}));
+    }
+
+    @Test
+    public void test_recordsMapsAndEnumsAreTransformed() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", Thread.State.RUNNABLE);
+        map.put("missing", Optional.empty());
+
+        final Value value = GrpcValueUtil.toValue(new Sample("owo", 3, new String[] {"a"}, Set.of(true), map));
+        final Struct struct = value.getStructValue();
+
+        assertEquals(
+                List.of("pool_name", "gc_cpu_time", "names", "flags", "extra"),
+                List.copyOf(struct.getFieldsMap().keySet()));
+
+        assertEquals("owo", struct.getFieldsOrThrow("pool_name").getStringValue());
+        assertEquals(3, struct.getFieldsOrThrow("gc_cpu_time").getNumberValue());
+        assertEquals(
+                "a",
+                struct.getFieldsOrThrow("names").getListValue().getValues(0).getStringValue());
+
+        assertTrue(struct.getFieldsOrThrow("flags").getListValue().getValues(0).getBoolValue());
+
+        final Struct extra = struct.getFieldsOrThrow("extra").getStructValue();
+        assertEquals("RUNNABLE", extra.getFieldsOrThrow("state").getStringValue());
+        assertEquals(Value.KindCase.NULL_VALUE, extra.getFieldsOrThrow("missing").getKindCase());
+
+        // Serializable still wins over the record's components
+        final JvmThreadsExtension.JvmThreadsData threads = new JvmThreadsExtension().supply();
+        assertEquals(threads.toGrpcValue(), GrpcValueUtil.toValue(threads));
+    }
+
+    @Test
+    public void test_masksLeaveOutFieldsWhileConverting() {
+        assertNull(FieldMaskTree.of(List.of("", " ")));
+
+        final FieldMaskTree mask = FieldMaskTree.of(List.of("kept", "nested.inner"));
+        final Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("inner", 1);
+        nested.put("outer", 2);
+
+        // the accessor of `skipped` throws, so it can't have been read
+        final Struct struct = GrpcValueUtil.toValue(new Masked("owo", "uwu", List.of(nested)), mask)
+                .getStructValue();
+
+        assertEquals(List.of("kept", "nested"), List.copyOf(struct.getFieldsMap().keySet()));
+        assertEquals(
+                List.of("inner"),
+                List.copyOf(struct.getFieldsOrThrow("nested")
+                        .getListValue()
+                        .getValues(0)
+                        .getStructValue()
+                        .getFieldsMap()
+                        .keySet()));
+    }
+
+    @Test
+    public void test_toSnakeCase() {
+        assertEquals("collection_time_millis", GrpcValueUtil.toSnakeCase("collectionTimeMillis"));
+        assertEquals("gc_cpu_time", GrpcValueUtil.toSnakeCase("gcCPUTime"));
+        assertEquals("url", GrpcValueUtil.toSnakeCase("URL"));
+        assertEquals("name", GrpcValueUtil.toSnakeCase("name"));
+    }
+
+    private record Sample(
+            String poolName, long gcCPUTime, String[] names, Set<Boolean> flags, Map<String, Object> extra) {}
+
+    private record Masked(String kept, String skipped, List<Map<String, Object>> nested) {
+        @Override
+        public String skipped() {
+            throw new IllegalStateException("Component isn't in the mask");
+        }
+    }
 }
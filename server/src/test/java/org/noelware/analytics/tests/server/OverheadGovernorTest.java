@@ -0,0 +1,178 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionExecutors;
+import org.noelware.analytics.jvm.server.internal.collection.CpuStopwatch;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.jvm.server.internal.sampling.BackgroundSampler;
+import org.noelware.analytics.jvm.server.internal.sampling.RingBufferSampleHistory;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class OverheadGovernorTest {
+    @Test
+    public void test_budgetIsAveragedOverTheWindow() {
+        final AtomicLong clock = new AtomicLong(0);
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.01, Duration.ofMinutes(1)), clock::get, clock::get, metrics);
+
+        metrics.setGovernor(governor);
+        governor.record(Duration.ofMillis(400).toNanos());
+        assertFalse(metrics.isOverBudget());
+
+        clock.set(Duration.ofSeconds(30).toNanos());
+        governor.record(Duration.ofMillis(400).toNanos());
+        assertTrue(metrics.isOverBudget());
+        assertEquals(Duration.ofMillis(800), metrics.collectionCpuTime());
+
+        // The first 400ms has left the window
+        clock.set(Duration.ofSeconds(65).toNanos());
+        assertFalse(metrics.isOverBudget());
+        assertEquals(Duration.ofMillis(400), metrics.collectionCpuTime());
+
+        clock.set(Duration.ofMinutes(10).toNanos());
+        assertEquals(Duration.ZERO, metrics.collectionCpuTime());
+    }
+
+    @Test
+    public void test_guardServesLastSnapshotOverBudget() {
+        final AtomicLong clock = new AtomicLong(0);
+        final AtomicInteger collections = new AtomicInteger(0);
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.01, Duration.ofMinutes(1)), clock::get, clock::get, metrics);
+
+        final Function<CancellationToken, CompletableFuture<ReceiveStatsResponse>> loader =
+                governor.guard(token -> CompletableFuture.completedFuture(ReceiveStatsResponse.newBuilder()
+                        .setVersion(String.valueOf(collections.incrementAndGet()))
+                        .build()));
+
+        assertEquals("1", loader.apply(CancellationToken.NONE).join().getVersion());
+
+        governor.record(Duration.ofSeconds(1).toNanos());
+        final ReceiveStatsResponse degraded = loader.apply(CancellationToken.NONE).join();
+        assertEquals("1", degraded.getVersion());
+        assertTrue(degraded.getOverBudget());
+        assertEquals(1, metrics.overBudgetSnapshots());
+
+        clock.set(Duration.ofMinutes(2).toNanos());
+        final ReceiveStatsResponse collected = loader.apply(CancellationToken.NONE).join();
+        assertEquals("2", collected.getVersion());
+        assertFalse(collected.getOverBudget());
+    }
+
+    @Test
+    public void test_samplerStopsRecordingOverBudget() {
+        final AtomicLong clock = new AtomicLong(0);
+        final AtomicInteger collections = new AtomicInteger(0);
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.01, Duration.ofMinutes(1)), clock::get, clock::get, metrics);
+
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(8, 8, false);
+        final BackgroundSampler sampler = new BackgroundSampler(
+                governor.guard(token -> {
+                    collections.incrementAndGet();
+                    return CompletableFuture.completedFuture(ReceiveStatsResponse.getDefaultInstance());
+                }),
+                history,
+                Duration.ofSeconds(1),
+                governor);
+
+        sampler.sample();
+        assertEquals(1, history.latestSequence());
+
+        governor.record(Duration.ofSeconds(1).toNanos());
+        sampler.sample();
+        sampler.sample();
+        assertEquals(1, collections.get());
+        assertEquals(1, history.latestSequence());
+        assertEquals(2, metrics.overBudgetSnapshots());
+
+        clock.set(Duration.ofMinutes(2).toNanos());
+        sampler.sample();
+        assertEquals(2, collections.get());
+        assertEquals(2, history.latestSequence());
+    }
+
+    @Test
+    public void test_fallsBackToElapsedTimeWhenCpuTimeIsUnknown() {
+        final AtomicLong clock = new AtomicLong(0);
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.01, Duration.ofMinutes(1)), clock::get, () -> -1, metrics);
+
+        // What the JVM returns on virtual threads
+        final CpuStopwatch stopwatch = governor.startMeasuring();
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertEquals(-1, stopwatch.cpuNanos());
+        governor.record(stopwatch.cpuOrElapsedNanos());
+        assertEquals(Duration.ofSeconds(1), governor.usedCpuTime());
+        assertTrue(governor.isOverBudget());
+    }
+
+    @Test
+    public void test_budgetTripsOnTheDefaultExecutor() throws Exception {
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(System::nanoTime, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.001, Duration.ofMinutes(1)),
+                System::nanoTime,
+                CpuStopwatch.threadCpuClock(),
+                metrics);
+
+        // The budget is 60ms, and the task keeps a core busy for 200ms
+        final ExecutorService executor = CollectionExecutors.createDefault();
+        try {
+            executor.submit(() -> {
+                        final CpuStopwatch stopwatch = governor.startMeasuring();
+                        final long until = System.nanoTime() + Duration.ofMillis(200).toNanos();
+                        long spins = 0;
+                        while (System.nanoTime() < until) spins++;
+
+                        governor.record(stopwatch.cpuOrElapsedNanos());
+                        return spins;
+                    })
+                    .get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(governor.isOverBudget());
+        assertTrue(governor.usedCpuTime().compareTo(Duration.ofMillis(60)) > 0);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.PredictiveCollector;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class PredictiveCollectorTest {
+    @Test
+    public void test_preCollectsBeforeTheExpectedCall() {
+        final AtomicLong clock = new AtomicLong(0);
+        final AtomicInteger fallbacks = new AtomicInteger(0);
+        final AtomicInteger collections = new AtomicInteger(0);
+        final ManualScheduler scheduler = new ManualScheduler();
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final PredictiveCollector collector = new PredictiveCollector(
+                token -> {
+                    fallbacks.incrementAndGet();
+                    return CompletableFuture.completedFuture(ReceiveStatsResponse.getDefaultInstance());
+                },
+                token -> CompletableFuture.completedFuture(ReceiveStatsResponse.newBuilder()
+                        .setVersion(String.valueOf(collections.incrementAndGet()))
+                        .build()),
+                Duration.ofSeconds(1),
+                scheduler,
+                () -> false,
+                clock::get,
+                metrics);
+
+        // Two intervals are needed before a call can be predicted
+        for (int i = 0; i < 3; i++) {
+            clock.set(Duration.ofSeconds(10L * i).toNanos());
+            collector.get("owo", CancellationToken.NONE).join();
+        }
+
+        assertEquals(3, fallbacks.get());
+        assertEquals(1, scheduler.tasks.size());
+        assertTrue(scheduler.delays.get(0) < Duration.ofSeconds(10).toNanos());
+        assertTrue(scheduler.delays.get(0) > Duration.ofSeconds(9).toNanos());
+
+        clock.set(Duration.ofMillis(29_400).toNanos());
+        scheduler.tasks.get(0).run();
+        assertEquals(1, collections.get());
+
+        clock.set(Duration.ofSeconds(30).toNanos());
+        assertEquals("1", collector.get("owo", CancellationToken.NONE).join().getVersion());
+        assertEquals(3, fallbacks.get());
+        assertEquals(1, metrics.predictiveCollections());
+        assertEquals(1, metrics.predictedCalls());
+
+        // The snapshot is too old for a call that comes later than the max age
+        clock.set(Duration.ofMillis(40_500).toNanos());
+        assertEquals("", collector.get("owo", CancellationToken.NONE).join().getVersion());
+        assertEquals(4, fallbacks.get());
+        assertEquals(1, metrics.predictedCalls());
+
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void test_doesNotPredictIrregularCalls() {
+        final AtomicLong clock = new AtomicLong(0);
+        final ManualScheduler scheduler = new ManualScheduler();
+        final PredictiveCollector collector = new PredictiveCollector(
+                token -> CompletableFuture.completedFuture(ReceiveStatsResponse.getDefaultInstance()),
+                token -> CompletableFuture.completedFuture(ReceiveStatsResponse.getDefaultInstance()),
+                Duration.ofSeconds(1),
+                scheduler,
+                () -> false,
+                clock::get,
+                new DefaultServerMetrics(clock::get, null));
+
+        for (long at : new long[] {0, 1, 30, 32}) {
+            clock.set(Duration.ofSeconds(at).toNanos());
+            collector.get("owo", CancellationToken.NONE).join();
+            collector.get(null, CancellationToken.NONE).join();
+        }
+
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    // Keeps the scheduled tasks so that the test can run them when it wants to.
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delays.add(unit.toNanos(delay));
+
+            return super.schedule(() -> {}, 1, TimeUnit.DAYS);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.Struct;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.SampleHistory;
+import org.noelware.analytics.jvm.server.internal.sampling.RingBufferSampleHistory;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+import org.noelware.analytics.protobufs.v1.RetrieveHistoryResponse;
+
+public class RingBufferSampleHistoryTest {
+    @Test
+    public void test_keepsOnlyTheLastSamples() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(3, 4, false);
+        for (int i = 1; i <= 5; i++) history.append(i * 1000L, data("threads", data("count", i)));
+
+        assertEquals(5, history.latestSequence());
+        assertEquals(List.of("threads.count"), history.series());
+
+        final SampleHistory.Window window = history.read("threads.count");
+        assertNotNull(window);
+        assertEquals(3, window.firstSequence());
+        assertArrayEquals(new long[] {3000, 4000, 5000}, window.timestamps());
+        assertArrayEquals(new double[] {3, 4, 5}, window.values());
+    }
+
+    @Test
+    public void test_missingValuesAreNaN() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(4, 4, true);
+        history.append(1000, data("a", 1, "name", "not sampled"));
+        history.append(2000, data("b", List.of(2, 3)));
+
+        assertEquals(List.of("a", "b"), history.series().stream().sorted().toList());
+        assertArrayEquals(new double[] {1, Double.NaN}, history.read("a").values());
+        assertArrayEquals(new double[] {Double.NaN, 2}, history.read("b").values());
+        assertNull(history.read("name"));
+    }
+
+    @Test
+    public void test_listsAreSampledByLength() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(4, 4, false);
+        history.append(1000, data("threads", data("threads", List.of(data("id", 1), data("id", 2)))));
+        history.append(2000, data("threads", data("threads", List.of(data("id", 3)))));
+
+        // The thread IDs change between snapshots, so they'd only fill the history up
+        assertEquals(List.of("threads.threads"), history.series());
+        assertArrayEquals(new double[] {2, 1}, history.read("threads.threads").values());
+    }
+
+    @Test
+    public void test_evictsSeriesThatStoppedAppearing() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(2, 1, false);
+        history.append(1000, data("a", 1));
+        history.append(2000, data("a", 2));
+
+        // `a` still has a value in the samples that are kept
+        history.append(3000, data("b", 3));
+        assertEquals(List.of("a"), history.series());
+
+        history.append(4000, data("b", 4));
+        assertEquals(List.of("b"), history.series());
+        assertNull(history.read("a"));
+        assertArrayEquals(new double[] {Double.NaN, 4}, history.read("b").values());
+    }
+
+    @Test
+    public void test_dropsSeriesPastTheLimit() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(2, 1, false);
+        history.append(1000, data("a", 1));
+        history.append(2000, data("a", 2, "b", 3));
+
+        assertEquals(List.of("a"), history.series());
+        assertNull(history.read("b"));
+    }
+
+    @Test
+    public void test_readSinceReportsGapsAndNextCursor() {
+        final RingBufferSampleHistory history = new RingBufferSampleHistory(3, 4, false);
+        for (int i = 1; i <= 5; i++) history.append(i * 1000L, data("a", i));
+
+        final RetrieveHistoryResponse fromStart = history.readSince(0);
+        assertTrue(fromStart.getGap());
+        assertEquals(3, fromStart.getFirstSequence());
+        assertEquals(5, fromStart.getNextCursor());
+        assertEquals(List.of(3.0, 4.0, 5.0), fromStart.getSeries(0).getValuesList());
+
+        final RetrieveHistoryResponse incremental = history.readSince(3);
+        assertFalse(incremental.getGap());
+        assertEquals(List.of(4000L, 5000L), incremental.getTimestampsList());
+
+        final RetrieveHistoryResponse upToDate = history.readSince(5);
+        assertFalse(upToDate.getGap());
+        assertEquals(0, upToDate.getTimestampsCount());
+        assertEquals(5, upToDate.getNextCursor());
+    }
+
+    private static Struct data(Object... fields) {
+        final Struct.Builder data = Struct.newBuilder();
+        for (int i = 0; i < fields.length; i += 2) {
+            data.putFields((String) fields[i], GrpcValueUtil.toValue(fields[i + 1]));
+        }
+
+        return data.build();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.SingleFlight;
+
+public class SingleFlightTest {
+    @Test
+    public void test_coalescesConcurrentCalls() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger(0);
+        final AtomicInteger coalesced = new AtomicInteger(0);
+        final SingleFlight<Object> flight = new SingleFlight<>(
+                token -> CompletableFuture.supplyAsync(() -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+
+                    return new Object();
+                }),
+                coalesced::incrementAndGet);
+
+        final CompletableFuture<Object> leader = flight.execute(CancellationToken.NONE);
+        started.await();
+
+        final CompletableFuture<Object> follower = flight.execute(CancellationToken.NONE);
+        assertFalse(follower.isDone());
+
+        release.countDown();
+        assertSame(leader.get(), follower.get());
+        assertEquals(1, executions.get());
+        assertEquals(1, coalesced.get());
+
+        // The pass is over, so the next call runs the work again
+        flight.execute(CancellationToken.NONE).get();
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void test_cancelsOnlyOnceEveryCallerHasLeft() {
+        final CompletableFuture<Object> never = new CompletableFuture<>();
+        final CancellationToken[] passToken = new CancellationToken[1];
+        final SingleFlight<Object> flight = new SingleFlight<>(
+                token -> {
+                    passToken[0] = token;
+                    return never;
+                },
+                () -> {});
+
+        final CancellationToken first = new CancellationToken();
+        final CancellationToken second = new CancellationToken();
+        flight.execute(first);
+        flight.execute(second);
+
+        first.cancel();
+        assertFalse(passToken[0].isCancelled());
+
+        second.cancel();
+        assertTrue(passToken[0].isCancelled());
+    }
+}
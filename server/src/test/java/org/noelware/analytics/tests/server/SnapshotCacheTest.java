@@ -0,0 +1,74 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.SnapshotCache;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class SnapshotCacheTest {
+    @Test
+    public void test_servesStaleSnapshotWhileRefreshing() {
+        final AtomicLong clock = new AtomicLong(0);
+        final AtomicInteger collections = new AtomicInteger(0);
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, Duration.ofSeconds(30));
+        final SnapshotCache cache = new SnapshotCache(
+                token -> CompletableFuture.completedFuture(ReceiveStatsResponse.newBuilder()
+                        .setVersion(String.valueOf(collections.incrementAndGet()))
+                        .build()),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30),
+                Runnable::run,
+                clock::get,
+                metrics);
+
+        assertEquals("1", cache.get(CancellationToken.NONE).join().getVersion());
+        assertEquals(1, metrics.snapshotCacheMisses());
+
+        clock.set(Duration.ofSeconds(2).toNanos());
+        assertEquals("1", cache.get(CancellationToken.NONE).join().getVersion());
+        assertEquals(1, metrics.snapshotCacheHits());
+
+        // expired, so the stale one is served and the (direct) executor refreshes it
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertEquals("1", cache.get(CancellationToken.NONE).join().getVersion());
+        assertEquals(1, metrics.snapshotCacheStaleHits());
+        assertEquals(1, metrics.snapshotCacheRefreshes());
+        assertEquals("2", cache.get(CancellationToken.NONE).join().getVersion());
+
+        // way past the max staleness, so it has to be collected again
+        clock.set(Duration.ofMinutes(5).toNanos());
+        assertEquals("3", cache.get(CancellationToken.NONE).join().getVersion());
+        assertEquals(2, metrics.snapshotCacheMisses());
+        assertEquals(Duration.ZERO, metrics.snapshotAge());
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.Value;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.extensions.Extension;
+import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
+import org.noelware.analytics.jvm.server.extensions.internal.DefaultExtensionRegistry;
+import org.noelware.analytics.jvm.server.extensions.internal.SelfMetricsExtension;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmVersionInfoExtension;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.CircuitBreaker;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionCadence;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionExecutors;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionCostRecorder;
+import org.noelware.analytics.jvm.server.internal.collection.ExtensionSelection;
+import org.noelware.analytics.jvm.server.internal.collection.OverheadGovernor;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.jvm.server.internal.metadata.DefaultServerMetadata;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.protobufs.v1.ExtensionReport;
+import org.noelware.analytics.protobufs.v1.ExtensionStatus;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsRequest;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class StatsCollectorTest {
+    private static final ExecutorService executor = CollectionExecutors.createDefault();
+
+    @AfterAll
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_slowExtensionTimesOut() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new SleepyExtension(), new JvmVersionInfoExtension());
+
+        final ReceiveStatsResponse response = createCollector(registry).collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("sleepy", "version"), List.copyOf(response.getData().getFieldsMap().keySet()));
+        assertEquals(Value.KindCase.NULL_VALUE, response.getData().getFieldsOrThrow("sleepy").getKindCase());
+        assertEquals(Runtime.version().toString(), response.getData().getFieldsOrThrow("version").getStringValue());
+        assertEquals(
+                List.of(ExtensionStatus.TIMEOUT, ExtensionStatus.OK),
+                response.getExtensionsList().stream().map(ExtensionReport::getStatus).toList());
+    }
+
+    @Test
+    public void test_failingExtensionIsSkippedOnceBreakerOpens() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new BrokenExtension(), new JvmVersionInfoExtension());
+
+        final StatsCollector collector = createCollector(registry);
+        for (int i = 0; i < 3; i++) {
+            final ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+            final ExtensionReport report = response.getExtensions(0);
+
+            assertEquals(ExtensionStatus.FAILED, report.getStatus());
+            assertEquals("java.lang.IllegalStateException: owo", report.getError());
+            assertEquals(ExtensionStatus.OK, response.getExtensions(1).getStatus());
+        }
+
+        final ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(ExtensionStatus.SKIPPED, response.getExtensions(0).getStatus());
+        assertEquals(Value.KindCase.NULL_VALUE, response.getData().getFieldsOrThrow("broken").getKindCase());
+        assertEquals(Runtime.version().toString(), response.getData().getFieldsOrThrow("version").getStringValue());
+    }
+
+    @Test
+    public void test_reregisteredExtensionStartsOver() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new BrokenExtension(), new CountingExtension());
+
+        final StatsCollector collector = createCollector(registry);
+        for (int i = 0; i < 3; i++) collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+
+        ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(ExtensionStatus.SKIPPED, response.getExtensions(0).getStatus());
+
+        // The extensions that replace them don't get the open breaker, or the data of the one before
+        assertTrue(registry.unregister("broken"));
+        assertTrue(registry.unregister("counting"));
+        registry.registerAll(
+                new Extension<String>() {
+                    @Override
+                    public String name() {
+                        return "broken";
+                    }
+
+                    @Override
+                    public String supply() {
+                        return "fixed";
+                    }
+                },
+                new CountingExtension());
+
+        response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(ExtensionStatus.OK, response.getExtensions(0).getStatus());
+        assertEquals("fixed", response.getData().getFieldsOrThrow("broken").getStringValue());
+        assertEquals(1, response.getData().getFieldsOrThrow("counting").getNumberValue());
+    }
+
+    @Test
+    public void test_cancelledPassAbandonsRunningExtensions() {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new SleepyExtension());
+
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(System::nanoTime, null);
+        final StatsCollector collector = createCollector(registry, metrics);
+        final CancellationToken token = new CancellationToken();
+        final CompletableFuture<ReceiveStatsResponse> pass = collector.collect(token);
+
+        token.cancel();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> pass.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, ex.getCause());
+        assertEquals(1, metrics.abandonedExtensionCalls());
+    }
+
+    @Test
+    public void test_passesDontLeakCancelListeners() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new BrokenExtension(), new JvmThreadsExtension());
+
+        final StatsCollector collector = createCollector(registry);
+        final CancellationToken token = new CancellationToken();
+        for (int i = 0; i < 200; i++) collector.collect(token).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, token.listenerCount());
+    }
+
+    @Test
+    public void test_childTokensAreCancelledWithTheirParent() {
+        final CancellationToken parent = new CancellationToken();
+        final CancellationToken released = parent.child();
+        final CancellationToken child = parent.child();
+
+        released.release();
+        assertEquals(1, parent.listenerCount());
+
+        parent.cancel();
+        assertTrue(child.isCancelled());
+        assertFalse(released.isCancelled());
+    }
+
+    @Test
+    public void test_unselectedExtensionsAreNeverCalled() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new BrokenExtension(), new JvmVersionInfoExtension(), new JvmThreadsExtension());
+
+        final ReceiveStatsRequest request = ReceiveStatsRequest.newBuilder()
+                .addExcludeExtensions("broken")
+                .setFieldMask(FieldMask.newBuilder().addPaths("version").addPaths("threads.current"))
+                .build();
+
+        final ReceiveStatsResponse response = createCollector(registry)
+                .collect(CancellationToken.NONE, ExtensionSelection.from(request), 1)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("version", "threads"), List.copyOf(response.getData().getFieldsMap().keySet()));
+        assertEquals(
+                List.of("current"),
+                List.copyOf(response.getData()
+                        .getFieldsOrThrow("threads")
+                        .getStructValue()
+                        .getFieldsMap()
+                        .keySet()));
+    }
+
+    @Test
+    public void test_blankFieldMaskSelectsEverything() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new JvmVersionInfoExtension(), new JvmThreadsExtension());
+
+        final ReceiveStatsRequest request = ReceiveStatsRequest.newBuilder()
+                .setFieldMask(FieldMask.newBuilder().addPaths("").addPaths(" "))
+                .build();
+
+        assertFalse(ExtensionSelection.isSelective(request));
+
+        final ReceiveStatsResponse response = createCollector(registry)
+                .collect(CancellationToken.NONE, ExtensionSelection.from(request), 1)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("version", "threads"), List.copyOf(response.getData().getFieldsMap().keySet()));
+    }
+
+    @Test
+    public void test_typedExtensionsAreWrittenIntoJvmStats() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new JvmVersionInfoExtension(), new JvmThreadsExtension());
+
+        final StatsCollector collector = createCollector(registry);
+        final ReceiveStatsResponse v1 = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(1, v1.getSchemaVersion());
+        assertFalse(v1.hasJvm());
+        assertEquals(List.of("version", "threads"), List.copyOf(v1.getData().getFieldsMap().keySet()));
+
+        final ReceiveStatsResponse v2 = collector
+                .collect(CancellationToken.NONE, ExtensionSelection.ALL, StatsCollector.LATEST_SCHEMA_VERSION)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, v2.getSchemaVersion());
+        assertEquals(List.of("version"), List.copyOf(v2.getData().getFieldsMap().keySet()));
+        assertTrue(v2.getJvm().hasThreads());
+        assertTrue(v2.getJvm().getThreads().getCurrent() > 0);
+    }
+
+    @Test
+    public void test_encodedSnapshotParsesLikeAStructOne() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(new JvmVersionInfoExtension(), new BrokenExtension());
+
+        final StatsCollector collector = createCollector(registry);
+        final ReceiveStatsResponse expected = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        final ReceiveStatsResponse encoded =
+                collector.collectEncoded(CancellationToken.NONE, 1).get(5, TimeUnit.SECONDS);
+
+        // this side only holds the bytes, a client parses them back into the data
+        assertFalse(encoded.hasData());
+        assertEquals(
+                expected.getData(),
+                ReceiveStatsResponse.parseFrom(encoded.toByteString()).getData());
+    }
+
+    @Test
+    public void test_staticExtensionsAreOnlySuppliedOnce() throws Exception {
+        final CountingExtension counting = new CountingExtension();
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.registerAll(counting, new JvmVersionInfoExtension());
+
+        final DefaultServerMetadata metadata = new DefaultServerMetadata();
+        metadata.setProductName("analytics-server");
+
+        final StatsCollector collector = createCollector(registry, metadata);
+        for (int i = 0; i < 3; i++) {
+            final ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+            assertEquals(1, response.getData().getFieldsOrThrow("counting").getNumberValue());
+            assertEquals("analytics-server", response.getProduct());
+        }
+
+        metadata.setProductName("owo");
+        final ReceiveStatsResponse encoded = ReceiveStatsResponse.parseFrom(
+                collector.collectEncoded(CancellationToken.NONE, 1).get(5, TimeUnit.SECONDS).toByteString());
+
+        assertEquals(1, counting.calls.get());
+        assertEquals("owo", encoded.getProduct());
+        assertEquals(1, encoded.getData().getFieldsOrThrow("counting").getNumberValue());
+    }
+
+    @Test
+    public void test_refreshIntervalReusesData() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RefreshingExtension refreshing = new RefreshingExtension(clock, 0, Duration.ofSeconds(10));
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(refreshing);
+
+        final StatsCollector collector = createCollector(registry, null, clock);
+        assertRefreshed(collector, 1, 0);
+
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertRefreshed(collector, 1, 4000);
+
+        clock.addAndGet(Duration.ofSeconds(7).toNanos());
+        assertRefreshed(collector, 2, 0);
+    }
+
+    @Test
+    public void test_adaptiveCadenceStretchesExpensiveExtensions() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RefreshingExtension refreshing = new RefreshingExtension(clock, Duration.ofMillis(50).toNanos(), null);
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(refreshing);
+
+        // 50ms at 1% of the time is at most every 5 seconds
+        final StatsCollector collector =
+                createCollector(registry, new CollectionCadence.Settings(0.01, Duration.ofMinutes(1)), clock);
+
+        assertRefreshed(collector, 1, 0);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertRefreshed(collector, 1, 1000);
+
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertRefreshed(collector, 2, 0);
+    }
+
+    @Test
+    public void test_overBudgetReusesAndReducesData() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final AtomicLong cpu = new AtomicLong();
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(clock::get, null);
+        final OverheadGovernor governor = new OverheadGovernor(
+                new OverheadGovernor.Settings(0.01, Duration.ofMinutes(1)), clock::get, cpu::get, metrics);
+
+        // The extension takes a second of CPU time on every call, which is over the budget of 600ms
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new RefreshingExtension(cpu, Duration.ofSeconds(1).toNanos(), null));
+
+        final StatsCollector collector = createCollector(registry, null, governor, null, clock, metrics);
+        ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertFalse(response.getOverBudget());
+        assertTrue(governor.isOverBudget());
+
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertRefreshed(collector, 1, 10_000);
+
+        // Once the data is older than the window, the extension is asked for its reduced data
+        clock.set(Duration.ofSeconds(65).toNanos());
+        governor.record(Duration.ofSeconds(1).toNanos());
+
+        response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertTrue(response.getOverBudget());
+        assertTrue(response.getExtensions(0).getReduced());
+        assertEquals(2, response.getData().getFieldsOrThrow("refreshing").getNumberValue());
+        assertEquals(1, metrics.reducedExtensionCalls());
+    }
+
+    @Test
+    public void test_recordsExtensionCosts() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final ExtensionCostRecorder recorder = new ExtensionCostRecorder(clock::get, clock::get, () -> -1);
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new RefreshingExtension(clock, Duration.ofMillis(20).toNanos(), null));
+        registry.register(new SelfMetricsExtension(recorder, registry));
+
+        final StatsCollector collector = createCollector(
+                registry, null, null, recorder, clock, new DefaultServerMetrics(clock::get, null));
+
+        ReceiveStatsResponse response = null;
+        for (int i = 0; i < 3; i++) response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.hasSnapshotDate());
+        assertEquals(Duration.ofMillis(20).toNanos(), response.getCollectionDuration().getNanos());
+
+        final ExtensionCostRecorder.Cost cost = recorder.costs().stream()
+                .filter(it -> it.name().equals("refreshing"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(3, cost.calls());
+        assertEquals(Duration.ofMillis(20).toNanos(), cost.wallNanos().last());
+        assertEquals(Duration.ofMillis(20).toNanos(), cost.cpuNanos().p99());
+        assertEquals(-1, cost.allocatedBytes().max());
+        assertTrue(cost.encodedBytes().last() > 0);
+
+        // The self-metrics extension is supplied next to the others, so it may not have this snapshot's call yet
+        final List<Value> reported = response.getData()
+                .getFieldsOrThrow("analytics")
+                .getStructValue()
+                .getFieldsOrThrow("extensions")
+                .getListValue()
+                .getValuesList();
+
+        assertEquals(2, reported.size());
+        assertEquals("refreshing", reported.get(1).getStructValue().getFieldsOrThrow("name").getStringValue());
+        assertTrue(reported.get(1).getStructValue().getFieldsOrThrow("calls").getNumberValue() >= 2);
+    }
+
+    @Test
+    public void test_unknownCostsAreReportedAsUnavailable() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+
+        // Neither is known once the extension has been supplied, like on a virtual thread
+        final ExtensionCostRecorder recorder =
+                new ExtensionCostRecorder(clock::get, () -> -1, () -> clock.get() == 0 ? 1024 : -1);
+
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new RefreshingExtension(clock, Duration.ofMillis(20).toNanos(), null));
+
+        createCollector(registry, null, null, recorder, clock, new DefaultServerMetrics(clock::get, null))
+                .collect(CancellationToken.NONE)
+                .get(5, TimeUnit.SECONDS);
+
+        final ExtensionCostRecorder.Cost cost = recorder.costs().get(0);
+        assertEquals(Duration.ofMillis(20).toNanos(), cost.wallNanos().last());
+        assertEquals(-1, cost.cpuNanos().last());
+        assertEquals(-1, cost.allocatedBytes().last());
+    }
+
+    @Test
+    public void test_recordsExtensionCostsOnTheDefaultExecutor() throws Exception {
+        final ExtensionCostRecorder recorder = ExtensionCostRecorder.create(System::nanoTime);
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new BusyExtension());
+
+        final AtomicLong clock = new AtomicLong();
+        createCollector(registry, null, null, recorder, clock, new DefaultServerMetrics(clock::get, null))
+                .collect(CancellationToken.NONE)
+                .get(5, TimeUnit.SECONDS);
+
+        // Virtual threads can't be measured, but whatever is reported is never made up from two unknown readings
+        final ExtensionCostRecorder.Cost cost = recorder.costs().get(0);
+        assertTrue(cost.cpuNanos().last() == -1 || cost.cpuNanos().last() > 0);
+        assertTrue(cost.allocatedBytes().last() == -1 || cost.allocatedBytes().last() > 0);
+    }
+
+    @Test
+    public void test_negotiateSchemaVersion() {
+        assertEquals(1, StatsCollector.negotiateSchemaVersion(0));
+        assertEquals(1, StatsCollector.negotiateSchemaVersion(1));
+        assertEquals(2, StatsCollector.negotiateSchemaVersion(2));
+        assertEquals(StatsCollector.LATEST_SCHEMA_VERSION, StatsCollector.negotiateSchemaVersion(Integer.MAX_VALUE));
+        assertEquals(StatsCollector.LATEST_SCHEMA_VERSION, StatsCollector.negotiateSchemaVersion(-1));
+    }
+
+    private static void assertRefreshed(StatsCollector collector, int calls, long sampleAgeMillis)
+            throws Exception {
+        final ReceiveStatsResponse response = collector.collect(CancellationToken.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals(calls, response.getData().getFieldsOrThrow("refreshing").getNumberValue());
+        assertEquals(sampleAgeMillis, response.getExtensions(0).getSampleAgeMillis());
+    }
+
+    private static StatsCollector createCollector(
+            ExtensionRegistry registry, CollectionCadence.Settings cadence, AtomicLong clock) {
+        return createCollector(registry, cadence, null, null, clock, new DefaultServerMetrics(clock::get, null));
+    }
+
+    private static StatsCollector createCollector(
+            ExtensionRegistry registry,
+            CollectionCadence.Settings cadence,
+            OverheadGovernor governor,
+            ExtensionCostRecorder costs,
+            AtomicLong clock,
+            DefaultServerMetrics metrics) {
+        return new StatsCollector(
+                registry,
+                new DefaultServerMetadata(),
+                executor,
+                Duration.ofSeconds(5),
+                CircuitBreaker.Settings.DEFAULT,
+                cadence,
+                governor,
+                costs,
+                clock::get,
+                metrics);
+    }
+
+    private static StatsCollector createCollector(ExtensionRegistry registry) {
+        return createCollector(registry, new DefaultServerMetrics(System::nanoTime, null));
+    }
+
+    private static StatsCollector createCollector(ExtensionRegistry registry, DefaultServerMetrics metrics) {
+        return createCollector(registry, new DefaultServerMetadata(), metrics);
+    }
+
+    private static StatsCollector createCollector(ExtensionRegistry registry, DefaultServerMetadata metadata) {
+        return createCollector(registry, metadata, new DefaultServerMetrics(System::nanoTime, null));
+    }
+
+    private static StatsCollector createCollector(
+            ExtensionRegistry registry, DefaultServerMetadata metadata, DefaultServerMetrics metrics) {
+        return new StatsCollector(
+                registry,
+                metadata,
+                executor,
+                Duration.ofSeconds(5),
+                CircuitBreaker.Settings.DEFAULT,
+                null,
+                null,
+                null,
+                System::nanoTime,
+                metrics);
+    }
+
+    private static class BrokenExtension implements Extension<String> {
+        @Override
+        public String name() {
+            return "broken";
+        }
+
+        @Override
+        public String supply() {
+            throw new IllegalStateException("owo");
+        }
+    }
+
+    private static class CountingExtension implements Extension<Integer> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+
+        @Override
+        public Integer supply() {
+            return calls.incrementAndGet();
+        }
+
+        @Override
+        public boolean isStatic() {
+            return true;
+        }
+    }
+
+    // Advances the clock by its cost on every call, as if it took that long
+    private static class RefreshingExtension implements Extension<Integer> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Duration refreshInterval;
+        private final AtomicLong clock;
+        private final long costNanos;
+
+        RefreshingExtension(AtomicLong clock, long costNanos, Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            this.costNanos = costNanos;
+            this.clock = clock;
+        }
+
+        @Override
+        public String name() {
+            return "refreshing";
+        }
+
+        @Override
+        public Integer supply() {
+            clock.addAndGet(costNanos);
+            return calls.incrementAndGet();
+        }
+
+        @Override
+        public Duration refreshInterval() {
+            return refreshInterval;
+        }
+    }
+
+    private static class BusyExtension implements Extension<Integer> {
+        @Override
+        public String name() {
+            return "busy";
+        }
+
+        @Override
+        public Integer supply() {
+            final long until = System.nanoTime() + Duration.ofMillis(5).toNanos();
+            int[] allocated = new int[0];
+            while (System.nanoTime() < until) allocated = new int[1024];
+
+            return allocated.length;
+        }
+    }
+
+    private static class SleepyExtension implements Extension<String> {
+        @Override
+        public String name() {
+            return "sleepy";
+        }
+
+        @Override
+        public String supply() {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return "good morning!";
+        }
+
+        @Override
+        public Duration deadline() {
+            return Duration.ofMillis(100);
+        }
+    }
+}
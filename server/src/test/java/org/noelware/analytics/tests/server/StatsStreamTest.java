@@ -0,0 +1,153 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.extensions.ExtensionRegistry;
+import org.noelware.analytics.jvm.server.extensions.internal.DefaultExtensionRegistry;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.internal.collection.CancellationToken;
+import org.noelware.analytics.jvm.server.internal.collection.CircuitBreaker;
+import org.noelware.analytics.jvm.server.internal.collection.CollectionExecutors;
+import org.noelware.analytics.jvm.server.internal.collection.StatsCollector;
+import org.noelware.analytics.jvm.server.internal.metadata.DefaultServerMetadata;
+import org.noelware.analytics.jvm.server.internal.metrics.DefaultServerMetrics;
+import org.noelware.analytics.jvm.server.internal.streaming.StatsStream;
+import org.noelware.analytics.protobufs.v1.ReceiveStatsResponse;
+
+public class StatsStreamTest {
+    @Test
+    public void test_ticksDontLeakCancelListeners() throws Exception {
+        final ExtensionRegistry registry = new DefaultExtensionRegistry();
+        registry.register(new JvmThreadsExtension());
+
+        final DefaultServerMetrics metrics = new DefaultServerMetrics(System::nanoTime, null);
+        final ExecutorService executor = CollectionExecutors.createDefault();
+        final StatsCollector collector = new StatsCollector(
+                registry,
+                new DefaultServerMetadata(),
+                executor,
+                Duration.ofSeconds(5),
+                CircuitBreaker.Settings.DEFAULT,
+                null,
+                null,
+                null,
+                System::nanoTime,
+                metrics);
+
+        final CancellationToken token = new CancellationToken();
+        final RecordingObserver observer = new RecordingObserver();
+        final ManualScheduler scheduler = new ManualScheduler();
+        final StatsStream stream =
+                new StatsStream(observer, token, collector::collect, UnaryOperator.identity(), metrics);
+
+        try {
+            stream.start(scheduler, Duration.ofSeconds(1));
+            for (int i = 1; i <= 500; i++) {
+                scheduler.tick.run();
+
+                // A tick is skipped while the last pass is still running, so wait for it
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (observer.sent.get() < i) {
+                    assertTrue(System.nanoTime() < deadline, "pass %d didn't complete".formatted(i));
+                    Thread.onSpinWait();
+                }
+            }
+
+            assertEquals(0, token.listenerCount());
+        } finally {
+            token.cancel();
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    // Keeps the stream's task, so the test can run its ticks when it wants to.
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private Runnable tick;
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            tick = command;
+            return super.schedule(() -> {}, 1, TimeUnit.DAYS);
+        }
+    }
+
+    private static class RecordingObserver extends ServerCallStreamObserver<ReceiveStatsResponse> {
+        private final AtomicInteger sent = new AtomicInteger();
+
+        @Override
+        public void onNext(ReceiveStatsResponse value) {
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {}
+
+        @Override
+        public void setCompression(String compression) {}
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {}
+
+        @Override
+        public void disableAutoInboundFlowControl() {}
+
+        @Override
+        public void request(int count) {}
+
+        @Override
+        public void setMessageCompression(boolean enable) {}
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {}
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * 🐻‍❄️🌂 analytics-jvm: Client and server implementation of Noelware Analytics in Java, supported for both Java and Kotlin
+ * Copyright (c) 2022 Noelware <team@noelware.org>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.noelware.analytics.tests.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.noelware.analytics.jvm.server.extensions.jvm.JvmThreadsExtension;
+import org.noelware.analytics.jvm.server.serialization.StatsWriter;
+import org.noelware.analytics.jvm.server.util.FieldMaskTree;
+import org.noelware.analytics.jvm.server.util.GrpcValueUtil;
+
+public class StatsWriterTest {
+    @Test
+    public void test_writesTheSameBytesAsProtobuf() {
+        final Value expected = GrpcValueUtil.toValue(Struct.newBuilder()
+                .putFields("name", GrpcValueUtil.toValue("🐻‍❄️ polar bear"))
+                .putFields("count", GrpcValueUtil.toValue(12))
+                .putFields("ok", GrpcValueUtil.toValue(true))
+                .putFields("nothing", GrpcValueUtil.toValue(null))
+                .putFields("lone", GrpcValueUtil.toValue("\uD800"))
+                .putFields(
+                        "list",
+                        GrpcValueUtil.toValue(ListValue.newBuilder()
+                                .addValues(GrpcValueUtil.toValue(1.5))
+                                .addValues(GrpcValueUtil.toValue(Struct.newBuilder()
+                                        .putFields("é", GrpcValueUtil.toValue("x".repeat(200)))
+                                        .build()))
+                                .addValues(GrpcValueUtil.toValue(ListValue.newBuilder().build()))
+                                .build()))
+                .build());
+
+        final StatsWriter writer = new StatsWriter(1);
+        writer.beginObject()
+                .name("name")
+                .value("🐻‍❄️ polar bear")
+                .name("count")
+                .value(12)
+                .name("ok")
+                .value(true)
+                .name("nothing")
+                .nullValue()
+                .name("lone")
+                .value("\uD800")
+                .name("list")
+                .beginArray()
+                .value(1.5)
+                .beginObject()
+                .name("é")
+                .value("x".repeat(200))
+                .endObject()
+                .beginArray()
+                .endArray()
+                .endArray()
+                .endObject();
+
+        assertEquals(expected.toByteString(), writer.toByteString());
+    }
+
+    @Test
+    public void test_deeplyNestedValuesRoundTrip() throws Exception {
+        // The innermost string needs a 3 byte length, so every level around it does too
+        Value expected = GrpcValueUtil.toValue("x".repeat(20_000));
+        for (int depth = 99; depth >= 0; depth--) {
+            expected = GrpcValueUtil.toValue(Struct.newBuilder()
+                    .putFields("level", GrpcValueUtil.toValue(List.of(expected)))
+                    .putFields("depth", GrpcValueUtil.toValue(depth))
+                    .build());
+        }
+
+        final StatsWriter writer = new StatsWriter(1);
+        for (int depth = 0; depth < 100; depth++) writer.beginObject().name("level").beginArray();
+
+        writer.value("x".repeat(20_000));
+        for (int depth = 99; depth >= 0; depth--) writer.endArray().name("depth").value(depth).endObject();
+
+        final ByteString written = writer.toByteString();
+        assertEquals(expected.toByteString(), written);
+
+        final CodedInputStream input = written.newCodedInput();
+        input.setRecursionLimit(1_000);
+        assertEquals(expected, Value.parseFrom(input));
+    }
+
+    @Test
+    public void test_streamingSerializableMatchesItsValue() throws Exception {
+        final JvmThreadsExtension.JvmThreadsData data = new JvmThreadsExtension().supply();
+        final StatsWriter writer = new StatsWriter();
+
+        writer.value(data);
+        assertEquals(data.toGrpcValue(), Value.parseFrom(writer.toByteString()));
+
+        writer.reset();
+        writer.value(List.of("a", 1, false));
+        assertEquals(GrpcValueUtil.toValue(List.of("a", 1, false)), Value.parseFrom(writer.toByteString()));
+    }
+
+    @Test
+    public void test_generatedEncoderWritesEveryComponent() throws Exception {
+        final JvmThreadsExtension.ThreadInfo info = new JvmThreadsExtension.ThreadInfo(
+                1, "main", "RUNNABLE", false, false, false, 5, List.of(new Throwable().getStackTrace()[0]));
+
+        final Struct struct = info.toGrpcValue().getStructValue();
+        assertEquals(
+                List.of(
+                        "id",
+                        "name",
+                        "state",
+                        "suspended",
+                        "native_thread",
+                        "daemon_thread",
+                        "priority",
+                        "stacktrace"),
+                List.copyOf(struct.getFieldsMap().keySet()));
+
+        assertEquals("RUNNABLE", struct.getFieldsOrThrow("state").getStringValue());
+        assertEquals(
+                "test_generatedEncoderWritesEveryComponent",
+                struct.getFieldsOrThrow("stacktrace")
+                        .getListValue()
+                        .getValues(0)
+                        .getStructValue()
+                        .getFieldsOrThrow("method")
+                        .getStringValue());
+
+        final StatsWriter writer = new StatsWriter();
+        writer.value(info);
+        assertEquals(info.toGrpcValue(), Value.parseFrom(writer.toByteString()));
+    }
+
+    @Test
+    public void test_masksLeaveOutFieldsWhileWriting() throws Exception {
+        final JvmThreadsExtension.ThreadInfo info = new JvmThreadsExtension.ThreadInfo(
+                1, "main", "RUNNABLE", false, false, false, 5, List.of(new Throwable().getStackTrace()[0]));
+
+        final FieldMaskTree mask = FieldMaskTree.of(List.of("name", "stacktrace.method"));
+        final StatsWriter writer = new StatsWriter().mask(mask);
+        writer.value(info);
+
+        final Value written = Value.parseFrom(writer.toByteString());
+        assertEquals(mask.project(info.toGrpcValue()), written);
+        assertEquals(List.of("name", "stacktrace"), List.copyOf(written.getStructValue().getFieldsMap().keySet()));
+
+        // skipped objects and arrays are still checked
+        assertThrows(
+                IllegalStateException.class,
+                () -> new StatsWriter().mask(mask).beginObject().name("skipped").beginArray().endObject());
+    }
+
+    @Test
+    public void test_rejectsMalformedValues() {
+        assertThrows(IllegalStateException.class, () -> new StatsWriter().beginObject().value(1));
+        assertThrows(IllegalStateException.class, () -> new StatsWriter().beginArray().name("owo"));
+        assertThrows(IllegalStateException.class, () -> new StatsWriter().beginArray().endObject());
+        assertThrows(IllegalStateException.class, () -> new StatsWriter().value(1).value(2));
+        assertThrows(IllegalStateException.class, () -> new StatsWriter().beginObject().toByteString());
+    }
+}
@@ -25,6 +25,7 @@ rootProject.name = "analytics-jvm"
 
 include(
     ":protobufs",
+    ":processor",
     ":client",
     ":server",
     ":kotlin-support",